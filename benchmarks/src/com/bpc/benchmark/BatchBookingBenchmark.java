@@ -0,0 +1,91 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_Recurrence;
+import com.bpc.system.BPC_BookingRequest;
+import com.bpc.system.BPC_BookingResult;
+import com.bpc.system.BPC_Clinic;
+import com.bpc.system.BPC_Journal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A treatment plan of eight sessions booked one createBooking at a time, with one
+ * createBookings call, and as a weekly series, without a journal and with an fsync for every change
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBookingBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+    private static final int SESSIONS = 8;
+
+    @Param({"off", "0"})
+    private String syncMillis;
+
+    private Path file;
+    private BPC_Journal journal;
+    private ClinicFixture fixture;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BPC_Clinic clinic = new BPC_Clinic();
+        if (!syncMillis.equals("off")) {
+            file = Files.createTempFile("bpc-benchmark", ".journal");
+            journal = new BPC_Journal(file, Long.parseLong(syncMillis));
+            clinic = new BPC_Clinic(journal);
+        }
+        fixture = new ClinicFixture(clinic, PHYSIOTHERAPISTS);
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+            Files.delete(file);
+            journal = null;
+        }
+    }
+
+    @Benchmark
+    public void oneByOne() {
+        for (int i = 0; i < SESSIONS; i++) {
+            fixture.book(next++);
+        }
+    }
+
+    @Benchmark
+    public List<BPC_BookingResult> batch() {
+        List<BPC_BookingRequest> plan = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            int n = next++;
+            int pair = n % fixture.size();
+            plan.add(new BPC_BookingRequest(fixture.patientIds[pair], fixture.physiotherapistIds[pair],
+                    ClinicFixture.TREATMENT, ClinicFixture.slot(n / fixture.size())));
+        }
+        return fixture.clinic.createBookings(plan);
+    }
+
+    @Benchmark
+    public BPC_BookingSeries series() {
+        // series r of a pair starts at slot r % 40 of a block of SESSIONS weeks of its own
+        int n = next++;
+        int pair = n % fixture.size();
+        int round = n / fixture.size();
+        LocalDateTime first = ClinicFixture.slot(round % 40 + 40 * SESSIONS * (round / 40));
+        return fixture.clinic.createBookingSeries(fixture.patientIds[pair], fixture.physiotherapistIds[pair],
+                ClinicFixture.TREATMENT, BPC_Recurrence.weekly(first, SESSIONS));
+    }
+}
@@ -0,0 +1,58 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * createBooking and modifyBooking against clinics of different sizes and loads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingBenchmark {
+    @Param({"10", "100", "1000"})
+    private int physiotherapists;
+
+    // bookings each physiotherapist already has before measuring
+    @Param({"0", "100"})
+    private int existingBookings;
+
+    private ClinicFixture fixture;
+    private BPC_Booking[] modifiable;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new ClinicFixture(physiotherapists);
+        next = 0;
+        for (int i = 0; i < physiotherapists * existingBookings; i++) {
+            fixture.book(next++);
+        }
+        modifiable = new BPC_Booking[physiotherapists];
+        for (int i = 0; i < physiotherapists; i++) {
+            modifiable[i] = fixture.book(next++);
+        }
+    }
+
+    @Benchmark
+    public BPC_Booking createBooking() {
+        return fixture.book(next++);
+    }
+
+    @Benchmark
+    public void modifyBooking() {
+        // Each booking moves back and forth between its first slot and a slot a year later
+        int pair = next % physiotherapists;
+        BPC_Booking booking = modifiable[pair];
+        LocalDateTime first = ClinicFixture.slot(existingBookings);
+        LocalDateTime target = booking.getTreatment().getDateTime().equals(first) ? first.plusWeeks(52) : first;
+        fixture.clinic.modifyBooking(booking.getId(), fixture.physiotherapistIds[pair], ClinicFixture.TREATMENT, target);
+        next++;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.system.BPC_BookingChangeListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the booking change ring adds to createBooking: no listener, and one that counts changes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingListenerBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+
+    @Param({"false", "true"})
+    public boolean listening;
+
+    private ClinicFixture fixture;
+    private BPC_BookingChangeListener listener;
+    private long changes;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        next = 0;
+        if (listening) {
+            listener = (change, endOfBatch) -> changes++;
+            fixture.clinic.addBookingListener(listener);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (listener != null) {
+            fixture.clinic.removeBookingListener(listener);
+            listener = null;
+        }
+    }
+
+    @Benchmark
+    public BPC_Booking createBooking() {
+        return fixture.book(next++);
+    }
+}
@@ -0,0 +1,41 @@
+package com.bpc.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cancelBooking can only run once per booking, so each measured batch
+ * cancels bookings created in the iteration setup
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = CancelBookingBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = CancelBookingBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CancelBookingBenchmark {
+    static final int BATCH = 1000;
+
+    @Param({"10", "100", "1000"})
+    private int physiotherapists;
+
+    private ClinicFixture fixture;
+    private String[] bookingIds;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new ClinicFixture(physiotherapists);
+        bookingIds = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            bookingIds[i] = fixture.book(i).getId();
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public void cancelBooking() {
+        fixture.clinic.cancelBooking(bookingIds[next++]);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.system.BPC_Clinic;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Clinic populated with pairs of one physiotherapist and one patient.
+ * Booking number n goes to pair n % size, at that pair's (n / size)-th free slot,
+ * so any sequence of booking numbers can be created without conflicts.
+ */
+class ClinicFixture {
+    static final String TREATMENT = "Massage";
+    private static final LocalDateTime FIRST_SLOT =
+            LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(9, 0);
+
+    final BPC_Clinic clinic;
+    final String[] physiotherapistIds;
+    final String[] patientIds;
+
+    ClinicFixture(int size) {
+        this(new BPC_Clinic(), size);
+    }
+
+    ClinicFixture(BPC_Clinic clinic, int size) {
+        this.clinic = clinic;
+        physiotherapistIds = new String[size];
+        patientIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            physiotherapistIds[i] = clinic.addPhysiotherapist("Physio " + i, "Address " + i, "555-" + i,
+                    List.of(TREATMENT, "Rehabilitation")).getId();
+            patientIds[i] = clinic.addPatient("Patient " + i, "Address " + i, "07" + i).getId();
+        }
+    }
+
+    int size() {
+        return physiotherapistIds.length;
+    }
+
+    /**
+     * The k-th slot of the standard timetable, counting from next Monday 9am
+     */
+    static LocalDateTime slot(int k) {
+        int week = k / 40;
+        int day = k % 40 / 8;
+        int hour = k % 8;
+        return FIRST_SLOT.plusWeeks(week).plusDays(day).plusHours(hour);
+    }
+
+    BPC_Booking book(int n) {
+        int pair = n % size();
+        return clinic.createBooking(patientIds[pair], physiotherapistIds[pair], TREATMENT, slot(n / size()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.bpc.benchmark;
+
+import com.bpc.system.BPC_CommandProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A script of 10,000 book commands run through the batch command processor into a discarding writer,
+ * the throughput of Main's batch mode less the journal and console I/O
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+    private static final int COMMANDS = 10_000;
+
+    private String script;
+    private BPC_CommandProcessor processor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ClinicFixture fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        StringBuilder lines = new StringBuilder();
+        for (int n = 0; n < COMMANDS; n++) {
+            int pair = n % fixture.size();
+            lines.append("book,").append(fixture.patientIds[pair]).append(',')
+                    .append(fixture.physiotherapistIds[pair]).append(',').append(ClinicFixture.TREATMENT).append(',')
+                    .append(ClinicFixture.slot(n / fixture.size())).append('\n');
+        }
+        script = lines.toString();
+        processor = new BPC_CommandProcessor(fixture.clinic);
+    }
+
+    @Benchmark
+    public long run() throws IOException {
+        processor.run(new StringReader(script), Writer.nullWriter());
+        if (processor.getFailed() != 0) {
+            throw new IllegalStateException("Commands failed");
+        }
+        return processor.getExecuted();
+    }
+}
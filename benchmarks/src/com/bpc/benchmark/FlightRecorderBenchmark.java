@@ -0,0 +1,54 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the Flight Recorder booking events: createBooking with no recording, and with
+ * one that records every booking event
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlightRecorderBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private ClinicFixture fixture;
+    private Recording events;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        next = 0;
+        if (recording) {
+            events = new Recording();
+            events.enable("com.bpc.BookingCreate").withThreshold(Duration.ZERO);
+            events.setToDisk(false);
+            events.start();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (events != null) {
+            events.close();
+            events = null;
+        }
+    }
+
+    @Benchmark
+    public BPC_Booking createBooking() {
+        return fixture.book(next++);
+    }
+}
@@ -0,0 +1,119 @@
+package com.bpc.benchmark;
+
+import com.bpc.system.BPC_HttpApi;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the HTTP API with concurrent clients for a fixed time and prints the sustained request rate
+ * and latency percentiles. Each client mixes bookings (40%), patient lookups (30%), availability
+ * searches (20%) and physiotherapist lookups (10%) against a clinic of 100 pairs, see ClinicFixture.
+ * Run with: java -cp benchmarks/target/benchmarks.jar com.bpc.benchmark.HttpLoadTest [clients] [seconds]
+ */
+public class HttpLoadTest {
+    private static final int PHYSIOTHERAPISTS = 100;
+    private static final int MAX_SAMPLES = 1 << 20; // latencies kept per client
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ClinicFixture fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        BPC_HttpApi api = new BPC_HttpApi(fixture.clinic, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        api.start();
+        String base = "http://localhost:" + api.getAddress().getPort();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        AtomicInteger nextBooking = new AtomicInteger();
+        AtomicLong failures = new AtomicLong();
+        long[][] latencies = new long[clients][MAX_SAMPLES];
+        int[] counts = new int[clients];
+        long warmupEnd = System.nanoTime() + 2_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int id = c;
+            threads[c] = new Thread(() -> {
+                for (int i = id; ; i++) {
+                    HttpRequest request = request(base, fixture, nextBooking, i);
+                    long start = System.nanoTime();
+                    if (start >= end) {
+                        return;
+                    }
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 300) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    long now = System.nanoTime();
+                    if (start >= warmupEnd && counts[id] < MAX_SAMPLES) {
+                        latencies[id][counts[id]++] = now - start;
+                    }
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        api.stop(0);
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        for (int c = 0, at = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, at, counts[c]);
+            at += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d s: %d requests, %.0f requests/s, %d failed%n",
+                clients, seconds, total, total / (double) seconds, failures.get());
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+        System.out.println(fixture.clinic.getBookings().size() + " bookings made");
+    }
+
+    private static HttpRequest request(String base, ClinicFixture fixture, AtomicInteger nextBooking, int i) {
+        int pair = i % fixture.size();
+        switch (i % 10) {
+            case 0: case 3: case 6: case 8: {
+                int n = nextBooking.getAndIncrement();
+                int bookingPair = n % fixture.size();
+                String form = "patient=" + fixture.patientIds[bookingPair]
+                        + "&physiotherapist=" + fixture.physiotherapistIds[bookingPair]
+                        + "&treatment=" + ClinicFixture.TREATMENT
+                        + "&dateTime=" + ClinicFixture.slot(n / fixture.size());
+                return HttpRequest.newBuilder(URI.create(base + "/bookings"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+            }
+            case 1: case 4: case 7:
+                return HttpRequest.newBuilder(URI.create(base + "/patients/" + fixture.patientIds[pair])).build();
+            case 2: case 5:
+                return HttpRequest.newBuilder(URI.create(base + "/availability?treatment=" + ClinicFixture.TREATMENT
+                        + "&from=" + ClinicFixture.slot(i % 400) + "&limit=5")).build();
+            default:
+                return HttpRequest.newBuilder(
+                        URI.create(base + "/physiotherapists/" + fixture.physiotherapistIds[pair])).build();
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
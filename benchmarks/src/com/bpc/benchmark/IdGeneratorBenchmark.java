@@ -0,0 +1,44 @@
+package com.bpc.benchmark;
+
+import com.bpc.util.BPC_IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID generation and validation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+    private String bookingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookingId = BPC_IdGenerator.generateBookingId();
+    }
+
+    @Benchmark
+    public String generatePatientId() {
+        return BPC_IdGenerator.generatePatientId();
+    }
+
+    @Benchmark
+    public String generateBookingId() {
+        return BPC_IdGenerator.generateBookingId();
+    }
+
+    @Benchmark
+    public boolean isValidBookingId() {
+        return BPC_IdGenerator.isValidBookingId(bookingId);
+    }
+
+    @Benchmark
+    public long parseBookingKey() {
+        return BPC_IdGenerator.parseBookingKey(bookingId);
+    }
+}
@@ -0,0 +1,90 @@
+package com.bpc.benchmark;
+
+import com.bpc.system.BPC_Clinic;
+import com.bpc.system.BPC_CsvImporter;
+import com.bpc.system.BPC_ImportReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Migration-sized CSV import into an empty clinic: four historical bookings per patient,
+ * spread over 500 physiotherapists' past weeks
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+    private static final int PHYSIOTHERAPISTS = 500;
+
+    @Param({"100000", "400000"})
+    private int bookings;
+
+    private Path directory;
+    private Path patientsFile;
+    private Path physiotherapistsFile;
+    private Path bookingsFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bpc-import");
+        patientsFile = directory.resolve("patients.csv");
+        physiotherapistsFile = directory.resolve("physiotherapists.csv");
+        bookingsFile = directory.resolve("bookings.csv");
+        int patients = bookings / 4;
+
+        try (BufferedWriter out = Files.newBufferedWriter(patientsFile)) {
+            out.write("id,name,address,phone,active\n");
+            for (int i = 0; i < patients; i++) {
+                out.write("P" + i + ",Patient " + i + ",\"" + i + " High St, Bath\",0790" + i + ",true\n");
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(physiotherapistsFile)) {
+            out.write("id,name,address,phone,expertise\n");
+            for (int i = 0; i < PHYSIOTHERAPISTS; i++) {
+                out.write("T" + i + ",Physio " + i + "," + i + " Test Ave,555" + i + ",Massage;Back Pain\n");
+            }
+        }
+        // each physiotherapist's slots are filled backwards from last week, 40 a week
+        LocalDateTime lastWeek = LocalDate.now().with(TemporalAdjusters.previous(DayOfWeek.MONDAY))
+                .minusWeeks(1).atTime(9, 0);
+        try (BufferedWriter out = Files.newBufferedWriter(bookingsFile)) {
+            out.write("id,patient,physiotherapist,treatment,date,status,booked\n");
+            for (int i = 0; i < bookings; i++) {
+                int slot = i / PHYSIOTHERAPISTS;
+                LocalDateTime dateTime = lastWeek.minusWeeks(slot / 40).plusDays(slot / 8 % 5).plusHours(slot % 8);
+                out.write("B" + i + ",P" + i % patients + ",T" + i % PHYSIOTHERAPISTS + ",Massage," + dateTime
+                        + (i % 10 == 0 ? ",CANCELLED," : ",ATTENDED,") + dateTime.minusDays(7) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(patientsFile);
+        Files.delete(physiotherapistsFile);
+        Files.delete(bookingsFile);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public BPC_ImportReport importCsv() throws IOException {
+        BPC_ImportReport report = new BPC_CsvImporter(new BPC_Clinic())
+                .importCsv(patientsFile, physiotherapistsFile, bookingsFile);
+        if (report.hasErrors()) {
+            throw new IllegalStateException(report.getErrors().get(0).toString());
+        }
+        return report;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.system.BPC_Clinic;
+import com.bpc.system.BPC_Journal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent createBooking throughput without a journal, with an fsync for every
+ * group commit, and with fsync batched to once every 10ms
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+
+    @Param({"off", "0", "10"})
+    private String syncMillis;
+
+    private Path file;
+    private BPC_Journal journal;
+    private ClinicFixture fixture;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BPC_Clinic clinic = new BPC_Clinic();
+        if (!syncMillis.equals("off")) {
+            file = Files.createTempFile("bpc-benchmark", ".journal");
+            journal = new BPC_Journal(file, Long.parseLong(syncMillis));
+            clinic = new BPC_Clinic(journal);
+        }
+        fixture = new ClinicFixture(clinic, PHYSIOTHERAPISTS);
+        next.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+            Files.delete(file);
+            journal = null;
+        }
+    }
+
+    @Benchmark
+    public BPC_Booking createBooking() {
+        return fixture.book(next.getAndIncrement());
+    }
+}
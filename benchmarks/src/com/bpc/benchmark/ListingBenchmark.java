@@ -0,0 +1,59 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Patient;
+import com.bpc.system.BPC_Clinic;
+import com.bpc.system.BPC_Page;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetching a page from the middle of the patients by name listing, through the listing index
+ * against sorting a copy of every patient the way the menu used to
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "100000"})
+    public int patients;
+
+    private BPC_Clinic clinic;
+    private String middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clinic = new BPC_Clinic();
+        for (int i = 0; i < patients; i++) {
+            clinic.addPatient("Patient " + Integer.toHexString(i * 0x9E3779B1), "Address " + i, "07" + i);
+        }
+        String cursor = null;
+        for (int i = 0; i < patients / 2 / PAGE_SIZE; i++) {
+            cursor = clinic.listPatientsByName(cursor, PAGE_SIZE).getNextCursor();
+        }
+        middle = cursor;
+    }
+
+    @Benchmark
+    public List<BPC_Patient> pageThroughIndex() {
+        BPC_Page<BPC_Patient> page = clinic.listPatientsByName(middle, PAGE_SIZE);
+        return page.getItems();
+    }
+
+    @Benchmark
+    public List<BPC_Patient> pageThroughSortedCopy() {
+        List<BPC_Patient> sorted = new ArrayList<>(clinic.getPatients().values());
+        sorted.sort(Comparator.comparing(BPC_Patient::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(BPC_Patient::getId));
+        int from = patients / 2;
+        return sorted.subList(from, from + PAGE_SIZE);
+    }
+}
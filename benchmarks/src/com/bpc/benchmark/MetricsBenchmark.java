@@ -0,0 +1,53 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the operation metrics: modifyBooking and generateReport measured and not measured
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private ClinicFixture fixture;
+    private BPC_Booking[] modifiable;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        fixture.clinic.getMetrics().setEnabled(metrics);
+        modifiable = new BPC_Booking[PHYSIOTHERAPISTS];
+        for (int i = 0; i < PHYSIOTHERAPISTS; i++) {
+            modifiable[i] = fixture.book(i);
+        }
+    }
+
+    @Benchmark
+    public void modifyBooking() {
+        // as in BookingBenchmark, each booking moves back and forth between its first slot and one a year later
+        int pair = next % PHYSIOTHERAPISTS;
+        BPC_Booking booking = modifiable[pair];
+        LocalDateTime first = ClinicFixture.slot(0);
+        LocalDateTime target = booking.getTreatment().getDateTime().equals(first) ? first.plusWeeks(52) : first;
+        fixture.clinic.modifyBooking(booking.getId(), fixture.physiotherapistIds[pair], ClinicFixture.TREATMENT, target);
+        next++;
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return fixture.clinic.generateReport();
+    }
+}
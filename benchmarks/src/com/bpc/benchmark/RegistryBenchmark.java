@@ -0,0 +1,85 @@
+package com.bpc.benchmark;
+
+import com.bpc.util.BPC_IdGenerator;
+import com.bpc.util.BPC_LongMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity lookups: String-keyed ConcurrentHashMap against the long-keyed registry.
+ * Lookups cycle through the keys in shuffled order, so most of them miss the cache.
+ * idOnly is the cost of building the looked-up id, to subtract from the String-based lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RegistryBenchmark {
+    private static final long DAY = 20250602L << 32;
+
+    @Param({"100000", "1000000"})
+    public int entities;
+
+    private Map<String, Object> byId;
+    private BPC_LongMap<Object> byKey;
+    private long[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byId = new ConcurrentHashMap<>();
+        byKey = new BPC_LongMap<>();
+        keys = new long[entities];
+        for (int i = 0; i < entities; i++) {
+            long key = DAY | (i + 1);
+            Object entity = new Object();
+            keys[i] = key;
+            byId.put(BPC_IdGenerator.formatBookingId(key), entity);
+            byKey.put(key, entity);
+        }
+        Random random = new Random(42);
+        for (int i = entities - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == entities ? 0 : index + 1;
+        return index;
+    }
+
+    // ids reach the clinic as freshly built strings, hot in cache and with no cached hash code
+    private String nextId() {
+        return BPC_IdGenerator.formatBookingId(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public String idOnly() {
+        return nextId();
+    }
+
+    @Benchmark
+    public Object stringKeyedLookup() {
+        return byId.get(nextId());
+    }
+
+    @Benchmark
+    public Object parseThenLongKeyedLookup() {
+        return byKey.get(BPC_IdGenerator.parseBookingKey(nextId()));
+    }
+
+    @Benchmark
+    public Object longKeyedLookup() {
+        return byKey.get(keys[nextIndex()]);
+    }
+}
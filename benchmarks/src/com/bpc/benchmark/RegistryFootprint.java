@@ -0,0 +1,45 @@
+package com.bpc.benchmark;
+
+import com.bpc.util.BPC_IdGenerator;
+import com.bpc.util.BPC_LongMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prints the heap used per entry by each registry for a million entries, entities excluded.
+ * Run with: java -cp benchmarks/target/benchmarks.jar com.bpc.benchmark.RegistryFootprint
+ */
+public class RegistryFootprint {
+    private static final int ENTRIES = 1_000_000;
+    private static final long DAY = 20250602L << 32;
+
+    public static void main(String[] args) {
+        Object entity = new Object();
+
+        long before = usedHeap();
+        Map<String, Object> byId = new ConcurrentHashMap<>();
+        for (int i = 1; i <= ENTRIES; i++) {
+            byId.put(BPC_IdGenerator.formatBookingId(DAY | i), entity);
+        }
+        long stringKeyed = usedHeap() - before;
+        System.out.println("String-keyed ConcurrentHashMap: " + stringKeyed / ENTRIES + " bytes/entry (" + byId.size() + ")");
+        byId = null;
+
+        before = usedHeap();
+        BPC_LongMap<Object> byKey = new BPC_LongMap<>();
+        for (int i = 1; i <= ENTRIES; i++) {
+            byKey.put(DAY | i, entity);
+        }
+        long longKeyed = usedHeap() - before;
+        System.out.println("Long-keyed BPC_LongMap: " + longKeyed / ENTRIES + " bytes/entry (" + byKey.size() + ")");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,64 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Patient;
+import com.bpc.system.BPC_Clinic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one patient and listing every patient through the getPatients view, against the
+ * full HashMap copy the getter used to return on every call
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryViewBenchmark {
+    @Param({"10000", "100000"})
+    public int patients;
+
+    private BPC_Clinic clinic;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clinic = new BPC_Clinic();
+        ids = new String[patients];
+        for (int i = 0; i < patients; i++) {
+            ids[i] = clinic.addPatient("Patient " + i, "Address " + i, "07" + i).getId();
+        }
+    }
+
+    private String nextId() {
+        int index = next;
+        next = index + 1 == ids.length ? 0 : index + 1;
+        return ids[index];
+    }
+
+    @Benchmark
+    public BPC_Patient lookupThroughCopy() {
+        Map<String, BPC_Patient> copy = new HashMap<>();
+        clinic.getPatients().forEach(copy::put);
+        return copy.get(nextId());
+    }
+
+    @Benchmark
+    public BPC_Patient lookupThroughView() {
+        return clinic.getPatients().get(nextId());
+    }
+
+    @Benchmark
+    public int listThroughView() {
+        int active = 0;
+        for (BPC_Patient patient : clinic.getPatients().values()) {
+            active += patient.isActive() ? 1 : 0;
+        }
+        return active;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bpc.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report generation for growing booking histories
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+    private static final int PHYSIOTHERAPISTS = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int bookings;
+
+    private ClinicFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        for (int i = 0; i < bookings; i++) {
+            String id = fixture.book(i).getId();
+            if (i % 3 == 0) {
+                fixture.clinic.attendBooking(id);
+            }
+        }
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return fixture.clinic.generateReport();
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        fixture.clinic.writeReport(Writer.nullWriter());
+    }
+}
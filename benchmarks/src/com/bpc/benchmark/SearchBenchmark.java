@@ -0,0 +1,74 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Patient;
+import com.bpc.system.BPC_Clinic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead patient searches for the top 10 matches across a large registry, against the
+ * exact name match over every entry that the physiotherapist name search used to do
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private static final int TOP = 10;
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace",
+            "Henry", "Isla", "Jack", "Karen", "Liam", "Mia", "Noah", "Olivia", "Peter", "Quinn", "Ruby"};
+
+    @Param({"500000"})
+    public int patients;
+
+    private BPC_Clinic clinic;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clinic = new BPC_Clinic();
+        Random random = new Random(42);
+        for (int i = 0; i < patients; i++) {
+            // surnames from a few thousand distinct ones, as in a real registry
+            String surname = "Sur" + Integer.toString(random.nextInt(5000), 36) + "son";
+            clinic.addPatient(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + surname,
+                    "Address " + i, String.format("07700 %06d", i));
+        }
+    }
+
+    @Benchmark
+    public List<BPC_Patient> prefix() {
+        return clinic.searchPatients("sur1", TOP);
+    }
+
+    @Benchmark
+    public List<BPC_Patient> twoWords() {
+        return clinic.searchPatients("emma sur2", TOP);
+    }
+
+    @Benchmark
+    public List<BPC_Patient> phone() {
+        return clinic.searchPatients("07700 4321", TOP);
+    }
+
+    @Benchmark
+    public List<BPC_Patient> typo() {
+        return clinic.searchPatients("olvia surzzson", TOP);
+    }
+
+    @Benchmark
+    public List<BPC_Patient> scan() {
+        List<BPC_Patient> found = new ArrayList<>();
+        for (BPC_Patient patient : clinic.getPatients().values()) {
+            if (patient.getName().equalsIgnoreCase("Emma Sur2son")) {
+                found.add(patient);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bpc.benchmark;
+
+import com.bpc.system.BPC_Clinic;
+import com.bpc.system.BPC_Journal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of a clinic from a snapshot, and writing that snapshot.
+ * 1000 physiotherapists share the bookings, so one million bookings fill 25 weeks each.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+    private static final int PHYSIOTHERAPISTS = 1000;
+
+    @Param({"100000", "1000000"})
+    private int bookings;
+
+    private Path directory;
+    private Path snapshotFile;
+    private BPC_Clinic clinic;
+    private BPC_Journal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bpc-snapshot");
+        snapshotFile = directory.resolve("clinic.snapshot");
+        ClinicFixture fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        for (int i = 0; i < bookings; i++) {
+            fixture.book(i);
+        }
+        clinic = fixture.clinic;
+        clinic.checkpoint(snapshotFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void openJournal() throws IOException {
+        Path journalFile = directory.resolve("clinic.journal");
+        Files.deleteIfExists(journalFile);
+        journal = new BPC_Journal(journalFile, 0);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeJournal() throws IOException {
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("clinic.journal"));
+        Files.deleteIfExists(snapshotFile);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public BPC_Clinic load() throws IOException {
+        return new BPC_Clinic(snapshotFile, journal);
+    }
+
+    @Benchmark
+    public void checkpoint() throws IOException {
+        clinic.checkpoint(snapshotFile);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.system.BPC_Clinic;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A day's agenda, for the whole clinic and for one physiotherapist, through the time index
+ * against filtering every booking by its appointment time.
+ * 1000 physiotherapists share the bookings, a day holds 8000 of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+@State(Scope.Benchmark)
+public class TimeRangeBenchmark {
+    private static final int PHYSIOTHERAPISTS = 1000;
+
+    @Param({"100000", "1000000"})
+    public int bookings;
+
+    private BPC_Clinic clinic;
+    private String physiotherapistId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClinicFixture fixture = new ClinicFixture(PHYSIOTHERAPISTS);
+        for (int i = 0; i < bookings; i++) {
+            fixture.book(i);
+        }
+        clinic = fixture.clinic;
+        physiotherapistId = fixture.physiotherapistIds[PHYSIOTHERAPISTS / 2];
+        // a day in the middle of the booked weeks
+        from = ClinicFixture.slot(bookings / PHYSIOTHERAPISTS / 2 / 8 * 8).toLocalDate().atStartOfDay();
+        to = from.plusDays(1);
+        clinic.getBookingsBetween(from, to);
+    }
+
+    @Benchmark
+    public List<BPC_Booking> dayThroughIndex() {
+        return clinic.getBookingsBetween(from, to);
+    }
+
+    @Benchmark
+    public List<BPC_Booking> physiotherapistDayThroughIndex() {
+        return clinic.getBookingsBetween(from, to, physiotherapistId);
+    }
+
+    @Benchmark
+    public List<BPC_Booking> dayThroughScan() {
+        List<BPC_Booking> day = new ArrayList<>();
+        for (BPC_Booking booking : clinic.getBookings().values()) {
+            LocalDateTime dateTime = booking.getTreatment().getDateTime();
+            if (!dateTime.isBefore(from) && dateTime.isBefore(to)) {
+                day.add(booking);
+            }
+        }
+        return day;
+    }
+}
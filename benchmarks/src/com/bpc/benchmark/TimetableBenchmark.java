@@ -0,0 +1,58 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.BPC_Physiotherapist;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing and searching a physiotherapist's free slots over the booking horizon
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimetableBenchmark {
+    // percentage of the horizon's slots already booked
+    @Param({"0", "50", "90"})
+    private int percentBooked;
+
+    @Param({"4", "52"})
+    private int weeks;
+
+    private BPC_Physiotherapist physiotherapist;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        physiotherapist = new BPC_Physiotherapist("PHY1", "Physio", "Address", "555", List.of("Massage"));
+        from = ClinicFixture.slot(0);
+        to = from.plusWeeks(weeks);
+        int slots = weeks * 40;
+        for (int k = 0; k < slots; k++) {
+            if (k * 37 % 100 < percentBooked) {
+                physiotherapist.assignAppointment(ClinicFixture.slot(k));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<LocalDateTime> getAvailableAppointments() {
+        return physiotherapist.getAvailableAppointments(from, to);
+    }
+
+    @Benchmark
+    public int getAvailableAppointmentCount() {
+        return physiotherapist.getAvailableAppointmentCount(from, to);
+    }
+
+    @Benchmark
+    public LocalDateTime getNextAvailableAppointment() {
+        return physiotherapist.getNextAvailableAppointment(from, to);
+    }
+}
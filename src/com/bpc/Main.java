@@ -1,24 +1,143 @@
 package com.bpc;
 
 import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
 import com.bpc.model.BPC_Patient;
 import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_Recurrence;
+import com.bpc.system.BPC_AvailableSlot;
 import com.bpc.system.BPC_Clinic;
-
+import com.bpc.system.BPC_CommandProcessor;
+import com.bpc.system.BPC_CsvImporter;
+import com.bpc.system.BPC_HttpApi;
+import com.bpc.system.BPC_ImportError;
+import com.bpc.system.BPC_ImportReport;
+import com.bpc.system.BPC_Journal;
+import com.bpc.system.BPC_Metrics;
+import com.bpc.system.BPC_Page;
+
+import javax.management.JMException;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class Main {
     private static final Scanner scanner = new Scanner(System.in);
-    private static final BPC_Clinic system = new BPC_Clinic();
+    private static final String DEFAULT_JOURNAL = "bpc_clinic.journal";
+    private static final long BATCH_SYNC_MILLIS = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_RESULTS = 10;
+    private static BPC_Clinic system;
     private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    public static void main(String[] args) {
-        //create sample data
-        createSampleData();
+    public static void main(String[] args) throws IOException {
+        //restore the clinic from its snapshot and journal (first argument, or bpc_clinic.journal)
+        //--batch [file] runs the commands of a script file, or of standard input, instead of the menu
+        //--http port serves the HTTP API (BPC_HttpApi) until the process is stopped
+        //-Dbpc.journal.syncMillis=N syncs at most every N ms instead of on every change
+        //operation metrics are published over JMX as com.bpc:type=Clinic,name=Metrics
+        int batch = Arrays.asList(args).indexOf("--batch");
+        int http = Arrays.asList(args).indexOf("--http");
+        Path journalFile = Path.of(args.length > 0 && !args[0].startsWith("--") ? args[0] : DEFAULT_JOURNAL);
+        Path snapshotFile = journalFile.resolveSibling(journalFile.getFileName() + ".snapshot");
+        //a script is not waiting on each command, so batch mode groups syncs by default
+        long syncMillis = Long.getLong("bpc.journal.syncMillis", batch < 0 ? 0 : BATCH_SYNC_MILLIS);
+        BPC_Journal journal = new BPC_Journal(journalFile, syncMillis);
+        system = new BPC_Clinic(snapshotFile, journal);
+        try {
+            system.getMetrics().registerMBean(BPC_Metrics.MBEAN_NAME);
+        } catch (JMException e) {
+            System.err.println("Metrics are not published over JMX: " + e.getMessage());
+        }
+
+        if (batch >= 0) {
+            String script = batch + 1 < args.length ? args[batch + 1] : "-";
+            runBatch(script);
+        } else if (http >= 0) {
+            if (http + 1 >= args.length) {
+                System.err.println("--http needs a port");
+                System.exit(2);
+            }
+            serveHttp(Integer.parseInt(args[http + 1]), snapshotFile, journal);
+            return;
+        } else {
+            //create sample data on first start
+            if (system.getPatients().isEmpty() && system.getPhysiotherapists().isEmpty()) {
+                createSampleData();
+            } else {
+                System.out.println("Restored clinic from " + journalFile);
+            }
+            system.startTimetableRollover();
+            system.startCheckpoints(snapshotFile, 1, TimeUnit.HOURS);
+            runMenu();
+            system.stopTimetableRollover();
+            system.stopCheckpoints();
+        }
+        system.checkpoint(snapshotFile);
+        journal.close();
+    }
+
+    //serves the clinic over HTTP, stopping the server and saving the clinic on shutdown (Ctrl+C, SIGTERM)
+    private static void serveHttp(int port, Path snapshotFile, BPC_Journal journal) throws IOException {
+        BPC_HttpApi api = new BPC_HttpApi(system, new InetSocketAddress(port));
+        system.startTimetableRollover();
+        system.startCheckpoints(snapshotFile, 1, TimeUnit.HOURS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop(5);
+            system.stopTimetableRollover();
+            system.stopCheckpoints();
+            try {
+                system.checkpoint(snapshotFile);
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Could not save the clinic: " + e.getMessage());
+            }
+        }));
+        api.start();
+        System.out.println("Serving the clinic on port " + api.getAddress().getPort());
+    }
+
+    //runs a script of commands (see BPC_CommandProcessor), "-" reads standard input
+    private static void runBatch(String script) throws IOException {
+        BPC_CommandProcessor processor = new BPC_CommandProcessor(system);
+        long start = System.nanoTime();
+        //standard output through one large buffer, System.out flushes on every line
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), 1 << 16);
+        try (Reader in = script.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+            processor.run(in, out);
+        } finally {
+            out.flush();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.err.println("Ran " + processor.getExecuted() + " commands (" + processor.getFailed()
+                + " failed) in " + millis + " ms");
+    }
 
+    private static void runMenu() {
         boolean running = true;
         while (running) {
             displayMenu();
@@ -67,6 +186,27 @@ public class Main {
                 case 14:
                     searchByPhysiotherapistName();
                     break;
+                case 15:
+                    findNextAvailableSlots();
+                    break;
+                case 16:
+                    importFromCsv();
+                    break;
+                case 17:
+                    createWeeklySeries();
+                    break;
+                case 18:
+                    cancelBookingSeries();
+                    break;
+                case 19:
+                    searchPatients();
+                    break;
+                case 20:
+                    viewDayAgenda();
+                    break;
+                case 21:
+                    showMetrics();
+                    break;
                 case 0:
                     running = false;
                     System.out.println("Exiting the system...");
@@ -76,6 +216,7 @@ public class Main {
             }
         }
     }
+
     private static void createSampleData() {
         System.out.println("Initializing system with sample data...");
 
@@ -121,8 +262,8 @@ public class Main {
             patients.add(patient);
         }
 
-        // Add bookings for 4 weeks
-        LocalDateTime baseDate = LocalDateTime.of(2025, 6, 2, 9, 0);
+        // Add bookings for next week
+        LocalDateTime baseDate = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(9, 0);
 
         try {
             int patientIndex = 0; // <- track which patient to assign
@@ -195,7 +336,7 @@ public class Main {
         String patientId = getStringInput("Enter patient ID to remove: ");
 
         try {
-            BPC_Patient patient = system.getPatients().get(patientId);
+            BPC_Patient patient = system.findPatient(patientId);
             if (patient == null) {
                 System.out.println("Patient not found.");
                 return;
@@ -208,7 +349,7 @@ public class Main {
             }
 
             // Deactivate patient
-            patient.deactivate();
+            system.deactivatePatient(patientId);
             System.out.println("Patient deactivated successfully.");
         } catch (Exception e) {
             System.out.println("Error removing patient: " + e.getMessage());
@@ -224,7 +365,7 @@ public class Main {
         String patientId = getStringInput("Enter patient ID to reactivate: ");
 
         try {
-            BPC_Patient patient = system.getPatients().get(patientId);
+            BPC_Patient patient = system.findPatient(patientId);
             if (patient == null) {
                 System.out.println("Patient not found.");
                 return;
@@ -235,7 +376,7 @@ public class Main {
                 return;
             }
 
-            patient.reactivate();
+            system.reactivatePatient(patientId);
             System.out.println("Patient reactivated successfully.");
         } catch (Exception e) {
             System.out.println("Error reactivating patient: " + e.getMessage());
@@ -246,17 +387,29 @@ public class Main {
     private static void listAllPatients() {
         System.out.println("\n=== PATIENTS ===");
 
-        List<BPC_Patient> sortedPatients = new ArrayList<>(system.getPatients().values());
-        sortedPatients.sort(Comparator.comparing(BPC_Patient::getId));
+        printPages(cursor -> system.listPatientsById(cursor, PAGE_SIZE), patient ->
+                System.out.printf("%s | %s | %s | %s | Active: %s%n",
+                        patient.getId(),
+                        patient.getName(),
+                        patient.getAddress(),
+                        patient.getPhone(),
+                        patient.isActive()
+                ), "No patients found.");
+    }
 
-        for (BPC_Patient patient : sortedPatients) {
-            System.out.printf("%s | %s | %s | %s | Active: %s%n",
-                    patient.getId(),
-                    patient.getName(),
-                    patient.getAddress(),
-                    patient.getPhone(),
-                    patient.isActive()
-            );
+    //prints a sorted listing a page at a time, asking before each further page
+    private static <T> void printPages(Function<String, BPC_Page<T>> pages, Consumer<T> printer, String empty) {
+        BPC_Page<T> page = pages.apply(null);
+        if (page.getItems().isEmpty()) {
+            System.out.println(empty);
+            return;
+        }
+        while (true) {
+            page.getItems().forEach(printer);
+            if (!page.hasNext() || getStringInput("Press Enter for more, or 0 to stop: ").equals("0")) {
+                return;
+            }
+            page = pages.apply(page.getNextCursor());
         }
     }
 
@@ -278,21 +431,15 @@ public class Main {
 
     private static void listAllPhysiotherapists() {
         System.out.println("\n=== PHYSIOTHERAPISTS ===");
-        if (system.getPhysiotherapists().isEmpty()) {
-            System.out.println("No physiotherapists found.");
-            return;
-        }
-
-        for (BPC_Physiotherapist physio : system.getPhysiotherapists().values()) {
-            System.out.printf("%s | %s | %s | %s | Active: %s | Expertise: %s%n",
-                    physio.getId(),
-                    physio.getName(),
-                    physio.getAddress(),
-                    physio.getPhone(),
-                    physio.isActive(),
-                    String.join(", ", physio.getExpertise())
-            );
-        }
+        printPages(cursor -> system.listPhysiotherapistsByName(cursor, PAGE_SIZE), physio ->
+                System.out.printf("%s | %s | %s | %s | Active: %s | Expertise: %s%n",
+                        physio.getId(),
+                        physio.getName(),
+                        physio.getAddress(),
+                        physio.getPhone(),
+                        physio.isActive(),
+                        String.join(", ", physio.getExpertise())
+                ), "No physiotherapists found.");
     }
 
     private static void createBooking() {
@@ -362,20 +509,56 @@ public class Main {
     }
     private static void listAllBookings() {
         System.out.println("\n=== BOOKINGS ===");
-        if (system.getBookings().isEmpty()) {
-            System.out.println("No bookings found.");
-            return;
-        }
+        printPages(cursor -> system.listBookingsByTime(cursor, PAGE_SIZE), booking ->
+                System.out.printf("%s | %s | %s | %s | %s | %s%n",
+                        booking.getId(),
+                        booking.getPatient().getName(),
+                        booking.getTreatment().getName(),
+                        booking.getTreatment().getDateTime().format(dateTimeFormatter),
+                        booking.getTreatment().getPhysiotherapist().getName(),
+                        booking.getStatus()
+                ), "No bookings found.");
+    }
 
-        for (BPC_Booking booking : system.getBookings().values()) {
-            System.out.printf("%s | %s | %s | %s | %s%n",
-                    booking.getId(),
-                    booking.getPatient().getName(),
-                    booking.getTreatment().getName(),
-                    booking.getTreatment().getDateTime().format(dateTimeFormatter),
-                    booking.getTreatment().getPhysiotherapist().getName(),
-                    booking.getStatus()
-            );
+    private static void showMetrics() {
+        System.out.println("\n=== OPERATION METRICS ===");
+        BPC_Metrics metrics = system.getMetrics();
+        metrics.getOperationStats().forEach((operation, stats) ->
+                System.out.println(operation + ": " + stats));
+        System.out.println("Rejections:");
+        metrics.getRejectionCounts().forEach((reason, count) -> {
+            if (count > 0) {
+                System.out.println("  " + reason + ": " + count);
+            }
+        });
+    }
+
+    private static void viewDayAgenda() {
+        System.out.println("\n=== DAY AGENDA ===");
+        String dateStr = getStringInput("Enter date (YYYY-MM-DD), or leave blank for today: ");
+        String physioId = getStringInput("Enter physiotherapist ID, or leave blank for all: ");
+        try {
+            LocalDate date = dateStr.isBlank() ? LocalDate.now() : LocalDate.parse(dateStr.trim());
+            LocalDateTime start = date.atStartOfDay();
+            List<BPC_Booking> bookings = physioId.isBlank()
+                    ? system.getBookingsBetween(start, start.plusDays(1))
+                    : system.getBookingsBetween(start, start.plusDays(1), physioId.trim());
+            for (BPC_Booking booking : bookings) {
+                System.out.printf("%s | %s | %s | %s | %s | %s%n",
+                        booking.getTreatment().getDateTime().toLocalTime(),
+                        booking.getId(),
+                        booking.getPatient().getName(),
+                        booking.getTreatment().getName(),
+                        booking.getTreatment().getPhysiotherapist().getName(),
+                        booking.getStatus());
+            }
+            if (bookings.isEmpty()) {
+                System.out.println("No bookings on " + date + ".");
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. Please use YYYY-MM-DD");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
         }
     }
     private static void modifyBooking() {
@@ -411,60 +594,168 @@ public class Main {
         System.out.println("\n=== SEARCH PHYSIOTHERAPISTS BY EXPERTISE ===");
         String expertise = getStringInput("Enter expertise area (e.g., Massage, Sports Injury): ");
 
-        boolean found = false;
-        for (BPC_Physiotherapist physio : system.getPhysiotherapists().values()) {
-            for (String skill : physio.getExpertise()) {
-                if (skill.equalsIgnoreCase(expertise.trim())) {
-                    System.out.println("Physiotherapist: " + physio.getName());
-                    List<LocalDateTime> availableSlots = physio.getAvailableAppointments();
-                    if (availableSlots.isEmpty()) {
-                        System.out.println("  No available slots.");
-                    } else {
-                        for (LocalDateTime slot : availableSlots) {
-                            System.out.println("  Available slot: " + slot.format(dateTimeFormatter));
-                        }
-                    }
-                    found = true;
+        List<BPC_Physiotherapist> physios = system.findPhysiotherapistsByExpertise(expertise);
+        for (BPC_Physiotherapist physio : physios) {
+            System.out.println("Physiotherapist: " + physio.getName());
+            List<LocalDateTime> availableSlots = physio.getAvailableAppointments();
+            if (availableSlots.isEmpty()) {
+                System.out.println("  No available slots.");
+            } else {
+                for (LocalDateTime slot : availableSlots) {
+                    System.out.println("  Available slot: " + slot.format(dateTimeFormatter));
                 }
             }
         }
-        if (!found) {
+        if (physios.isEmpty()) {
             System.out.println("No physiotherapists found for the given expertise.");
         }
     }
 
     private static void searchByPhysiotherapistName() {
         System.out.println("\n=== SEARCH TREATMENTS BY PHYSIOTHERAPIST NAME ===");
-        String name = getStringInput("Enter physiotherapist name: ");
-
-        boolean found = false;
-        for (BPC_Physiotherapist physio : system.getPhysiotherapists().values()) {
-            if (physio.getName().equalsIgnoreCase(name.trim())) {
-                System.out.println("Physiotherapist: " + physio.getName());
-                System.out.println("Expertise Areas: " + String.join(", ", physio.getExpertise()));
-                List<LocalDateTime> availableSlots = physio.getAvailableAppointments();
-                if (availableSlots.isEmpty()) {
-                    System.out.println("  No available slots.");
-                } else {
-                    for (LocalDateTime slot : availableSlots) {
-                        System.out.println("  Available slot: " + slot.format(dateTimeFormatter));
-                    }
+        String name = getStringInput("Enter physiotherapist name, or the start of it: ");
+
+        List<BPC_Physiotherapist> physios = system.searchPhysiotherapists(name, SEARCH_RESULTS);
+        for (BPC_Physiotherapist physio : physios) {
+            System.out.println("Physiotherapist: " + physio.getName());
+            System.out.println("Expertise Areas: " + String.join(", ", physio.getExpertise()));
+            List<LocalDateTime> availableSlots = physio.getAvailableAppointments();
+            if (availableSlots.isEmpty()) {
+                System.out.println("  No available slots.");
+            } else {
+                for (LocalDateTime slot : availableSlots) {
+                    System.out.println("  Available slot: " + slot.format(dateTimeFormatter));
                 }
-                found = true;
             }
         }
-        if (!found) {
+        if (physios.isEmpty()) {
             System.out.println("No physiotherapist found with that name.");
         }
     }
 
+    private static void searchPatients() {
+        System.out.println("\n=== SEARCH PATIENTS ===");
+        String query = getStringInput("Enter patient name or phone number, or the start of it: ");
+
+        List<BPC_Patient> patients = system.searchPatients(query, SEARCH_RESULTS);
+        for (BPC_Patient patient : patients) {
+            System.out.printf("%s | %s | %s | %s | Active: %s%n",
+                    patient.getId(),
+                    patient.getName(),
+                    patient.getAddress(),
+                    patient.getPhone(),
+                    patient.isActive());
+        }
+        if (patients.isEmpty()) {
+            System.out.println("No patient found.");
+        }
+    }
+
+    private static void findNextAvailableSlots() {
+        System.out.println("\n=== FIND NEXT AVAILABLE SLOTS ===");
+        String treatmentName = getStringInput("Enter treatment name: ");
+        int limit = getIntInput("Enter number of slots to show: ");
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BPC_AvailableSlot> slots = system.findAvailableSlots(treatmentName, now,
+                now.plusWeeks(BPC_Physiotherapist.DEFAULT_HORIZON_WEEKS), limit);
+        if (slots.isEmpty()) {
+            System.out.println("No available slots found for this treatment.");
+            return;
+        }
+        for (BPC_AvailableSlot slot : slots) {
+            System.out.printf("%s | %s (%s)%n",
+                    slot.getDateTime().format(dateTimeFormatter),
+                    slot.getPhysiotherapist().getName(),
+                    slot.getPhysiotherapist().getId()
+            );
+        }
+    }
+
     private static void generateReport() {
         System.out.println("\n=== GENERATE REPORT ===");
-        String report = system.generateReport();
-        System.out.println(report);
+        String fileName = getStringInput("Enter file to save the report to (leave empty to show it): ");
+
+        try {
+            if (fileName.isEmpty()) {
+                // Stream to the console without building the whole report in memory
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                system.writeReport(out);
+                out.flush();
+            } else {
+                try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    system.writeReport(channel);
+                }
+                System.out.println("Report saved to " + fileName);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing report: " + e.getMessage());
+        }
     }
 
 
+    private static void createWeeklySeries() {
+        System.out.println("\n=== BOOK WEEKLY SERIES ===");
+        String patientId = getStringInput("Enter patient ID: ");
+        String physiotherapistId = getStringInput("Enter physiotherapist ID: ");
+        String treatmentName = getStringInput("Enter treatment name: ");
+
+        try {
+            LocalDateTime first = LocalDateTime.parse(
+                    getStringInput("Enter first session date and time (yyyy-MM-dd HH:mm): "), dateTimeFormatter);
+            int sessions = getIntInput("Enter number of weekly sessions: ");
+            BPC_BookingSeries series = system.createBookingSeries(patientId, physiotherapistId, treatmentName,
+                    BPC_Recurrence.weekly(first, sessions));
+            System.out.println("Series booked successfully. ID: " + series.getId());
+            for (BPC_Booking booking : series.getBookings()) {
+                System.out.println("  " + booking.getId() + " | " + booking.getTreatment().getDateTime().format(dateTimeFormatter));
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. Please use yyyy-MM-dd HH:mm");
+        } catch (Exception e) {
+            System.out.println("Error booking series: " + e.getMessage());
+        }
+    }
+
+    private static void cancelBookingSeries() {
+        System.out.println("\n=== CANCEL BOOKING SERIES ===");
+        String seriesId = getStringInput("Enter series ID: ");
+
+        try {
+            system.cancelBookingSeries(seriesId);
+            System.out.println("Remaining sessions of the series cancelled successfully.");
+        } catch (Exception e) {
+            System.out.println("Error cancelling series: " + e.getMessage());
+        }
+    }
+
+    private static void importFromCsv() {
+        System.out.println("\n=== IMPORT FROM CSV FILES ===");
+        Path patientsFile = getOptionalPath("Enter patients CSV file (blank to skip): ");
+        Path physiotherapistsFile = getOptionalPath("Enter physiotherapists CSV file (blank to skip): ");
+        Path bookingsFile = getOptionalPath("Enter bookings CSV file (blank to skip): ");
+
+        try {
+            BPC_ImportReport report = new BPC_CsvImporter(system).importCsv(patientsFile, physiotherapistsFile, bookingsFile);
+            System.out.println(report);
+            List<BPC_ImportError> errors = report.getErrors();
+            for (int i = 0; i < Math.min(errors.size(), 20); i++) {
+                System.out.println("  " + errors.get(i));
+            }
+            if (errors.size() > 20) {
+                System.out.println("  ... and " + (errors.size() - 20) + " more");
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading import file: " + e.getMessage());
+        }
+    }
+
+    private static Path getOptionalPath(String prompt) {
+        String input = getStringInput(prompt);
+        return input.isEmpty() ? null : Path.of(input);
+    }
+
     private static void displayMenu() {
         System.out.println("\n=== BOOST PHYSIO CLINIC SYSTEM ===");
         System.out.println("1. Add Patient");
@@ -481,6 +772,13 @@ public class Main {
         System.out.println("12. Reactivate Patient");
         System.out.println("13. Search Physiotherapists by Expertise");
         System.out.println("14. Search Physiotherapist by Name");
+        System.out.println("15. Find Next Available Slots for a Treatment");
+        System.out.println("16. Import from CSV Files");
+        System.out.println("17. Book Weekly Series");
+        System.out.println("18. Cancel Booking Series");
+        System.out.println("19. Search Patients by Name or Phone");
+        System.out.println("20. View Day Agenda");
+        System.out.println("21. Show Operation Metrics");
         System.out.println("0. Exit");
     }
 
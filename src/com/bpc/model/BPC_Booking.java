@@ -1,23 +1,68 @@
 package com.bpc.model;
 
+import com.bpc.util.BPC_IdGenerator;
+
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class BPC_Booking {
-    private String id;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private long key; //numeric identity, -1 if the id is not in the generated format
+    private String id; //only kept when the id cannot be derived from the key
     private BPC_Patient patient;
     private BPC_Treatment treatment;
     private BPC_BookingStatus status;
-    private LocalDateTime bookingTime;
+    private long bookingTime; //local date-time as nanoseconds since 1970-01-01T00:00, to keep bookings small
 
     public BPC_Booking(String id, BPC_Patient patient, BPC_Treatment treatment) {
-        this.id = id;
+        this(BPC_IdGenerator.parseBookingKey(id), id, patient, treatment, LocalDateTime.now());
+    }
+
+    public BPC_Booking(long key, BPC_Patient patient, BPC_Treatment treatment) {
+        this(key, null, patient, treatment, LocalDateTime.now());
+    }
+
+    //recreates a saved booking with the time it was originally made
+    public BPC_Booking(long key, BPC_Patient patient, BPC_Treatment treatment, LocalDateTime bookingTime) {
+        this(key, null, patient, treatment, bookingTime);
+    }
+
+    private BPC_Booking(long key, String id, BPC_Patient patient, BPC_Treatment treatment, LocalDateTime bookingTime) {
+        this.key = key;
+        this.id = key < 0 ? id : null;
         this.patient = patient;
         this.treatment = treatment;
         this.status = BPC_BookingStatus.BOOKED;
-        this.bookingTime = LocalDateTime.now();
+        this.bookingTime = toNanos(bookingTime);
         treatment.markAsBooked();
     }
 
+    /**
+     * Recreates a saved booking and adds it to its patient. The booking's slot is not
+     * booked again, it is expected to be restored with the physiotherapist's timetable.
+     */
+    public static BPC_Booking restore(long key, BPC_Patient patient, BPC_Treatment treatment,
+                                      BPC_BookingStatus status, LocalDateTime bookingTime) {
+        treatment.restoreBooked();
+        BPC_Booking booking = new BPC_Booking(key, patient, treatment, status, bookingTime);
+        patient.bookingRestored(booking);
+        return booking;
+    }
+
+    private BPC_Booking(long key, BPC_Patient patient, BPC_Treatment treatment, BPC_BookingStatus status,
+                        LocalDateTime bookingTime) {
+        this.key = key;
+        this.patient = patient;
+        this.treatment = treatment;
+        this.status = status;
+        this.bookingTime = toNanos(bookingTime);
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
     private void validateBookingStatus(BPC_BookingStatus expected) {
         if (status != expected) {
             throw new IllegalStateException("Booking is not in " + expected + " state");
@@ -27,6 +72,7 @@ public class BPC_Booking {
     public void cancelBooking(){
         validateBookingStatus(BPC_BookingStatus.BOOKED);
         status = BPC_BookingStatus.CANCELLED;
+        patient.bookingClosed(this, treatment.getDateTime());
         // Free up the physiotherapist's time slot
         treatment.getPhysiotherapist().freeAppointment(treatment.getDateTime());
     }
@@ -34,19 +80,27 @@ public class BPC_Booking {
     public void attend(){
         validateBookingStatus(BPC_BookingStatus.BOOKED);
         status = BPC_BookingStatus.ATTENDED;
+        patient.bookingClosed(this, treatment.getDateTime());
     }
 
     public void changeBooking(BPC_Treatment newTreatment){
         validateBookingStatus(BPC_BookingStatus.BOOKED);
+        if (patient.hasOtherBookingAt(newTreatment.getDateTime(), this)) {
+            throw new IllegalArgumentException("Patient already has a booking at this time");
+        }
+        LocalDateTime oldDateTime = treatment.getDateTime();
         // Free up the physiotherapist's time slot for the old treatment
-        treatment.getPhysiotherapist().freeAppointment(treatment.getDateTime());
+        treatment.getPhysiotherapist().freeAppointment(oldDateTime);
         this.treatment = newTreatment;
         newTreatment.markAsBooked();
+        patient.bookingMoved(this, oldDateTime);
     }
 
-    public String getId(){  return id;  }
+    public long getKey(){  return key;  }
+    public String getId(){  return id != null ? id : BPC_IdGenerator.formatBookingId(key);  }
     public BPC_Patient getPatient(){  return patient;  }
     public BPC_Treatment getTreatment(){  return treatment;  }
     public BPC_BookingStatus getStatus(){  return status;  }
-    public LocalDateTime getBookingTime(){  return bookingTime;  }
+    public LocalDateTime getBookingTime(){  return LocalDateTime.ofEpochSecond(Math.floorDiv(bookingTime, NANOS_PER_SECOND),
+            (int) Math.floorMod(bookingTime, NANOS_PER_SECOND), ZoneOffset.UTC);  }
 }
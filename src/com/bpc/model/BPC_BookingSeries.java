@@ -0,0 +1,45 @@
+package com.bpc.model;
+
+import com.bpc.util.BPC_IdGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sessions booked together from one recurrence rule, for one patient. Sessions can still be
+ * cancelled, attended or moved one by one; the series keeps them all whatever their status.
+ */
+public class BPC_BookingSeries {
+    private final long key;
+    private final BPC_Patient patient;
+    private final int intervalWeeks;
+    private final List<BPC_Booking> bookings;
+
+    public BPC_BookingSeries(long key, BPC_Patient patient, int intervalWeeks, List<BPC_Booking> bookings) {
+        this.key = key;
+        this.patient = patient;
+        this.intervalWeeks = intervalWeeks;
+        this.bookings = new ArrayList<>(bookings);
+    }
+
+    //sessions still booked, by treatment time
+    public List<BPC_Booking> getActiveBookings() {
+        List<BPC_Booking> active = new ArrayList<>();
+        for (BPC_Booking booking : bookings) {
+            if (booking.getStatus() == BPC_BookingStatus.BOOKED) {
+                active.add(booking);
+            }
+        }
+        active.sort(Comparator.comparing(booking -> booking.getTreatment().getDateTime()));
+        return active;
+    }
+
+    // Getters
+    public long getKey() { return key; }
+    public String getId() { return BPC_IdGenerator.formatSeriesId(key); }
+    public BPC_Patient getPatient() { return patient; }
+    public int getIntervalWeeks() { return intervalWeeks; }
+    public List<BPC_Booking> getBookings() { return Collections.unmodifiableList(bookings); }
+}
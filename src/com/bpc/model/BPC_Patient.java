@@ -1,24 +1,45 @@
 package com.bpc.model;
 
+import com.bpc.util.BPC_IdGenerator;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 public class BPC_Patient {
     //declare patient variables
-    private String id;
+    private long key; //numeric identity, -1 if the id is not in the generated format
+    private String id; //only kept when the id cannot be derived from the key
     private String name;
     private String address;
     private String phone;
     private List<BPC_Booking> bookings;
+    //BOOKED bookings by treatment time, null until rebuilt after a restore; volatile so a reader
+    //without the patient's lock never sees a partly built index
+    private volatile NavigableMap<LocalDateTime, BPC_Booking> activeBookings;
     private boolean active;
 
     public BPC_Patient(String id, String name, String address, String phone) {
+        this(BPC_IdGenerator.parsePatientKey(id), id, name, address, phone);
+    }
+
+    public BPC_Patient(long key, String name, String address, String phone) {
+        this(key, null, name, address, phone);
+    }
+
+    private BPC_Patient(long key, String id, String name, String address, String phone) {
         //initialize patient variables
-        this.id = id;
+        this.key = key;
+        this.id = key < 0 ? id : null;
         this.name = name;
         this.address = address;
         this.phone = phone;
         this.bookings = new ArrayList<>();
+        this.activeBookings = new TreeMap<>();
         this.active = true;
     }
 
@@ -31,18 +52,68 @@ public class BPC_Patient {
             throw new IllegalArgumentException("Patient already has a booking at this time");
         }
         bookings.add(booking);
+        if (booking.getStatus() == BPC_BookingStatus.BOOKED) {
+            activeBookings().put(booking.getTreatment().getDateTime(), booking);
+        }
     }
 
     public boolean hasOverlappingBooking(BPC_Booking newBooking) {
-        return bookings.stream()
-                .filter(b -> b.getStatus() == BPC_BookingStatus.BOOKED)
-                .anyMatch(b -> b.getTreatment().getDateTime()
-                        .equals(newBooking.getTreatment().getDateTime()));
+        return hasBookingAt(newBooking.getTreatment().getDateTime());
+    }
+
+    //true if an active booking is at this time
+    public boolean hasBookingAt(LocalDateTime dateTime) {
+        return activeBookings().containsKey(dateTime);
     }
 
     public boolean hasActiveBooking() {
-        return bookings.stream()
-                .anyMatch(b -> b.getStatus() == BPC_BookingStatus.BOOKED);
+        return !activeBookings().isEmpty();
+    }
+
+    //true if another active booking than the given one is at this time
+    boolean hasOtherBookingAt(LocalDateTime dateTime, BPC_Booking booking) {
+        BPC_Booking existing = activeBookings().get(dateTime);
+        return existing != null && existing != booking;
+    }
+
+    //called by a restored booking, which was validated when it was first made
+    void bookingRestored(BPC_Booking booking) {
+        bookings.add(booking);
+        activeBookings = null;
+    }
+
+    //the active booking index is rebuilt on first use after bookings were restored, once even if
+    //readers without the patient's lock race for it; bookings do not change until it is built,
+    //every change goes through the index first
+    private NavigableMap<LocalDateTime, BPC_Booking> activeBookings() {
+        NavigableMap<LocalDateTime, BPC_Booking> index = activeBookings;
+        if (index == null) {
+            synchronized (this) {
+                index = activeBookings;
+                if (index == null) {
+                    index = new TreeMap<>();
+                    for (BPC_Booking booking : bookings) {
+                        if (booking.getStatus() == BPC_BookingStatus.BOOKED) {
+                            index.put(booking.getTreatment().getDateTime(), booking);
+                        }
+                    }
+                    activeBookings = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    //called by the booking when it is cancelled or attended
+    void bookingClosed(BPC_Booking booking, LocalDateTime dateTime) {
+        activeBookings().remove(dateTime, booking);
+    }
+
+    //called by the booking when its treatment moves to another time
+    void bookingMoved(BPC_Booking booking, LocalDateTime oldDateTime) {
+        if (activeBookings().remove(oldDateTime, booking)) {
+            activeBookings().put(booking.getTreatment().getDateTime(), booking);
+        }
     }
 
     public void deactivate() {
@@ -59,11 +130,15 @@ public class BPC_Patient {
     }
 
     //Getter and Setter
-    public String getId() { return id;  }
+    public long getKey() { return key; }
+    public String getId() { return id != null ? id : BPC_IdGenerator.formatPatientId(key); }
     public String getName() { return name; }
     public String getAddress() { return address; }
     public String getPhone() { return phone; }
     public List<BPC_Booking> getBookings() { return bookings; }
+    //live view, changed under the patient's lock; copy it under that lock to iterate it from elsewhere
+    public Collection<BPC_Booking> getActiveBookings() { return Collections.unmodifiableCollection(activeBookings().values()); }
+    public int getActiveBookingCount() { return activeBookings().size(); }
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 }
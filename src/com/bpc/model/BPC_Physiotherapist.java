@@ -1,84 +1,116 @@
 package com.bpc.model;
 
+import com.bpc.util.BPC_IdGenerator;
+
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.Objects;
 
 public class BPC_Physiotherapist {
+    public static final int DEFAULT_HORIZON_WEEKS = 4;
+
     //declare physiotherapist variables
-    private String id;
+    private long key; //numeric identity, -1 if the id is not in the generated format
+    private String id; //only kept when the id cannot be derived from the key
     private String name;
     private String address;
     private String phone;
     private List <String> expertise;
-    private Map<LocalDateTime, Boolean> timetable; //true: available, false: booked
+    private BPC_Timetable timetable;
     private boolean isActive;  //true: available, false: not available
 
     public BPC_Physiotherapist(String id, String name, String address, String phone, List<String> expertise) {
+        this(id, name, address, phone, expertise, BPC_WorkingHours.standard());
+    }
+
+    public BPC_Physiotherapist(String id, String name, String address, String phone, List<String> expertise,
+                               BPC_WorkingHours workingHours) {
+        this(BPC_IdGenerator.parsePhysiotherapistKey(id), id, name, address, phone, expertise, workingHours);
+    }
+
+    public BPC_Physiotherapist(long key, String name, String address, String phone, List<String> expertise,
+                               BPC_WorkingHours workingHours) {
+        this(key, null, name, address, phone, expertise, workingHours);
+    }
+
+    private BPC_Physiotherapist(long key, String id, String name, String address, String phone,
+                                List<String> expertise, BPC_WorkingHours workingHours) {
         //initialize physiotherapist variables
-        this.id = id;
+        this.key = key;
+        this.id = key < 0 ? id : null;
         this.name = name;
         this.address = address;
         this.phone = phone;
         this.expertise = new ArrayList<>(expertise);
-        this.timetable = initializeTimetable();
+        this.timetable = new BPC_Timetable(workingHours);
         this.isActive = true; //default to available
     }
 
-    private Map<LocalDateTime, Boolean> initializeTimetable() {
-        Map<LocalDateTime, Boolean> slots = new TreeMap<>();
+    //available slots from now until the end of the default booking horizon
+    public List<LocalDateTime> getAvailableAppointments() {
+        LocalDateTime now = LocalDateTime.now();
+        return getAvailableAppointments(now, now.plusWeeks(DEFAULT_HORIZON_WEEKS));
+    }
+
+    public List<LocalDateTime> getAvailableAppointments(LocalDateTime from, LocalDateTime to) {
+        if (!isActive) {
+            return new ArrayList<>();
+        }
+        return timetable.getAvailableSlots(from, to);
+    }
 
-        // Set fixed start date to April 1, 2025
-        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 0);
+    public int getAvailableAppointmentCount(LocalDateTime from, LocalDateTime to) {
+        return isActive ? timetable.countAvailable(from, to) : 0;
+    }
 
-        // Calculate number of days in April (30)
-        int daysInJune = 30;
+    //first available slot starting in [from, to), or null
+    public LocalDateTime getNextAvailableAppointment(LocalDateTime from, LocalDateTime to) {
+        return isActive ? timetable.nextAvailable(from, to) : null;
+    }
 
-        // Initialize timetable for April
-        for (int day = 0; day < daysInJune; day++) {
-            LocalDateTime currentDay = start.plusDays(day);
+    //drop timetable weeks that are over
+    public void rolloverTimetable(LocalDate today) {
+        timetable.rollover(today);
+    }
 
-            // Skip weekends (Saturday = 6, Sunday = 7)
-            if (currentDay.getDayOfWeek().getValue() >= 6) {
-                continue;
-            }
+    public boolean isAvailable(LocalDateTime dateTime) {
+        return isActive && timetable.isAvailable(dateTime);
+    }
 
-            // 9am to 5pm, 1 hour slots
-            for (int hour = 9; hour < 17; hour++) {
-                slots.put(currentDay.withHour(hour), true);
-            }
+    //index of the first of the given slots (in ascending order) that cannot be booked, or -1 if all can
+    public int firstUnavailableAppointment(List<LocalDateTime> dateTimes) {
+        if (!isActive) {
+            return dateTimes.isEmpty() ? -1 : 0;
         }
-        return slots;
+        return timetable.firstUnavailable(dateTimes);
     }
 
-    public List<LocalDateTime> getAvailableAppointments() {
+    public void assignAppointment(LocalDateTime dateTime) {
         if (!isActive) {
-            return new ArrayList<>();
+            throw new IllegalStateException("Physiotherapist is not available");
+        }
+        if (!timetable.book(dateTime)) {
+            throw new IllegalStateException("Slot is not available");
         }
-        return timetable.entrySet().stream()
-                .filter(Map.Entry::getValue)
-                .map(Map.Entry::getKey)
-                .toList();
     }
 
-    public boolean isAvailable(LocalDateTime dateTime) {
-        return isActive && timetable.getOrDefault(dateTime, false);
+    //a historical booking may take a working slot of a week that has been rolled over
+    public boolean isAvailableToRestore(LocalDateTime dateTime) {
+        return isActive && timetable.isRestorable(dateTime);
     }
 
-    public void assignAppointment(LocalDateTime dateTime) {
+    public void assignRestoredAppointment(LocalDateTime dateTime) {
         if (!isActive) {
             throw new IllegalStateException("Physiotherapist is not available");
         }
-        if (!isAvailable(dateTime)) {
+        if (!timetable.bookRestored(dateTime)) {
             throw new IllegalStateException("Slot is not available");
         }
-        timetable.put(dateTime, false);
     }
 
     public void freeAppointment(LocalDateTime dateTime) {
-        if (timetable.containsKey(dateTime)) {
-            timetable.put(dateTime, true);
-        }
+        timetable.free(dateTime);
     }
 
     // Renamed methods for clarity
@@ -96,19 +128,22 @@ public class BPC_Physiotherapist {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BPC_Physiotherapist that = (BPC_Physiotherapist) o;
-        return Objects.equals(id, that.id);
+        return key == that.key && Objects.equals(id, that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return id != null ? id.hashCode() : Long.hashCode(key);
     }
 
     //Getter and Setter
-    public String getId() { return id; }
+    public long getKey() { return key; }
+    public String getId() { return id != null ? id : BPC_IdGenerator.formatPhysiotherapistId(key); }
     public String getName() { return name; }
     public String getAddress() { return address; }
     public String getPhone() { return phone; }
     public List<String> getExpertise() { return new ArrayList<>(expertise); }
+    public BPC_WorkingHours getWorkingHours() { return timetable.getWorkingHours(); }
+    public BPC_Timetable getTimetable() { return timetable; }
     public boolean isActive() { return isActive; }
 }
@@ -0,0 +1,48 @@
+package com.bpc.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule for a recurring series of sessions: the first session, then one every
+ * intervalWeeks weeks at the same time, occurrences sessions in total
+ */
+public class BPC_Recurrence {
+    private final LocalDateTime first;
+    private final int intervalWeeks;
+    private final int occurrences;
+
+    /**
+     * @throws IllegalArgumentException if first is null, or the interval or number of occurrences is not positive
+     */
+    public BPC_Recurrence(LocalDateTime first, int intervalWeeks, int occurrences) {
+        if (first == null) {
+            throw new IllegalArgumentException("First session must be non-null");
+        }
+        if (intervalWeeks < 1 || occurrences < 1) {
+            throw new IllegalArgumentException("Interval and number of sessions must be positive");
+        }
+        this.first = first;
+        this.intervalWeeks = intervalWeeks;
+        this.occurrences = occurrences;
+    }
+
+    public static BPC_Recurrence weekly(LocalDateTime first, int occurrences) {
+        return new BPC_Recurrence(first, 1, occurrences);
+    }
+
+    //session times in ascending order
+    public List<LocalDateTime> expand() {
+        List<LocalDateTime> dateTimes = new ArrayList<>(occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            dateTimes.add(first.plusWeeks((long) i * intervalWeeks));
+        }
+        return dateTimes;
+    }
+
+    // Getters
+    public LocalDateTime getFirst() { return first; }
+    public int getIntervalWeeks() { return intervalWeeks; }
+    public int getOccurrences() { return occurrences; }
+}
@@ -0,0 +1,379 @@
+package com.bpc.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Slot-indexed bitmap timetable for a single physiotherapist.
+ * Time is split into Monday-based weeks, and each working hour of the template is
+ * one slot of its week, numbered in chronological order. Only weeks that contain
+ * bookings are stored (one bit per slot, 1 = booked), so a week is created the first
+ * time it is booked and any other week is implicitly fully available.
+ */
+public class BPC_Timetable {
+    private final BPC_WorkingHours workingHours;
+    private final int firstHour;
+    private final int slotsPerDay;
+    private final int slotsPerWeek;
+    private final long[] weekTemplate; // 1 = working slot
+    private final TreeMap<Long, long[]> bookedWeeks;
+
+    private long firstWeek; // weeks before this one have been rolled over
+    private long rolledOverWeeks;
+    private long rolledOverBookedSlots;
+
+    /**
+     * Creates an empty timetable
+     *
+     * @param workingHours Template of the slots offered every week
+     */
+    public BPC_Timetable(BPC_WorkingHours workingHours) {
+        this.workingHours = workingHours;
+        this.firstHour = workingHours.getFirstHour();
+        this.slotsPerDay = workingHours.getSlotsPerDay();
+        this.slotsPerWeek = 7 * slotsPerDay;
+        this.weekTemplate = new long[(slotsPerWeek + 63) >>> 6];
+        this.bookedWeeks = new TreeMap<>();
+        this.firstWeek = Long.MIN_VALUE;
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (!workingHours.isWorkingDay(day)) {
+                continue;
+            }
+            for (int hour = 0; hour < slotsPerDay; hour++) {
+                int slot = day.ordinal() * slotsPerDay + hour;
+                weekTemplate[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+
+    static long weekOf(LocalDate date) {
+        // Epoch day 0 is a Thursday, shift so that weeks start on Monday
+        return Math.floorDiv(date.toEpochDay() + 3, 7);
+    }
+
+    private static LocalDate mondayOf(long week) {
+        return LocalDate.ofEpochDay(week * 7 - 3);
+    }
+
+    /**
+     * Maps a date and time to its slot number within its week
+     *
+     * @return the slot number, or -1 if the time is not a working slot
+     */
+    private int slotOf(LocalDateTime dateTime) {
+        if (dateTime.getMinute() != 0 || dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            return -1;
+        }
+        int hour = dateTime.getHour() - firstHour;
+        DayOfWeek day = dateTime.getDayOfWeek();
+        if (hour < 0 || hour >= slotsPerDay || !workingHours.isWorkingDay(day)) {
+            return -1;
+        }
+        return day.ordinal() * slotsPerDay + hour;
+    }
+
+    /**
+     * Position within its week of the first slot starting at or after the given time
+     */
+    private int ceilSlotOf(LocalDateTime dateTime) {
+        int hour = dateTime.getHour();
+        if (dateTime.getMinute() != 0 || dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            hour++;
+        }
+        int offset = Math.min(Math.max(hour - firstHour, 0), slotsPerDay);
+        return dateTime.getDayOfWeek().ordinal() * slotsPerDay + offset;
+    }
+
+    private LocalDateTime timeOf(long week, int slot) {
+        return mondayOf(week).plusDays(slot / slotsPerDay).atTime(firstHour + slot % slotsPerDay, 0);
+    }
+
+    private static long rangeMask(int word, int fromSlot, int toSlot) {
+        int lo = fromSlot - (word << 6);
+        int hi = toSlot - (word << 6);
+        if (hi <= 0 || lo >= 64) {
+            return 0;
+        }
+        long mask = -1L;
+        if (lo > 0) {
+            mask &= -1L << lo;
+        }
+        if (hi < 64) {
+            mask &= (1L << hi) - 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Available slots of one week restricted to slot numbers in [fromSlot, toSlot)
+     */
+    private long[] availableBits(long week, int fromSlot, int toSlot) {
+        long[] booked = bookedWeeks.get(week);
+        long[] bits = new long[weekTemplate.length];
+        for (int i = 0; i < bits.length; i++) {
+            long word = weekTemplate[i] & rangeMask(i, fromSlot, toSlot);
+            bits[i] = booked == null ? word : word & ~booked[i];
+        }
+        return bits;
+    }
+
+    public synchronized boolean isSlot(LocalDateTime dateTime) {
+        return slotOf(dateTime) >= 0 && weekOf(dateTime.toLocalDate()) >= firstWeek;
+    }
+
+    public synchronized boolean isAvailable(LocalDateTime dateTime) {
+        int slot = slotOf(dateTime);
+        if (slot < 0) {
+            return false;
+        }
+        long week = weekOf(dateTime.toLocalDate());
+        if (week < firstWeek) {
+            return false;
+        }
+        long[] booked = bookedWeeks.get(week);
+        return booked == null || (booked[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    /**
+     * Checks several slots in one pass over the booked weeks, e.g. the sessions of a recurring series
+     *
+     * @param dateTimes Slot start times in ascending order
+     * @return the index of the first slot that is not available, or -1 if all are
+     * @throws IllegalArgumentException if the times are not in ascending order
+     */
+    public synchronized int firstUnavailable(List<LocalDateTime> dateTimes) {
+        if (dateTimes.isEmpty()) {
+            return -1;
+        }
+        Iterator<Map.Entry<Long, long[]>> weeks = bookedWeeks
+                .tailMap(weekOf(dateTimes.get(0).toLocalDate()), true).entrySet().iterator();
+        Map.Entry<Long, long[]> current = weeks.hasNext() ? weeks.next() : null;
+        LocalDateTime previous = null;
+        for (int i = 0; i < dateTimes.size(); i++) {
+            LocalDateTime dateTime = dateTimes.get(i);
+            if (previous != null && !dateTime.isAfter(previous)) {
+                throw new IllegalArgumentException("Slots must be in ascending order");
+            }
+            previous = dateTime;
+            int slot = slotOf(dateTime);
+            long week = weekOf(dateTime.toLocalDate());
+            if (slot < 0 || week < firstWeek) {
+                return i;
+            }
+            while (current != null && current.getKey() < week) {
+                current = weeks.hasNext() ? weeks.next() : null;
+            }
+            if (current != null && current.getKey() == week && (current.getValue()[slot >>> 6] & (1L << slot)) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks a slot as booked, creating its week on first use
+     *
+     * @return true if the slot was available and is now booked
+     */
+    public synchronized boolean book(LocalDateTime dateTime) {
+        if (!isAvailable(dateTime)) {
+            return false;
+        }
+        int slot = slotOf(dateTime);
+        long[] booked = bookedWeeks.computeIfAbsent(weekOf(dateTime.toLocalDate()),
+                week -> new long[weekTemplate.length]);
+        booked[slot >>> 6] |= 1L << slot;
+        return true;
+    }
+
+    /**
+     * Checks a slot for a historical booking. A working slot in a week that has been
+     * rolled over is taken as free, as only the number of its booked slots is kept.
+     */
+    public synchronized boolean isRestorable(LocalDateTime dateTime) {
+        if (slotOf(dateTime) >= 0 && weekOf(dateTime.toLocalDate()) < firstWeek) {
+            return true;
+        }
+        return isAvailable(dateTime);
+    }
+
+    /**
+     * Marks a slot as booked for a historical booking, adding it to the summary
+     * counters if its week has been rolled over
+     *
+     * @return true if the slot was available and is now booked
+     */
+    public synchronized boolean bookRestored(LocalDateTime dateTime) {
+        if (slotOf(dateTime) >= 0 && weekOf(dateTime.toLocalDate()) < firstWeek) {
+            rolledOverBookedSlots++;
+            return true;
+        }
+        return book(dateTime);
+    }
+
+    /**
+     * Marks a slot as available again. Times that are not booked slots are ignored,
+     * and a week without any remaining bookings is dropped. A slot in a rolled over
+     * week is taken off the summary counters.
+     */
+    public synchronized void free(LocalDateTime dateTime) {
+        int slot = slotOf(dateTime);
+        if (slot < 0) {
+            return;
+        }
+        long week = weekOf(dateTime.toLocalDate());
+        if (week < firstWeek) {
+            if (rolledOverBookedSlots > 0) {
+                rolledOverBookedSlots--;
+            }
+            return;
+        }
+        long[] booked = bookedWeeks.get(week);
+        if (booked == null) {
+            return;
+        }
+        booked[slot >>> 6] &= ~(1L << slot);
+        for (long word : booked) {
+            if (word != 0) {
+                return;
+            }
+        }
+        bookedWeeks.remove(week);
+    }
+
+    /**
+     * Counts available slots starting in [from, to)
+     */
+    public synchronized int countAvailable(LocalDateTime from, LocalDateTime to) {
+        int count = 0;
+        long lastWeek = weekOf(to.toLocalDate());
+        for (long week = Math.max(weekOf(from.toLocalDate()), firstWeek); week <= lastWeek; week++) {
+            for (long word : availableBits(week, fromSlot(week, from), toSlot(week, to))) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists available slots starting in [from, to), in chronological order
+     */
+    public synchronized List<LocalDateTime> getAvailableSlots(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        long lastWeek = weekOf(to.toLocalDate());
+        for (long week = Math.max(weekOf(from.toLocalDate()), firstWeek); week <= lastWeek; week++) {
+            long[] bits = availableBits(week, fromSlot(week, from), toSlot(week, to));
+            for (int i = 0; i < bits.length; i++) {
+                long word = bits[i];
+                while (word != 0) {
+                    slots.add(timeOf(week, (i << 6) + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Finds the first available slot starting in [from, to)
+     *
+     * @return the start of the slot, or null if there is none
+     */
+    public synchronized LocalDateTime nextAvailable(LocalDateTime from, LocalDateTime to) {
+        long lastWeek = weekOf(to.toLocalDate());
+        for (long week = Math.max(weekOf(from.toLocalDate()), firstWeek); week <= lastWeek; week++) {
+            long[] bits = availableBits(week, fromSlot(week, from), toSlot(week, to));
+            for (int i = 0; i < bits.length; i++) {
+                if (bits[i] != 0) {
+                    return timeOf(week, (i << 6) + Long.numberOfTrailingZeros(bits[i]));
+                }
+            }
+        }
+        return null;
+    }
+
+    private int fromSlot(long week, LocalDateTime from) {
+        return week == weekOf(from.toLocalDate()) ? ceilSlotOf(from) : 0;
+    }
+
+    private int toSlot(long week, LocalDateTime to) {
+        return week == weekOf(to.toLocalDate()) ? ceilSlotOf(to) : slotsPerWeek;
+    }
+
+    /**
+     * Drops every week before the week of the given date, adding its bookings to the
+     * summary counters. Slots in dropped weeks can no longer be booked.
+     */
+    public synchronized void rollover(LocalDate today) {
+        long currentWeek = weekOf(today);
+        if (currentWeek <= firstWeek) {
+            return;
+        }
+        SortedMap<Long, long[]> pastWeeks = bookedWeeks.headMap(currentWeek);
+        for (Map.Entry<Long, long[]> entry : pastWeeks.entrySet()) {
+            rolledOverWeeks++;
+            for (long word : entry.getValue()) {
+                rolledOverBookedSlots += Long.bitCount(word);
+            }
+        }
+        pastWeeks.clear();
+        firstWeek = currentWeek;
+    }
+
+    /**
+     * Copy of the booked weeks, one bit per slot (1 = booked), keyed by week number
+     */
+    public synchronized NavigableMap<Long, long[]> getBookedWeeks() {
+        NavigableMap<Long, long[]> copy = new TreeMap<>();
+        for (Map.Entry<Long, long[]> entry : bookedWeeks.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return copy;
+    }
+
+    /**
+     * Number of longs each week of {@link #getBookedWeeks()} is stored in
+     */
+    public int getWordsPerWeek() { return weekTemplate.length; }
+
+    /**
+     * First week that has not been rolled over, Long.MIN_VALUE if none has been
+     */
+    public synchronized long getFirstWeek() { return firstWeek; }
+
+    /**
+     * Replaces the whole state with a saved one, from {@link #getBookedWeeks()} and the rollover getters
+     *
+     * @throws IllegalArgumentException if a week does not have {@link #getWordsPerWeek()} words
+     */
+    public synchronized void restore(Map<Long, long[]> weeks, long firstWeek, long rolledOverWeeks,
+                                     long rolledOverBookedSlots) {
+        bookedWeeks.clear();
+        for (Map.Entry<Long, long[]> entry : weeks.entrySet()) {
+            if (entry.getValue().length != weekTemplate.length) {
+                throw new IllegalArgumentException("Week " + entry.getKey() + " has the wrong number of slots");
+            }
+            bookedWeeks.put(entry.getKey(), entry.getValue().clone());
+        }
+        this.firstWeek = firstWeek;
+        this.rolledOverWeeks = rolledOverWeeks;
+        this.rolledOverBookedSlots = rolledOverBookedSlots;
+    }
+
+    /**
+     * Number of weeks currently held in memory
+     */
+    public synchronized int getStoredWeekCount() { return bookedWeeks.size(); }
+    public synchronized long getRolledOverWeeks() { return rolledOverWeeks; }
+    public synchronized long getRolledOverBookedSlots() { return rolledOverBookedSlots; }
+    public BPC_WorkingHours getWorkingHours() { return workingHours; }
+}
@@ -7,6 +7,7 @@ public class BPC_Treatment {
     private LocalDateTime dateTime;
     private BPC_Physiotherapist physiotherapist;
     private boolean booked;
+    private final boolean restored; //recreated from saved state, may be in the past
 
     /**
      * Creates a new treatment
@@ -31,6 +32,26 @@ public class BPC_Treatment {
         this.dateTime = dateTime;
         this.physiotherapist = physiotherapist;
         this.booked = false;
+        this.restored = false;
+    }
+
+    private BPC_Treatment(String name, BPC_Physiotherapist physiotherapist, LocalDateTime dateTime, boolean restored) {
+        this.name = name;
+        this.dateTime = dateTime;
+        this.physiotherapist = physiotherapist;
+        this.booked = false;
+        this.restored = restored;
+    }
+
+    /**
+     * Recreates a saved treatment. Unlike a new treatment it may be in the past,
+     * so bookings made before a restart can be restored.
+     */
+    public static BPC_Treatment restore(String name, BPC_Physiotherapist physiotherapist, LocalDateTime dateTime) {
+        if (name == null || physiotherapist == null || dateTime == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        return new BPC_Treatment(name, physiotherapist, dateTime, true);
     }
 
     /**
@@ -49,17 +70,27 @@ public class BPC_Treatment {
      * @throws IllegalStateException if the treatment date is now in the past
      */
     public void markAsBooked() {
-        if (!isAvailable()) {
+        if (booked || !(restored ? physiotherapist.isAvailableToRestore(dateTime)
+                : physiotherapist.isAvailable(dateTime))) {
             throw new IllegalArgumentException("Treatment is already booked");
         }
 
         // Double-check the date is not in the past at booking time
-        if (dateTime.isBefore(LocalDateTime.now())) {
+        if (!restored && dateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalStateException("Cannot book a treatment in the past");
         }
 
         booked = true;
-        physiotherapist.assignAppointment(dateTime);
+        if (restored) {
+            physiotherapist.assignRestoredAppointment(dateTime);
+        } else {
+            physiotherapist.assignAppointment(dateTime);
+        }
+    }
+
+    //the slot of a restored booking is restored with its physiotherapist's timetable
+    void restoreBooked() {
+        booked = true;
     }
 
     /**
@@ -0,0 +1,55 @@
+package com.bpc.model;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Weekly working-hours template used to lay out a physiotherapist's timetable.
+ * Every working day offers one hour slots from the first hour (inclusive)
+ * to the last hour (exclusive).
+ */
+public class BPC_WorkingHours {
+    private final EnumSet<DayOfWeek> workingDays;
+    private final int firstHour;
+    private final int lastHour;
+
+    /**
+     * Creates a working-hours template
+     *
+     * @param workingDays Days of the week with appointments
+     * @param firstHour Hour of the first slot of the day (0-23)
+     * @param lastHour Hour the last slot of the day ends (1-24)
+     * @throws IllegalArgumentException if there are no working days or the hours are out of range
+     */
+    public BPC_WorkingHours(Set<DayOfWeek> workingDays, int firstHour, int lastHour) {
+        if (workingDays == null || workingDays.isEmpty()) {
+            throw new IllegalArgumentException("At least one working day is required");
+        }
+        if (firstHour < 0 || lastHour > 24 || firstHour >= lastHour) {
+            throw new IllegalArgumentException("Invalid working hours: " + firstHour + " to " + lastHour);
+        }
+        this.workingDays = EnumSet.copyOf(workingDays);
+        this.firstHour = firstHour;
+        this.lastHour = lastHour;
+    }
+
+    /**
+     * Monday to Friday, 9am to 5pm
+     */
+    public static BPC_WorkingHours standard() {
+        return new BPC_WorkingHours(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 9, 17);
+    }
+
+    public boolean isWorkingDay(DayOfWeek day) {
+        return workingDays.contains(day);
+    }
+
+    public int getSlotsPerDay() {
+        return lastHour - firstHour;
+    }
+
+    public Set<DayOfWeek> getWorkingDays() { return EnumSet.copyOf(workingDays); }
+    public int getFirstHour() { return firstHour; }
+    public int getLastHour() { return lastHour; }
+}
@@ -0,0 +1,22 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Physiotherapist;
+
+import java.time.LocalDateTime;
+
+/**
+ * A free appointment slot of a physiotherapist, as returned by slot searches
+ */
+public class BPC_AvailableSlot {
+    private final BPC_Physiotherapist physiotherapist;
+    private final LocalDateTime dateTime;
+
+    public BPC_AvailableSlot(BPC_Physiotherapist physiotherapist, LocalDateTime dateTime) {
+        this.physiotherapist = physiotherapist;
+        this.dateTime = dateTime;
+    }
+
+    // Getters
+    public BPC_Physiotherapist getPhysiotherapist() { return physiotherapist; }
+    public LocalDateTime getDateTime() { return dateTime; }
+}
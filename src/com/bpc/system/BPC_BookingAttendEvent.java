@@ -0,0 +1,12 @@
+package com.bpc.system;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A attendBooking call
+ */
+@Name("com.bpc.BookingAttend")
+@Label("Booking Attend")
+class BPC_BookingAttendEvent extends BPC_BookingEvent {
+}
@@ -0,0 +1,12 @@
+package com.bpc.system;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A cancelBooking call
+ */
+@Name("com.bpc.BookingCancel")
+@Label("Booking Cancel")
+class BPC_BookingCancelEvent extends BPC_BookingEvent {
+}
@@ -0,0 +1,54 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to a booking, as passed to a {@link BPC_BookingChangeListener}. Changes are slots of
+ * a ring that are filled again for later changes, so a listener copies what it keeps. The
+ * keys and times are those of the moment of the change; the booking itself may have changed
+ * again since.
+ */
+public class BPC_BookingChange {
+    private long sequence;
+    private BPC_BookingChangeType type;
+    private BPC_Booking booking;
+    private long physiotherapistKey;
+    private LocalDateTime appointment;
+    private long previousPhysiotherapistKey;
+    private LocalDateTime previousAppointment;
+
+    BPC_BookingChange() {
+    }
+
+    // fills the slot, called by the thread that made the change with the booking's locks held
+    void set(long sequence, BPC_BookingChangeType type, BPC_Booking booking,
+             BPC_Physiotherapist previousPhysiotherapist, LocalDateTime previousAppointment) {
+        this.sequence = sequence;
+        this.type = type;
+        this.booking = booking;
+        this.physiotherapistKey = booking.getTreatment().getPhysiotherapist().getKey();
+        this.appointment = booking.getTreatment().getDateTime();
+        this.previousPhysiotherapistKey = previousPhysiotherapist == null ? 0 : previousPhysiotherapist.getKey();
+        this.previousAppointment = previousAppointment;
+    }
+
+    // Getters
+    // position of the change among all changes published, starting at 0
+    public long getSequence() { return sequence; }
+    public BPC_BookingChangeType getType() { return type; }
+    public BPC_Booking getBooking() { return booking; }
+    public long getBookingKey() { return booking.getKey(); }
+    public String getBookingId() { return booking.getId(); }
+    public long getPatientKey() { return booking.getPatient().getKey(); }
+    public long getPhysiotherapistKey() { return physiotherapistKey; }
+    public String getPhysiotherapistId() { return BPC_IdGenerator.formatPhysiotherapistId(physiotherapistKey); }
+    public LocalDateTime getAppointment() { return appointment; }
+    // 0 unless MODIFIED
+    public long getPreviousPhysiotherapistKey() { return previousPhysiotherapistKey; }
+    // null unless MODIFIED
+    public LocalDateTime getPreviousAppointment() { return previousAppointment; }
+}
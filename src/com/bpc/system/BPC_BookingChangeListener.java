@@ -0,0 +1,16 @@
+package com.bpc.system;
+
+/**
+ * Receives booking changes on a thread of its own, after the clinic operation that made them
+ * has returned. See {@link BPC_Clinic#addBookingListener(BPC_BookingChangeListener)}.
+ */
+public interface BPC_BookingChangeListener {
+    /**
+     * Called for each change in the order the changes were made. The change is only valid
+     * during the call, its slot is reused for a later change afterwards.
+     *
+     * @param endOfBatch true for the last change published so far, a good time to flush
+     *                   work collected over the batch
+     */
+    void changed(BPC_BookingChange change, boolean endOfBatch);
+}
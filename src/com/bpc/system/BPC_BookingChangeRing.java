@@ -0,0 +1,246 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Physiotherapist;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands booking changes to listeners through a ring of preallocated slots. A clinic operation
+ * claims the next sequence number with one atomic increment, fills the slot and marks it
+ * published, without allocating or waiting for any listener. Each listener runs on its own
+ * thread, follows the ring with its own sequence and takes every change published since its
+ * last pass as one batch.
+ * <p>
+ * A slot is only filled again once every listener has passed it. A change published while a
+ * listener is a whole ring behind is dropped and counted in the clinic's metrics: changes are
+ * published with the clinic's locks held, so waiting there would stop the clinic, for good if
+ * the listener calls back into it. The ring is sized to make that a listener that has stopped,
+ * not one that is slow.
+ * <p>
+ * A listener that throws is counted in the clinic's metrics and its exception is passed to its
+ * thread's uncaught exception handler, which prints it by default; it goes on to the next change.
+ */
+class BPC_BookingChangeRing {
+    private static final int SPINS = 100;
+    private static final long IDLE_NANOS = 100_000; // pause of an idle listener between polls
+
+    // a listener and the thread running it
+    private final class Follower implements Runnable {
+        private final BPC_BookingChangeListener listener;
+        private final Thread thread;
+        private volatile long sequence; // last change handled, Long.MAX_VALUE once stopped
+        private volatile boolean running;
+        private volatile boolean leaving; // removed from its own thread, stops after the current change
+
+        Follower(BPC_BookingChangeListener listener, long sequence, String threadName) {
+            this.listener = listener;
+            this.sequence = sequence;
+            this.running = true;
+            this.thread = new Thread(this, threadName);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                follow();
+            } finally {
+                // no longer holds up the ring, even if the listener threw an error
+                sequence = Long.MAX_VALUE;
+                synchronized (BPC_BookingChangeRing.this) {
+                    drop(this);
+                }
+            }
+        }
+
+        private void follow() {
+            long next = sequence + 1;
+            int idle = 0;
+            // once stopped, changes already published are still handled
+            while (!leaving && (running || isPublished(next))) {
+                long last = next - 1;
+                while (last + 1 - next < slots.length && isPublished(last + 1)) {
+                    last++;
+                }
+                if (last < next) {
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+                for (long s = next; s <= last && !leaving; s++) {
+                    try {
+                        listener.changed(slots[index(s)], s == last);
+                    } catch (RuntimeException e) {
+                        metrics.listenerFailed();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    }
+                }
+                sequence = last;
+                next = last + 1;
+            }
+        }
+    }
+
+    private final BPC_Metrics metrics;
+    private final BPC_BookingChange[] slots;
+    private final AtomicLongArray published; // sequence of the change each slot holds, -1 before the first
+    private final int mask;
+    private final AtomicLong claimed;        // last sequence claimed
+    private volatile Follower[] followers;   // copied on write
+    private int threads;                     // guarded by this
+
+    /**
+     * @param capacity Number of slots, a power of two
+     * @param metrics Metrics to count listener failures and dropped changes in
+     */
+    BPC_BookingChangeRing(int capacity, BPC_Metrics metrics) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.metrics = metrics;
+        slots = new BPC_BookingChange[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new BPC_BookingChange();
+            published.set(i, -1);
+        }
+        mask = capacity - 1;
+        claimed = new AtomicLong(-1);
+        followers = new Follower[0];
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get(index(sequence)) == sequence;
+    }
+
+    /**
+     * Publishes a change, called with the booking's locks held so changes to one booking are
+     * published in the order they were made. Does nothing if no listener is registered, and
+     * drops the change without waiting if a listener is a whole ring behind.
+     *
+     * @param previousPhysiotherapist Physiotherapist before a move, null for other changes
+     * @param previousAppointment Appointment time before a move, null for other changes
+     */
+    void publish(BPC_BookingChangeType type, BPC_Booking booking, BPC_Physiotherapist previousPhysiotherapist,
+                 LocalDateTime previousAppointment) {
+        if (followers.length == 0) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get() + 1;
+            // listeners only move on, so a slot found free stays free until it is claimed
+            if (sequence - slots.length > slowest()) {
+                metrics.bookingChangeDropped();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence - 1, sequence));
+        slots[index(sequence)].set(sequence, type, booking, previousPhysiotherapist, previousAppointment);
+        published.lazySet(index(sequence), sequence);
+    }
+
+    private long slowest() {
+        long slowest = Long.MAX_VALUE;
+        for (Follower follower : followers) {
+            slowest = Math.min(slowest, follower.sequence);
+        }
+        return slowest;
+    }
+
+    // spins, then yields, then parks while no change is published; returns the next idle count
+    private static int idle(int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else if (idle < SPINS * 2) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+        return idle + 1;
+    }
+
+    /**
+     * Starts passing changes to a listener, from the next one published
+     *
+     * @throws IllegalArgumentException if the listener is already registered
+     */
+    synchronized void add(BPC_BookingChangeListener listener) {
+        if (find(listener) >= 0) {
+            throw new IllegalArgumentException("Listener is already registered");
+        }
+        Follower follower = new Follower(listener, claimed.get(), "booking-listener-" + ++threads);
+        Follower[] added = Arrays.copyOf(followers, followers.length + 1);
+        added[followers.length] = follower;
+        followers = added;
+        follower.thread.start();
+    }
+
+    /**
+     * Stops passing changes to a listener, once it has handled those already published. A
+     * listener removing itself, from its own thread, gets no change after the one it is handling.
+     *
+     * @return false if the listener was not registered
+     */
+    boolean remove(BPC_BookingChangeListener listener) {
+        Follower follower;
+        synchronized (this) {
+            int i = find(listener);
+            if (i < 0) {
+                return false;
+            }
+            follower = followers[i];
+            follower.running = false;
+            if (Thread.currentThread() == follower.thread) {
+                // joining its own thread would never return
+                follower.leaving = true;
+                return true;
+            }
+        }
+        // without the lock, so a listener can remove itself or others meanwhile
+        try {
+            follower.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    // a follower that is stopping is no longer registered
+    private int find(BPC_BookingChangeListener listener) {
+        for (int i = 0; i < followers.length; i++) {
+            if (followers[i].listener == listener && followers[i].running) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // called by the follower's own thread as it stops, guarded by this
+    private void drop(Follower follower) {
+        int i = Arrays.asList(followers).indexOf(follower);
+        if (i < 0) {
+            return;
+        }
+        Follower[] removed = new Follower[followers.length - 1];
+        System.arraycopy(followers, 0, removed, 0, i);
+        System.arraycopy(followers, i + 1, removed, i, removed.length - i);
+        followers = removed;
+    }
+
+    /**
+     * @return number of changes published that the slowest listener has not handled yet
+     */
+    long getBacklog() {
+        long slowest = slowest();
+        return slowest == Long.MAX_VALUE ? 0 : Math.max(0, claimed.get() - slowest);
+    }
+}
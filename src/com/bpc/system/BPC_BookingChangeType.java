@@ -0,0 +1,11 @@
+package com.bpc.system;
+
+/**
+ * What happened to a booking, see {@link BPC_BookingChange}
+ */
+public enum BPC_BookingChangeType {
+    CREATED,
+    CANCELLED,
+    ATTENDED,
+    MODIFIED      // moved to another time or physiotherapist
+}
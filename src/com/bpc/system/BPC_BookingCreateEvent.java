@@ -0,0 +1,72 @@
+package com.bpc.system;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.time.LocalDateTime;
+
+/**
+ * A createBooking call, with the time spent in each phase of booking the slot. Phases that did
+ * not run because the booking was rejected before them are zero.
+ */
+@Name("com.bpc.BookingCreate")
+@Label("Booking Create")
+class BPC_BookingCreateEvent extends BPC_BookingEvent {
+    @Label("Patient ID")
+    String patientId;
+
+    @Label("Treatment")
+    String treatment;
+
+    @Label("Appointment")
+    String appointment;
+
+    @Label("Lock Wait")
+    @Description("Waiting for the physiotherapist's and patient's locks")
+    @Timespan
+    long lockWait;
+
+    @Label("Validation")
+    @Description("Checking the patient, physiotherapist, slot, expertise and time, and appending the booking to the journal")
+    @Timespan
+    long validation;
+
+    @Label("Timetable Update")
+    @Description("Taking the slot in the physiotherapist's timetable and the patient's schedule")
+    @Timespan
+    long timetableUpdate;
+
+    @Label("Registration")
+    @Description("Adding the booking to the registry, report and indexes")
+    @Timespan
+    long registration;
+
+    @Label("Journal Wait")
+    @Description("Waiting for the journal to make the booking durable, after the locks are released")
+    @Timespan
+    long journalWait;
+
+    private transient long phaseStart;
+
+    void startPhase() {
+        phaseStart = System.nanoTime();
+    }
+
+    // nanoseconds since the current phase started, which starts the next one
+    long endPhase() {
+        long now = System.nanoTime();
+        long duration = now - phaseStart;
+        phaseStart = now;
+        return duration;
+    }
+
+    void record(String bookingId, String patientId, String physiotherapistId, String treatment,
+                LocalDateTime appointment, Throwable failure) {
+        this.patientId = patientId;
+        this.treatment = treatment;
+        this.appointment = appointment == null ? null : appointment.toString();
+        record(bookingId, physiotherapistId, failure);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bpc.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event of a booking operation, so a recording shows each booking next to the
+ * garbage collections and lock contention around it. Events cost next to nothing unless a recording
+ * enables them. Subclasses are the concrete event types.
+ */
+@Category({"BPC Clinic", "Bookings"})
+@StackTrace(false)
+abstract class BPC_BookingEvent extends Event {
+    @Label("Booking ID")
+    String bookingId;
+
+    @Label("Physiotherapist ID")
+    String physiotherapistId;
+
+    @Label("Outcome")
+    @Description("OK, or why the operation failed")
+    String outcome;
+
+    /**
+     * Ends the event
+     *
+     * @return true if a recording takes it; only then are its fields worth formatting and filling in
+     */
+    boolean finish() {
+        end();
+        return shouldCommit();
+    }
+
+    /**
+     * Fills in the fields every booking event has and commits the event
+     *
+     * @param failure What the operation threw, null if it succeeded
+     */
+    void record(String bookingId, String physiotherapistId, Throwable failure) {
+        this.bookingId = bookingId;
+        this.physiotherapistId = physiotherapistId;
+        outcome = outcome(failure);
+        commit();
+    }
+
+    static String outcome(Throwable failure) {
+        if (failure == null) {
+            return "OK";
+        }
+        return failure.getMessage() != null ? failure.getMessage() : failure.getClass().getName();
+    }
+}
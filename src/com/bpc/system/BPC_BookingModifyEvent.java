@@ -0,0 +1,19 @@
+package com.bpc.system;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A modifyBooking call. The physiotherapist is the one the booking moves to.
+ */
+@Name("com.bpc.BookingModify")
+@Label("Booking Modify")
+class BPC_BookingModifyEvent extends BPC_BookingEvent {
+    @Label("Previous Physiotherapist ID")
+    String previousPhysiotherapistId;
+
+    @Label("Appointment")
+    @Description("Appointment time the booking moves to")
+    String appointment;
+}
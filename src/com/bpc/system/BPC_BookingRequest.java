@@ -0,0 +1,26 @@
+package com.bpc.system;
+
+import java.time.LocalDateTime;
+
+/**
+ * One session of a batch passed to {@link BPC_Clinic#createBookings(java.util.List)}
+ */
+public class BPC_BookingRequest {
+    private final String patientId;
+    private final String physiotherapistId;
+    private final String treatmentName;
+    private final LocalDateTime dateTime;
+
+    public BPC_BookingRequest(String patientId, String physiotherapistId, String treatmentName, LocalDateTime dateTime) {
+        this.patientId = patientId;
+        this.physiotherapistId = physiotherapistId;
+        this.treatmentName = treatmentName;
+        this.dateTime = dateTime;
+    }
+
+    // Getters
+    public String getPatientId() { return patientId; }
+    public String getPhysiotherapistId() { return physiotherapistId; }
+    public String getTreatmentName() { return treatmentName; }
+    public LocalDateTime getDateTime() { return dateTime; }
+}
@@ -0,0 +1,37 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+
+/**
+ * Outcome of one request of a booking batch: the booking made, or why it was not made
+ */
+public class BPC_BookingResult {
+    private final BPC_BookingRequest request;
+    private final BPC_Booking booking;
+    private final String error;
+
+    private BPC_BookingResult(BPC_BookingRequest request, BPC_Booking booking, String error) {
+        this.request = request;
+        this.booking = booking;
+        this.error = error;
+    }
+
+    static BPC_BookingResult booked(BPC_BookingRequest request, BPC_Booking booking) {
+        return new BPC_BookingResult(request, booking, null);
+    }
+
+    static BPC_BookingResult rejected(BPC_BookingRequest request, String error) {
+        return new BPC_BookingResult(request, null, error);
+    }
+
+    public boolean isBooked() {
+        return booking != null;
+    }
+
+    // Getters
+    public BPC_BookingRequest getRequest() { return request; }
+    // null unless booked
+    public BPC_Booking getBooking() { return booking; }
+    // null if booked
+    public String getError() { return error; }
+}
@@ -2,204 +2,1606 @@ package com.bpc.system;
 
 import com.bpc.model.*;
 import com.bpc.util.BPC_IdGenerator;
+import com.bpc.util.BPC_LongMap;
+import com.bpc.util.BPC_RegistryView;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class BPC_Clinic {
-    private Map<String, BPC_Physiotherapist> physiotherapists;
-    private Map<String, BPC_Patient> patients;
-    private Map<String, BPC_Booking> bookings;
+    private static final int LOCK_STRIPES = 64;
+    private static final int BOOKING_CHANGE_SLOTS = 1 << 14;
+
+    // entities by numeric key, the string ids are parsed back to keys for lookups
+    private final BPC_LongMap<BPC_Physiotherapist> physiotherapists;
+    private final BPC_LongMap<BPC_Patient> patients;
+    private final BPC_LongMap<BPC_Booking> bookings;
+    private final BPC_LongMap<BPC_BookingSeries> series;
+    // read-only views of the registries by string id, handed out by the getters
+    private final Map<String, BPC_Physiotherapist> physiotherapistView;
+    private final Map<String, BPC_Patient> patientView;
+    private final Map<String, BPC_Booking> bookingView;
+    private final Map<String, BPC_BookingSeries> seriesView;
+    private BPC_ExpertiseIndex expertiseIndex;
+    private final BPC_ListingIndex listingIndex;
+    private final BPC_SearchIndex<BPC_Patient> patientSearch;
+    private final BPC_SearchIndex<BPC_Physiotherapist> physiotherapistSearch;
+    private BPC_ReportAggregates reportAggregates;
+    private final BPC_Metrics metrics;
+    private final BPC_BookingChangeRing bookingChanges;
+    private ScheduledExecutorService timetableRollover;
+    private ScheduledExecutorService checkpoints;
+    private BPC_Journal journal; // null when changes are not journaled
+    private boolean restoring; // replaying the journal, treatments may be in the past
+    private boolean loadingSnapshot; // listings and searches are indexed once the whole snapshot is loaded
+    // the bookings by time index is built on first use, changed under the locks of the bookings involved
+    private volatile boolean bookingsIndexed;
+    private long generation; // number of checkpoints taken, the journal only holds changes since the last one
+    private long importLogged; // last journal record of the running import
+
+    // Booking operations lock the stripes of every physiotherapist involved first,
+    // then the patient's stripe, always in that order
+    private final BPC_LockStripes physiotherapistLocks;
+    private final BPC_LockStripes patientLocks;
 
     public BPC_Clinic() {
-        physiotherapists = new HashMap<>();
-        patients = new HashMap<>();
-        bookings = new HashMap<>();
+        physiotherapists = new BPC_LongMap<>();
+        patients = new BPC_LongMap<>();
+        bookings = new BPC_LongMap<>();
+        series = new BPC_LongMap<>();
+        physiotherapistView = new BPC_RegistryView<>(physiotherapists, BPC_IdGenerator::parsePhysiotherapistKey,
+                BPC_Physiotherapist::getId);
+        patientView = new BPC_RegistryView<>(patients, BPC_IdGenerator::parsePatientKey, BPC_Patient::getId);
+        bookingView = new BPC_RegistryView<>(bookings, BPC_IdGenerator::parseBookingKey, BPC_Booking::getId);
+        seriesView = new BPC_RegistryView<>(series, BPC_IdGenerator::parseSeriesKey, BPC_BookingSeries::getId);
+        expertiseIndex = new BPC_ExpertiseIndex();
+        listingIndex = new BPC_ListingIndex();
+        patientSearch = new BPC_SearchIndex<>(BPC_Patient::getKey, BPC_Patient::getName, BPC_Patient::getPhone);
+        physiotherapistSearch = new BPC_SearchIndex<>(BPC_Physiotherapist::getKey, BPC_Physiotherapist::getName,
+                BPC_Physiotherapist::getPhone);
+        reportAggregates = new BPC_ReportAggregates();
+        metrics = new BPC_Metrics();
+        bookingChanges = new BPC_BookingChangeRing(BOOKING_CHANGE_SLOTS, metrics);
+        physiotherapistLocks = new BPC_LockStripes(LOCK_STRIPES);
+        patientLocks = new BPC_LockStripes(LOCK_STRIPES);
+    }
+
+    /**
+     * Creates a clinic that journals every change, after restoring the state saved in the journal
+     *
+     * @throws IOException if the journal cannot be read
+     * @throws IllegalStateException if a journal record does not fit the restored state
+     */
+    public BPC_Clinic(BPC_Journal journal) throws IOException {
+        this(null, journal);
+    }
+
+    /**
+     * Creates a clinic that journals every change, after loading a snapshot and replaying
+     * the changes journaled since it was taken
+     *
+     * @param snapshotFile Snapshot written by {@link #checkpoint(Path)}, ignored if null or missing
+     * @throws IOException if the snapshot or journal cannot be read
+     * @throws IllegalStateException if the snapshot is corrupt or the journal does not belong to it
+     */
+    public BPC_Clinic(Path snapshotFile, BPC_Journal journal) throws IOException {
+        this();
+        boolean current;
+        restoring = true;
+        try {
+            if (snapshotFile != null && Files.exists(snapshotFile)) {
+                loadingSnapshot = true;
+                generation = BPC_Snapshot.read(snapshotFile, this);
+                loadingSnapshot = false;
+                listingIndex.addAll(patients.values(), physiotherapists.values());
+                patientSearch.addAll(patients.values());
+                physiotherapistSearch.addAll(physiotherapists.values());
+            }
+            current = replay(journal);
+        } finally {
+            restoring = false;
+        }
+        if (!current) {
+            // start a journal for the loaded snapshot, so later changes are not mistaken for old ones
+            journal.reset(BPC_JournalRecords.checkpoint(generation));
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Applies the journal if it continues the loaded snapshot. A journal starts with a checkpoint
+     * record naming its snapshot; one without it, or naming an older snapshot, was already
+     * part of the snapshot when it was written.
+     *
+     * @return true if the journal belongs to the loaded state
+     */
+    private boolean replay(BPC_Journal journal) throws IOException {
+        boolean[] first = {true};
+        boolean[] current = {generation == 0};
+        journal.replay(record -> {
+            if (first[0]) {
+                first[0] = false;
+                long recordGeneration = BPC_JournalRecords.checkpointGeneration(record);
+                if (recordGeneration > generation) {
+                    throw new IllegalStateException("Journal continues snapshot " + recordGeneration
+                            + " but the snapshot loaded is " + generation);
+                }
+                if (recordGeneration >= 0) {
+                    current[0] = recordGeneration == generation;
+                    return;
+                }
+            }
+            if (current[0]) {
+                BPC_JournalRecords.apply(record, this);
+            }
+        });
+        return current[0];
+    }
+
+    // Appends a change to the journal, returning the sequence number to wait for once locks are released
+    private long log(Supplier<ByteBuffer> record) {
+        return journal == null ? 0 : journal.append(record.get());
+    }
+
+    private void awaitLogged(long sequence) {
+        if (journal != null) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    private BPC_Treatment newTreatment(String treatmentName, BPC_Physiotherapist physiotherapist, LocalDateTime dateTime) {
+        if (restoring) {
+            return BPC_Treatment.restore(treatmentName, physiotherapist, dateTime);
+        }
+        try {
+            BPC_JournalRecords.checkText(treatmentName);
+        } catch (IllegalArgumentException e) {
+            throw rejected(BPC_RejectionReason.INVALID_REQUEST, e);
+        }
+        try {
+            return new BPC_Treatment(treatmentName, physiotherapist, dateTime);
+        } catch (IllegalArgumentException e) {
+            throw rejected(treatmentName == null || dateTime == null ? BPC_RejectionReason.INVALID_REQUEST
+                    : BPC_RejectionReason.IN_THE_PAST, e);
+        }
     }
 
     //patient management
     public BPC_Patient addPatient(String name, String address, String phone){
-        String id = BPC_IdGenerator.generatePatientId();
-        BPC_Patient patient = new BPC_Patient(id, name, address, phone);
-        patients.put(id, patient);
+        BPC_JournalRecords.checkText(name, address, phone);
+        BPC_Patient patient = new BPC_Patient(BPC_IdGenerator.nextPatientKey(), name, address, phone);
+        // Journaled before it can be found, so no record refers to a patient the journal does not know yet
+        long logged;
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            logged = log(() -> BPC_JournalRecords.patientAdded(patient));
+            listingIndex.patientAdded(patient);
+            patientSearch.add(patient);
+            patients.put(patient.getKey(), patient);
+        } finally {
+            patientLocks.unlock(patientStripes);
+        }
+        awaitLogged(logged);
         return patient;
     }
 
+    BPC_Patient restorePatient(long key, String name, String address, String phone) {
+        BPC_Patient patient = new BPC_Patient(key, name, address, phone);
+        patients.put(key, patient);
+        if (!loadingSnapshot) {
+            listingIndex.patientAdded(patient);
+            patientSearch.add(patient);
+        }
+        BPC_IdGenerator.advancePatientCounter(key);
+        return patient;
+    }
+
+    public void deactivatePatient(String patientId) {
+        deactivatePatient(getPatient(patientId));
+    }
+
+    void deactivatePatient(BPC_Patient patient) {
+        long logged;
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            try {
+                patient.deactivate();
+            } catch (IllegalStateException e) {
+                throw new BPC_ConflictException(e);
+            }
+            logged = log(() -> BPC_JournalRecords.patientDeactivated(patient));
+        } finally {
+            patientLocks.unlock(patientStripes);
+        }
+        awaitLogged(logged);
+    }
+
+    public void reactivatePatient(String patientId) {
+        reactivatePatient(getPatient(patientId));
+    }
+
+    void reactivatePatient(BPC_Patient patient) {
+        long logged;
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            patient.reactivate();
+            logged = log(() -> BPC_JournalRecords.patientReactivated(patient));
+        } finally {
+            patientLocks.unlock(patientStripes);
+        }
+        awaitLogged(logged);
+    }
+
     //physiotherapist management
     public BPC_Physiotherapist addPhysiotherapist(String name, String address, String phone, List<String> expertise) {
-        String id = BPC_IdGenerator.generatePhysiotherapistId();
-        BPC_Physiotherapist physiotherapist = new BPC_Physiotherapist(id, name, address, phone, expertise);
-        physiotherapists.put(id, physiotherapist);
+        return addPhysiotherapist(name, address, phone, expertise, BPC_WorkingHours.standard());
+    }
+
+    public BPC_Physiotherapist addPhysiotherapist(String name, String address, String phone, List<String> expertise,
+                                                  BPC_WorkingHours workingHours) {
+        BPC_JournalRecords.checkText(name, address, phone);
+        if (expertise != null) {
+            BPC_JournalRecords.checkText(expertise.toArray(new String[0]));
+        }
+        BPC_Physiotherapist physiotherapist = new BPC_Physiotherapist(BPC_IdGenerator.nextPhysiotherapistKey(),
+                name, address, phone, expertise, workingHours);
+        long logged;
+        int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapist.getKey());
+        try {
+            logged = log(() -> BPC_JournalRecords.physiotherapistAdded(physiotherapist));
+            expertiseIndex.add(physiotherapist);
+            listingIndex.physiotherapistAdded(physiotherapist);
+            physiotherapistSearch.add(physiotherapist);
+            physiotherapists.put(physiotherapist.getKey(), physiotherapist);
+        } finally {
+            physiotherapistLocks.unlock(physiotherapistStripes);
+        }
+        awaitLogged(logged);
+        return physiotherapist;
+    }
+
+    BPC_Physiotherapist restorePhysiotherapist(long key, String name, String address, String phone,
+                                               List<String> expertise, BPC_WorkingHours workingHours) {
+        BPC_Physiotherapist physiotherapist = new BPC_Physiotherapist(key, name, address, phone, expertise, workingHours);
+        physiotherapists.put(key, physiotherapist);
+        expertiseIndex.add(physiotherapist);
+        if (!loadingSnapshot) {
+            listingIndex.physiotherapistAdded(physiotherapist);
+            physiotherapistSearch.add(physiotherapist);
+        }
+        BPC_IdGenerator.advancePhysiotherapistCounter(key);
         return physiotherapist;
     }
 
+    public List<BPC_Physiotherapist> findPhysiotherapistsByExpertise(String expertise) {
+        List<BPC_Physiotherapist> result = new ArrayList<>();
+        for (long key : expertiseIndex.find(expertise)) {
+            result.add(physiotherapists.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * Finds patients as their name or phone number is typed, see {@link BPC_SearchIndex#search}.
+     * Deactivated patients are found too.
+     *
+     * @param limit Maximum number of patients to return
+     */
+    public List<BPC_Patient> searchPatients(String query, int limit) {
+        return patientSearch.search(query, limit);
+    }
+
+    // as searchPatients
+    public List<BPC_Physiotherapist> searchPhysiotherapists(String query, int limit) {
+        return physiotherapistSearch.search(query, limit);
+    }
+
+    /**
+     * Finds the earliest free slots for a treatment across all qualified physiotherapists.
+     * The physiotherapists' timetables are merged slot by slot, stopping once enough slots are found.
+     *
+     * @param treatmentName Treatment the physiotherapist must be qualified for
+     * @param from Earliest slot start (slots in the past are skipped)
+     * @param to Latest slot start (exclusive)
+     * @param limit Maximum number of slots to return
+     * @return free slots ordered by time, then by physiotherapist key
+     */
+    public List<BPC_AvailableSlot> findAvailableSlots(String treatmentName, LocalDateTime from, LocalDateTime to,
+                                                      int limit) {
+        if (treatmentName == null || from == null || to == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isBefore(now) ? now : from;
+
+        PriorityQueue<BPC_AvailableSlot> next = new PriorityQueue<>(
+                Comparator.comparing(BPC_AvailableSlot::getDateTime)
+                        .thenComparingLong(slot -> slot.getPhysiotherapist().getKey()));
+        for (long key : expertiseIndex.findQualified(treatmentName)) {
+            BPC_Physiotherapist physiotherapist = physiotherapists.get(key);
+            LocalDateTime slot = physiotherapist.getNextAvailableAppointment(start, to);
+            if (slot != null) {
+                next.add(new BPC_AvailableSlot(physiotherapist, slot));
+            }
+        }
+
+        List<BPC_AvailableSlot> result = new ArrayList<>();
+        while (result.size() < limit && !next.isEmpty()) {
+            BPC_AvailableSlot slot = next.poll();
+            result.add(slot);
+            // Slots are one hour long, so the physiotherapist's next one starts an hour later at the earliest
+            BPC_Physiotherapist physiotherapist = slot.getPhysiotherapist();
+            LocalDateTime following = physiotherapist.getNextAvailableAppointment(slot.getDateTime().plusHours(1), to);
+            if (following != null) {
+                next.add(new BPC_AvailableSlot(physiotherapist, following));
+            }
+        }
+        return result;
+    }
+
+    //snapshots
+
+    /**
+     * Writes a snapshot of the whole clinic and starts the journal again after it, so the
+     * next start loads the snapshot and replays only later changes. Changes wait meanwhile.
+     *
+     * @throws IOException if the snapshot or journal cannot be written
+     */
+    public void checkpoint(Path snapshotFile) throws IOException {
+        int[] physiotherapistStripes = physiotherapistLocks.lockAll();
+        int[] patientStripes = patientLocks.lockAll();
+        try {
+            BPC_Snapshot.write(this, generation + 1, snapshotFile);
+            generation++;
+            if (journal != null) {
+                journal.reset(BPC_JournalRecords.checkpoint(generation));
+            }
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
+        }
+    }
+
+    /**
+     * Starts a background task that takes a checkpoint at a fixed rate
+     */
+    public synchronized void startCheckpoints(Path snapshotFile, long period, TimeUnit unit) {
+        if (checkpoints != null) {
+            return;
+        }
+        checkpoints = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleAtFixedRate(() -> {
+            try {
+                checkpoint(snapshotFile);
+            } catch (IOException e) {
+                // the journal still holds every change, try again next time
+                System.err.println("Checkpoint failed: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stopCheckpoints() {
+        if (checkpoints != null) {
+            checkpoints.shutdownNow();
+            checkpoints = null;
+        }
+    }
+
+    //timetable maintenance
+    public void rolloverTimetables(LocalDate today) {
+        physiotherapists.forEachValue(physiotherapist -> physiotherapist.rolloverTimetable(today));
+    }
+
+    /**
+     * Starts a background task that drops past timetable weeks once an hour
+     */
+    public synchronized void startTimetableRollover() {
+        if (timetableRollover != null) {
+            return;
+        }
+        timetableRollover = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "timetable-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timetableRollover.scheduleAtFixedRate(() -> rolloverTimetables(LocalDate.now()), 0, 1, TimeUnit.HOURS);
+    }
+
+    public synchronized void stopTimetableRollover() {
+        if (timetableRollover != null) {
+            timetableRollover.shutdownNow();
+            timetableRollover = null;
+        }
+    }
+
     //booking management
     public BPC_Booking createBooking(String patientId, String physiotherapistId,
                                      String treatmentName, LocalDateTime dateTime) {
-        // Validate input parameters
-        if (patientId == null || physiotherapistId == null || treatmentName == null || dateTime == null) {
-            throw new IllegalArgumentException("All parameters must be non-null");
+        BPC_BookingCreateEvent event = new BPC_BookingCreateEvent();
+        event.begin();
+        long started = metrics.started();
+        Throwable failure = null;
+        BPC_Booking booking = null;
+        try {
+            // Validate input parameters
+            if (patientId == null || physiotherapistId == null || treatmentName == null || dateTime == null) {
+                throw rejected(BPC_RejectionReason.INVALID_REQUEST,
+                        new IllegalArgumentException("All parameters must be non-null"));
+            }
+
+            // Retrieve patient and physiotherapist
+            BPC_Patient patient = findPatient(patientId);
+            if (patient == null) {
+                throw rejected(BPC_RejectionReason.NOT_FOUND,
+                        new BPC_NotFoundException("Patient not found: " + patientId));
+            }
+
+            BPC_Physiotherapist physiotherapist = findPhysiotherapist(physiotherapistId);
+            if (physiotherapist == null) {
+                throw rejected(BPC_RejectionReason.NOT_FOUND,
+                        new BPC_NotFoundException("Physiotherapist not found: " + physiotherapistId));
+            }
+
+            // phases are only timed while a recording takes the event
+            booking = createBooking(patient, physiotherapist, treatmentName, dateTime, 0, null,
+                    event.isEnabled() ? event : null);
+            return booking;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.CREATE_BOOKING, started, failure == null);
+            if (event.finish()) {
+                event.record(booking == null ? null : booking.getId(), patientId, physiotherapistId, treatmentName,
+                        dateTime, failure);
+            }
         }
+    }
 
-        // Retrieve patient and physiotherapist
-        BPC_Patient patient = patients.get(patientId);
-        if (patient == null) {
-            throw new IllegalArgumentException("Patient not found: " + patientId);
+    // counts a request turned down for a reason, returning the exception to throw
+    private <E extends RuntimeException> E rejected(BPC_RejectionReason reason, E exception) {
+        metrics.rejected(reason);
+        return exception;
+    }
+
+    /**
+     * Books several sessions at once, all or none. The stripes of every physiotherapist and
+     * patient in the batch are locked once, each request is checked against the clinic and
+     * the requests before it, and the bookings are only made if every request passes. They are
+     * journaled as one record, so a restart restores all of them or none.
+     *
+     * @return one result per request, in order; if any request fails, none is booked
+     */
+    public List<BPC_BookingResult> createBookings(List<BPC_BookingRequest> requests) {
+        long started = metrics.started();
+        Throwable failure = null;
+        try {
+            return bookAll(requests);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.CREATE_BOOKINGS, started, failure == null);
         }
+    }
 
-        if (!patient.isActive()) {
-            throw new IllegalStateException("Cannot create booking for inactive patient");
+    private List<BPC_BookingResult> bookAll(List<BPC_BookingRequest> requests) {
+        int count = requests.size();
+        String[] errors = new String[count];
+        BPC_Patient[] batchPatients = new BPC_Patient[count];
+        BPC_Physiotherapist[] batchPhysiotherapists = new BPC_Physiotherapist[count];
+        long[] patientKeys = new long[count];
+        long[] physiotherapistKeys = new long[count];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            BPC_BookingRequest request = requests.get(i);
+            if (request.getPatientId() == null || request.getPhysiotherapistId() == null
+                    || request.getTreatmentName() == null || request.getDateTime() == null) {
+                errors[i] = "All parameters must be non-null";
+                metrics.rejected(BPC_RejectionReason.INVALID_REQUEST);
+                continue;
+            }
+            batchPatients[i] = patients.get(BPC_IdGenerator.parsePatientKey(request.getPatientId()));
+            batchPhysiotherapists[i] = physiotherapists.get(
+                    BPC_IdGenerator.parsePhysiotherapistKey(request.getPhysiotherapistId()));
+            if (batchPatients[i] == null) {
+                errors[i] = "Patient not found: " + request.getPatientId();
+                metrics.rejected(BPC_RejectionReason.NOT_FOUND);
+            } else if (batchPhysiotherapists[i] == null) {
+                errors[i] = "Physiotherapist not found: " + request.getPhysiotherapistId();
+                metrics.rejected(BPC_RejectionReason.NOT_FOUND);
+            } else {
+                patientKeys[found] = batchPatients[i].getKey();
+                physiotherapistKeys[found++] = batchPhysiotherapists[i].getKey();
+            }
         }
 
-        BPC_Physiotherapist physiotherapist = physiotherapists.get(physiotherapistId);
-        if (physiotherapist == null) {
-            throw new IllegalArgumentException("Physiotherapist not found: " + physiotherapistId);
+        List<BPC_BookingResult> results = new ArrayList<>(count);
+        long logged = 0;
+        int[] physiotherapistStripes = physiotherapistLocks.lock(Arrays.copyOf(physiotherapistKeys, found));
+        int[] patientStripes = patientLocks.lock(Arrays.copyOf(patientKeys, found));
+        try {
+            // slots taken by earlier requests of the batch
+            Map<BPC_Physiotherapist, Set<LocalDateTime>> physiotherapistSlots = new HashMap<>();
+            Map<BPC_Patient, Set<LocalDateTime>> patientSlots = new HashMap<>();
+            BPC_Treatment[] treatments = new BPC_Treatment[count];
+            boolean valid = true;
+            for (int i = 0; i < count; i++) {
+                if (errors[i] != null) {
+                    valid = false;
+                    continue;
+                }
+                BPC_BookingRequest request = requests.get(i);
+                BPC_Patient patient = batchPatients[i];
+                BPC_Physiotherapist physiotherapist = batchPhysiotherapists[i];
+                LocalDateTime dateTime = request.getDateTime();
+                try {
+                    checkBookable(patient, physiotherapist, request.getTreatmentName(), dateTime);
+                    Set<LocalDateTime> takenByBatch = physiotherapistSlots.computeIfAbsent(physiotherapist,
+                            key -> new HashSet<>());
+                    if (takenByBatch.contains(dateTime)) {
+                        throw rejected(BPC_RejectionReason.SLOT_UNAVAILABLE,
+                                new BPC_ConflictException("Physiotherapist is not available at this time"));
+                    }
+                    Set<LocalDateTime> patientBatch = patientSlots.computeIfAbsent(patient, key -> new HashSet<>());
+                    if (patient.hasBookingAt(dateTime) || patientBatch.contains(dateTime)) {
+                        throw rejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED,
+                                new BPC_ConflictException("Patient already has a booking at this time"));
+                    }
+                    treatments[i] = newTreatment(request.getTreatmentName(), physiotherapist, dateTime);
+                    takenByBatch.add(dateTime);
+                    patientBatch.add(dateTime);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    errors[i] = e.getMessage();
+                    valid = false;
+                }
+            }
+
+            if (!valid) {
+                for (int i = 0; i < count; i++) {
+                    results.add(BPC_BookingResult.rejected(requests.get(i),
+                            errors[i] != null ? errors[i] : "Not booked, another request in the batch failed"));
+                }
+            } else if (count > 0) {
+                // every check passed with all stripes held, the batch is journaled before anything changes
+                long[] keys = new long[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = BPC_IdGenerator.nextBookingKey();
+                }
+                LocalDateTime bookingTime = LocalDateTime.now();
+                logged = log(() -> BPC_JournalRecords.bookingsCreated(keys, batchPatients, treatments, bookingTime));
+                for (int i = 0; i < count; i++) {
+                    BPC_Booking booking = new BPC_Booking(keys[i], batchPatients[i], treatments[i], bookingTime);
+                    batchPatients[i].addBooking(booking);
+                    bookings.put(booking.getKey(), booking);
+                    reportAggregates.bookingCreated(booking);
+                    indexBooking(booking);
+                    bookingChanges.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+                    results.add(BPC_BookingResult.booked(requests.get(i), booking));
+                }
+            }
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
         }
+        // one wait for the whole batch
+        awaitLogged(logged);
+        return results;
+    }
 
-        if (!physiotherapist.isActive()) {
-            throw new IllegalStateException("Physiotherapist is not active");
+    //recurring series
+
+    /**
+     * Books every session of a recurring series with one physiotherapist, all or none.
+     * The patient's and physiotherapist's stripes are locked once, and all slots are
+     * checked in one pass over the physiotherapist's timetable before any is booked.
+     *
+     * @throws BPC_NotFoundException if an entity is not found
+     * @throws IllegalArgumentException if the treatment is not valid for the physiotherapist or a
+     *         session is in the past
+     * @throws BPC_ConflictException if an entity is not active, a slot is not available or the
+     *         patient already has a booking at one
+     */
+    public BPC_BookingSeries createBookingSeries(String patientId, String physiotherapistId, String treatmentName,
+                                                 BPC_Recurrence recurrence) {
+        long started = metrics.started();
+        Throwable failure = null;
+        try {
+            return bookSeries(patientId, physiotherapistId, treatmentName, recurrence);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.CREATE_BOOKING_SERIES, started, failure == null);
         }
+    }
 
-        if (!physiotherapist.isAvailable(dateTime)) {
-            throw new IllegalStateException("Physiotherapist is not available at this time");
+    private BPC_BookingSeries bookSeries(String patientId, String physiotherapistId, String treatmentName,
+                                         BPC_Recurrence recurrence) {
+        if (patientId == null || physiotherapistId == null || treatmentName == null || recurrence == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
         }
+        BPC_JournalRecords.checkText(treatmentName);
+        BPC_Patient patient = getPatient(patientId);
+        BPC_Physiotherapist physiotherapist = findPhysiotherapist(physiotherapistId);
+        if (physiotherapist == null) {
+            throw new BPC_NotFoundException("Physiotherapist not found: " + physiotherapistId);
+        }
+        List<LocalDateTime> dateTimes = recurrence.expand();
 
-        // Check if treatment name is valid for this physiotherapist
-        boolean validTreatment = physiotherapist.getExpertise().stream()
-                .anyMatch(expertise ->
-                        treatmentName.toLowerCase().contains(expertise.toLowerCase()) ||
-                                expertise.toLowerCase().contains(treatmentName.toLowerCase()));
+        BPC_BookingSeries created;
+        long logged;
+        int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapist.getKey());
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            if (!patient.isActive()) {
+                throw new BPC_ConflictException("Cannot create booking for inactive patient");
+            }
+            if (!physiotherapist.isActive()) {
+                throw new BPC_ConflictException("Physiotherapist is not active");
+            }
+            if (!expertiseIndex.isQualified(physiotherapist.getKey(), treatmentName)) {
+                throw new IllegalArgumentException("The treatment is not valid for this physiotherapist's expertise");
+            }
+            int unavailable = physiotherapist.firstUnavailableAppointment(dateTimes);
+            if (unavailable >= 0) {
+                throw new BPC_ConflictException("Physiotherapist is not available at " + dateTimes.get(unavailable));
+            }
+            List<BPC_Treatment> treatments = new ArrayList<>(dateTimes.size());
+            for (LocalDateTime dateTime : dateTimes) {
+                if (patient.hasBookingAt(dateTime)) {
+                    throw new BPC_ConflictException("Patient already has a booking at " + dateTime);
+                }
+                treatments.add(new BPC_Treatment(treatmentName, physiotherapist, dateTime));
+            }
 
-        if (!validTreatment) {
-            throw new IllegalArgumentException("The treatment is not valid for this physiotherapist's expertise");
+            // journaled before anything changes
+            long[] keys = new long[treatments.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = BPC_IdGenerator.nextBookingKey();
+            }
+            long seriesKey = BPC_IdGenerator.nextSeriesKey();
+            LocalDateTime bookingTime = LocalDateTime.now();
+            logged = log(() -> BPC_JournalRecords.seriesCreated(seriesKey, patient, recurrence.getIntervalWeeks(), keys,
+                    treatments, bookingTime));
+            List<BPC_Booking> sessions = new ArrayList<>(treatments.size());
+            for (int i = 0; i < keys.length; i++) {
+                BPC_Booking booking = new BPC_Booking(keys[i], patient, treatments.get(i), bookingTime);
+                patient.addBooking(booking);
+                bookings.put(booking.getKey(), booking);
+                reportAggregates.bookingCreated(booking);
+                indexBooking(booking);
+                bookingChanges.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+                sessions.add(booking);
+            }
+            created = new BPC_BookingSeries(seriesKey, patient, recurrence.getIntervalWeeks(), sessions);
+            series.put(created.getKey(), created);
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
         }
-        String bookingId = BPC_IdGenerator.generateBookingId();
-        BPC_Treatment treatment = new BPC_Treatment(treatmentName, physiotherapist, dateTime);
-        BPC_Booking booking = new BPC_Booking(bookingId, patient, treatment);
+        awaitLogged(logged);
+        return created;
+    }
 
-        patient.addBooking(booking);
-        bookings.put(bookingId, booking);
+    void restoreSeries(long key, BPC_Patient patient, int intervalWeeks, List<BPC_Booking> sessions) {
+        series.put(key, new BPC_BookingSeries(key, patient, intervalWeeks, sessions));
+        BPC_IdGenerator.advanceSeriesCounter(key);
+    }
 
-        return booking;
+    /**
+     * Cancels every session of a series that is still booked, all at once
+     *
+     * @throws BPC_NotFoundException if the series is not found
+     * @throws BPC_ConflictException if no session is booked any more
+     */
+    public void cancelBookingSeries(String seriesId) {
+        long started = metrics.started();
+        Throwable failure = null;
+        try {
+            cancelSeries(seriesId);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.CANCEL_BOOKING_SERIES, started, failure == null);
+        }
     }
 
-    public void cancelBooking(String bookingId) {
-        BPC_Booking booking = bookings.get(bookingId);
-        booking.cancelBooking();
+    private void cancelSeries(String seriesId) {
+        BPC_BookingSeries bookingSeries = getSeries(seriesId);
+        long logged = 0;
+        while (true) {
+            List<BPC_Booking> active = bookingSeries.getActiveBookings();
+            if (active.isEmpty()) {
+                throw new BPC_ConflictException("No booked sessions left in series " + seriesId);
+            }
+            BPC_Physiotherapist[] current = physiotherapistsOf(active);
+            int[] physiotherapistStripes = physiotherapistLocks.lock(keysOf(current));
+            int[] patientStripes = patientLocks.lock(bookingSeries.getPatient().getKey());
+            try {
+                // Retry if a session was changed before we got the locks
+                if (!unchanged(active, current)) {
+                    continue;
+                }
+                logged = log(() -> BPC_JournalRecords.seriesCancelled(bookingSeries, active));
+                for (BPC_Booking booking : active) {
+                    booking.cancelBooking();
+                    bookingChanges.publish(BPC_BookingChangeType.CANCELLED, booking, null, null);
+                }
+                break;
+            } finally {
+                patientLocks.unlock(patientStripes);
+                physiotherapistLocks.unlock(physiotherapistStripes);
+            }
+        }
+        awaitLogged(logged);
     }
 
-    public void attendBooking(String bookingId) {
-        BPC_Booking booking = bookings.get(bookingId);
-        booking.attend();
+    /**
+     * Moves every session of a series that is still booked to a physiotherapist and a new run of
+     * times, starting at the given time and keeping the series' interval, all or none.
+     * Slots held by the series itself may be reused.
+     *
+     * @throws BPC_NotFoundException if the series or physiotherapist is not found
+     * @throws IllegalArgumentException if the treatment is not valid or a session would be in the past
+     * @throws BPC_ConflictException if no session is booked any more, a slot is not available or the
+     *         patient already has a booking at one
+     */
+    public void modifyBookingSeries(String seriesId, String physiotherapistId, String treatmentName,
+                                    LocalDateTime firstDateTime) {
+        long started = metrics.started();
+        Throwable failure = null;
+        try {
+            moveSeries(seriesId, physiotherapistId, treatmentName, firstDateTime);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.MODIFY_BOOKING_SERIES, started, failure == null);
+        }
     }
 
-    public void modifyBooking(String bookingId, String physiotherapistId, String treatmentName, LocalDateTime dateTime) {
-        BPC_Booking booking = getBooking(bookingId);
+    private void moveSeries(String seriesId, String physiotherapistId, String treatmentName,
+                            LocalDateTime firstDateTime) {
+        if (treatmentName == null || firstDateTime == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        BPC_JournalRecords.checkText(treatmentName);
+        BPC_BookingSeries bookingSeries = getSeries(seriesId);
         BPC_Physiotherapist physiotherapist = getPhysiotherapist(physiotherapistId);
+        BPC_Patient patient = bookingSeries.getPatient();
+        long logged = 0;
+        while (true) {
+            List<BPC_Booking> active = bookingSeries.getActiveBookings();
+            if (active.isEmpty()) {
+                throw new BPC_ConflictException("No booked sessions left in series " + seriesId);
+            }
+            BPC_Physiotherapist[] current = physiotherapistsOf(active);
+            long[] physiotherapistKeys = Arrays.copyOf(keysOf(current), current.length + 1);
+            physiotherapistKeys[current.length] = physiotherapist.getKey();
+            int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapistKeys);
+            int[] patientStripes = patientLocks.lock(patient.getKey());
+            try {
+                if (!unchanged(active, current)) {
+                    continue;
+                }
+                if (!physiotherapist.isActive()) {
+                    throw new BPC_ConflictException("Physiotherapist is not active");
+                }
+                if (!expertiseIndex.isQualified(physiotherapist.getKey(), treatmentName)) {
+                    throw new IllegalArgumentException("The treatment is not valid for this physiotherapist's expertise");
+                }
+                // times the sessions hold now, their slots are free for the series to reuse
+                Set<LocalDateTime> held = new HashSet<>();
+                Map<LocalDateTime, BPC_Physiotherapist> heldWith = new HashMap<>();
+                for (BPC_Booking booking : active) {
+                    held.add(booking.getTreatment().getDateTime());
+                    heldWith.put(booking.getTreatment().getDateTime(), booking.getTreatment().getPhysiotherapist());
+                }
+                List<BPC_Treatment> treatments = new ArrayList<>(active.size());
+                for (int i = 0; i < active.size(); i++) {
+                    LocalDateTime dateTime = firstDateTime.plusWeeks((long) i * bookingSeries.getIntervalWeeks());
+                    boolean ownSlot = heldWith.get(dateTime) == physiotherapist;
+                    if (!ownSlot && !physiotherapist.isAvailable(dateTime)) {
+                        throw new BPC_ConflictException("Physiotherapist is not available at " + dateTime);
+                    }
+                    if (!held.contains(dateTime) && patient.hasBookingAt(dateTime)) {
+                        throw new BPC_ConflictException("Patient already has a booking at " + dateTime);
+                    }
+                    treatments.add(new BPC_Treatment(treatmentName, physiotherapist, dateTime));
+                }
 
-        if (!physiotherapist.isAvailable(dateTime)) {
-            throw new IllegalStateException("Physiotherapist is not available at this time");
+                // A session can only move to a time another session still holds once that one has moved.
+                // Old and new times are both ascending, so these waits never form a cycle.
+                List<BPC_Booking> sessions = new ArrayList<>(active.size());
+                List<BPC_Treatment> moves = new ArrayList<>(active.size());
+                List<Integer> pending = new ArrayList<>();
+                for (int i = 0; i < active.size(); i++) {
+                    pending.add(i);
+                }
+                while (!pending.isEmpty()) {
+                    int waiting = pending.size();
+                    Iterator<Integer> next = pending.iterator();
+                    while (next.hasNext()) {
+                        int i = next.next();
+                        LocalDateTime from = active.get(i).getTreatment().getDateTime();
+                        LocalDateTime to = treatments.get(i).getDateTime();
+                        if (held.contains(to) && !from.equals(to)) {
+                            continue;
+                        }
+                        held.remove(from);
+                        sessions.add(active.get(i));
+                        moves.add(treatments.get(i));
+                        next.remove();
+                    }
+                    if (pending.size() == waiting) {
+                        throw new BPC_ConflictException("Sessions of series " + seriesId + " block each other");
+                    }
+                }
+                logged = log(() -> BPC_JournalRecords.seriesModified(bookingSeries, sessions, moves));
+                moveSessions(sessions, moves);
+                break;
+            } finally {
+                patientLocks.unlock(patientStripes);
+                physiotherapistLocks.unlock(physiotherapistStripes);
+            }
         }
-        BPC_Treatment newTreatment = new BPC_Treatment(treatmentName, physiotherapist, dateTime);
-        booking.changeBooking(newTreatment);
+        awaitLogged(logged);
     }
 
-    //report functionality
-    public Map<BPC_Physiotherapist, List<BPC_Booking>> getPhysiotherapistBookings(){
-        return bookings.values().stream()
-                .collect(Collectors.groupingBy(booking -> booking.getTreatment().getPhysiotherapist()));
+    // moves the sessions of a series in order, each to its treatment
+    private void moveSessions(List<BPC_Booking> sessions, List<BPC_Treatment> treatments) {
+        for (int i = 0; i < sessions.size(); i++) {
+            BPC_Booking booking = sessions.get(i);
+            LocalDateTime from = booking.getTreatment().getDateTime();
+            BPC_Physiotherapist previous = booking.getTreatment().getPhysiotherapist();
+            booking.changeBooking(treatments.get(i));
+            reportAggregates.bookingMoved(booking, previous);
+            reindexBooking(booking, from, previous);
+            bookingChanges.publish(BPC_BookingChangeType.MODIFIED, booking, previous, from);
+        }
     }
 
-    public List<Map.Entry<BPC_Physiotherapist, Long>> getPhysiotherapistByAttendedBookings(){
-        Map<BPC_Physiotherapist, Long> attendedCounts = bookings.values().stream()
-                .filter(b -> b.getStatus() == BPC_BookingStatus.ATTENDED)
-                .collect(Collectors.groupingBy(b -> b.getTreatment().getPhysiotherapist(), Collectors.counting()));
+    // the times were checked when the series was moved, and the sessions may reuse their own slots
+    void restoreSeriesMove(List<BPC_Booking> sessions, BPC_Physiotherapist physiotherapist, String treatmentName,
+                           List<LocalDateTime> dateTimes) {
+        List<BPC_Treatment> treatments = new ArrayList<>(dateTimes.size());
+        for (LocalDateTime dateTime : dateTimes) {
+            treatments.add(newTreatment(treatmentName, physiotherapist, dateTime));
+        }
+        moveSessions(sessions, treatments);
+    }
 
-        // Add .reversed() to sort in descending order
-        return attendedCounts.entrySet().stream()
-                .sorted(Map.Entry.<BPC_Physiotherapist, Long>comparingByValue().reversed())
-                .collect(Collectors.toList());
+    private static BPC_Physiotherapist[] physiotherapistsOf(List<BPC_Booking> sessions) {
+        BPC_Physiotherapist[] result = new BPC_Physiotherapist[sessions.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sessions.get(i).getTreatment().getPhysiotherapist();
+        }
+        return result;
     }
 
+    private static long[] keysOf(BPC_Physiotherapist[] physiotherapists) {
+        long[] keys = new long[physiotherapists.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = physiotherapists[i].getKey();
+        }
+        return keys;
+    }
 
-    public String generateReport(){
-        StringBuilder report = new StringBuilder();
-        report.append("BOOST PHYSIO CLINIC - REPORT\n");
-        report.append("==============================\n\n");
+    // true if no session was moved to another physiotherapist or closed since they were read
+    private static boolean unchanged(List<BPC_Booking> sessions, BPC_Physiotherapist[] physiotherapists) {
+        for (int i = 0; i < physiotherapists.length; i++) {
+            BPC_Booking booking = sessions.get(i);
+            if (booking.getTreatment().getPhysiotherapist() != physiotherapists[i]
+                    || booking.getStatus() != BPC_BookingStatus.BOOKED) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // List all treatment appointments for each physiotherapist
-        report.append("APPOINTMENTS BY PHYSIOTHERAPIST\n");
-        report.append("------------------------------\n");
-        Map<BPC_Physiotherapist, List<BPC_Booking>> physioBookings = getPhysiotherapistBookings();
+    void restoreBooking(long bookingKey, long patientKey, long physiotherapistKey, String treatmentName,
+                        LocalDateTime dateTime, LocalDateTime bookingTime) {
+        createBooking(patientByKey(patientKey), physiotherapistByKey(physiotherapistKey), treatmentName, dateTime,
+                bookingKey, bookingTime, null);
+        BPC_IdGenerator.advanceBookingCounter(bookingKey);
+    }
 
-        for (Map.Entry<BPC_Physiotherapist, List<BPC_Booking>> entry : physioBookings.entrySet()) {
-            BPC_Physiotherapist physio = entry.getKey();
-            List<BPC_Booking> appointments = entry.getValue();
+    /**
+     * Books a slot for a patient
+     *
+     * @param bookingKey Key of a restored booking, 0 for a new booking
+     * @param bookingTime When a restored booking was made, null for a new booking
+     * @param event Event to time the phases of the booking in, null if they are not timed
+     */
+    private BPC_Booking createBooking(BPC_Patient patient, BPC_Physiotherapist physiotherapist, String treatmentName,
+                                      LocalDateTime dateTime, long bookingKey, LocalDateTime bookingTime,
+                                      BPC_BookingCreateEvent event) {
+        BPC_Booking booking;
+        long logged;
+        if (event != null) {
+            event.startPhase();
+        }
+        int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapist.getKey());
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            if (event != null) {
+                event.lockWait = event.endPhase();
+            }
+            checkBookable(patient, physiotherapist, treatmentName, dateTime);
+            if (patient.hasBookingAt(dateTime)) {
+                throw rejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED,
+                        new BPC_ConflictException("Patient already has a booking at this time"));
+            }
+            long key = bookingKey != 0 ? bookingKey : BPC_IdGenerator.nextBookingKey();
+            BPC_Treatment treatment = newTreatment(treatmentName, physiotherapist, dateTime);
+            LocalDateTime time = bookingTime != null ? bookingTime : LocalDateTime.now();
+            // Journaled before anything changes, so a failed write leaves no booking behind
+            logged = log(() -> BPC_JournalRecords.bookingCreated(key, patient, treatment, time));
+            if (event != null) {
+                event.validation = event.endPhase();
+            }
+            booking = new BPC_Booking(key, patient, treatment, time);
+            addToPatient(patient, booking);
+            if (event != null) {
+                event.timetableUpdate = event.endPhase();
+            }
+            bookings.put(key, booking);
+            reportAggregates.bookingCreated(booking);
+            indexBooking(booking);
+            bookingChanges.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
+        }
+        if (event != null) {
+            event.registration = event.endPhase();
+        }
+        awaitLogged(logged);
+        if (event != null) {
+            event.journalWait = event.endPhase();
+        }
+        return booking;
+    }
 
-            report.append(String.format("%s (%s)\n", physio.getName(), physio.getId()));
+    private void checkBookable(BPC_Patient patient, BPC_Physiotherapist physiotherapist, String treatmentName,
+                               LocalDateTime dateTime) {
+        checkBookable(patient, physiotherapist, treatmentName, dateTime, false);
+    }
 
-            if (appointments.isEmpty()) {
-                report.append("  No appointments\n");
-            } else {
-                for (BPC_Booking booking : appointments) {
-                    report.append(String.format("  %s | %s | %s | %s | %s\n",
-                            booking.getId(),
-                            booking.getTreatment().getDateTime().toString(),
-                            booking.getTreatment().getName(),
-                            booking.getPatient().getName(),
-                            booking.getStatus()
-                    ));
+    // a historical booking may take a slot in a week that has been rolled over
+    private void checkBookable(BPC_Patient patient, BPC_Physiotherapist physiotherapist, String treatmentName,
+                               LocalDateTime dateTime, boolean historical) {
+        if (!patient.isActive()) {
+            throw rejected(BPC_RejectionReason.INACTIVE_PATIENT,
+                    new BPC_ConflictException("Cannot create booking for inactive patient"));
+        }
+
+        if (!physiotherapist.isActive()) {
+            throw rejected(BPC_RejectionReason.INACTIVE_PHYSIOTHERAPIST,
+                    new BPC_ConflictException("Physiotherapist is not active"));
+        }
+
+        if (!(historical ? physiotherapist.isAvailableToRestore(dateTime) : physiotherapist.isAvailable(dateTime))) {
+            throw rejected(BPC_RejectionReason.SLOT_UNAVAILABLE,
+                    new BPC_ConflictException("Physiotherapist is not available at this time"));
+        }
+
+        // Check if treatment name is valid for this physiotherapist
+        if (!expertiseIndex.isQualified(physiotherapist.getKey(), treatmentName)) {
+            throw rejected(BPC_RejectionReason.EXPERTISE_MISMATCH,
+                    new IllegalArgumentException("The treatment is not valid for this physiotherapist's expertise"));
+        }
+    }
+
+    private void addToPatient(BPC_Patient patient, BPC_Booking booking) {
+        try {
+            patient.addBooking(booking);
+        } catch (IllegalArgumentException e) {
+            // Give the slot back if the patient cannot take this booking
+            booking.getTreatment().markAsUnbooked();
+            throw rejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED, new BPC_ConflictException(e));
+        }
+    }
+
+    public void cancelBooking(String bookingId) {
+        BPC_BookingCancelEvent event = new BPC_BookingCancelEvent();
+        event.begin();
+        long started = metrics.started();
+        Throwable failure = null;
+        BPC_Booking booking = null;
+        try {
+            booking = getBooking(bookingId);
+            cancelBooking(booking);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.CANCEL_BOOKING, started, failure == null);
+            if (event.finish()) {
+                event.record(bookingId, physiotherapistId(booking), failure);
+            }
+        }
+    }
+
+    private static String physiotherapistId(BPC_Booking booking) {
+        return booking == null ? null : booking.getTreatment().getPhysiotherapist().getId();
+    }
+
+    void cancelBooking(BPC_Booking booking) {
+        long logged;
+        while (true) {
+            BPC_Physiotherapist physiotherapist = booking.getTreatment().getPhysiotherapist();
+            int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapist.getKey());
+            int[] patientStripes = patientLocks.lock(booking.getPatient().getKey());
+            try {
+                // Retry if the booking was moved to another physiotherapist before we got the lock
+                if (booking.getTreatment().getPhysiotherapist() == physiotherapist) {
+                    checkBooked(booking);
+                    logged = log(() -> BPC_JournalRecords.bookingCancelled(booking));
+                    booking.cancelBooking();
+                    bookingChanges.publish(BPC_BookingChangeType.CANCELLED, booking, null, null);
+                    break;
                 }
+            } finally {
+                patientLocks.unlock(patientStripes);
+                physiotherapistLocks.unlock(physiotherapistStripes);
+            }
+        }
+        awaitLogged(logged);
+    }
+
+    // checked before a change is journaled, as the booking itself only checks while it changes
+    private void checkBooked(BPC_Booking booking) {
+        if (booking.getStatus() != BPC_BookingStatus.BOOKED) {
+            throw rejected(BPC_RejectionReason.NOT_BOOKED,
+                    new BPC_ConflictException("Booking is not in " + BPC_BookingStatus.BOOKED + " state"));
+        }
+    }
+
+    public void attendBooking(String bookingId) {
+        BPC_BookingAttendEvent event = new BPC_BookingAttendEvent();
+        event.begin();
+        long started = metrics.started();
+        Throwable failure = null;
+        BPC_Booking booking = null;
+        try {
+            booking = getBooking(bookingId);
+            attendBooking(booking);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.ATTEND_BOOKING, started, failure == null);
+            if (event.finish()) {
+                event.record(bookingId, physiotherapistId(booking), failure);
+            }
+        }
+    }
+
+    void attendBooking(BPC_Booking booking) {
+        long logged;
+        while (true) {
+            BPC_Physiotherapist physiotherapist = booking.getTreatment().getPhysiotherapist();
+            int[] physiotherapistStripes = physiotherapistLocks.lock(physiotherapist.getKey());
+            int[] patientStripes = patientLocks.lock(booking.getPatient().getKey());
+            try {
+                if (booking.getTreatment().getPhysiotherapist() == physiotherapist) {
+                    checkBooked(booking);
+                    logged = log(() -> BPC_JournalRecords.bookingAttended(booking));
+                    booking.attend();
+                    reportAggregates.bookingAttended(booking);
+                    bookingChanges.publish(BPC_BookingChangeType.ATTENDED, booking, null, null);
+                    break;
+                }
+            } finally {
+                patientLocks.unlock(patientStripes);
+                physiotherapistLocks.unlock(physiotherapistStripes);
+            }
+        }
+        awaitLogged(logged);
+    }
+
+    public void modifyBooking(String bookingId, String physiotherapistId, String treatmentName, LocalDateTime dateTime) {
+        BPC_BookingModifyEvent event = new BPC_BookingModifyEvent();
+        event.begin();
+        long started = metrics.started();
+        Throwable failure = null;
+        BPC_Physiotherapist previous = null;
+        try {
+            BPC_Booking booking = getBooking(bookingId);
+            previous = booking.getTreatment().getPhysiotherapist();
+            modifyBooking(booking, getPhysiotherapist(physiotherapistId), treatmentName, dateTime);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.MODIFY_BOOKING, started, failure == null);
+            if (event.finish()) {
+                event.previousPhysiotherapistId = previous == null ? null : previous.getId();
+                event.appointment = dateTime == null ? null : dateTime.toString();
+                event.record(bookingId, physiotherapistId, failure);
             }
-            report.append("\n");
         }
-        // List physiotherapists by number of attended appointments
-        report.append("PHYSIOTHERAPISTS BY ATTENDED APPOINTMENTS\n");
-        report.append("----------------------------------------\n");
-        List<Map.Entry<BPC_Physiotherapist, Long>> ranked = getPhysiotherapistByAttendedBookings();
+    }
 
-        for (Map.Entry<BPC_Physiotherapist, Long> entry : ranked) {
-            report.append(String.format("%s (%s): %d attended appointments\n",
-                    entry.getKey().getName(),
-                    entry.getKey().getId(),
-                    entry.getValue()
-            ));
+    void modifyBooking(BPC_Booking booking, BPC_Physiotherapist physiotherapist, String treatmentName,
+                       LocalDateTime dateTime) {
+        long logged;
+        while (true) {
+            BPC_Physiotherapist current = booking.getTreatment().getPhysiotherapist();
+            // Both physiotherapists are locked in one call so the stripe order is fixed
+            int[] physiotherapistStripes = physiotherapistLocks.lock(current.getKey(), physiotherapist.getKey());
+            int[] patientStripes = patientLocks.lock(booking.getPatient().getKey());
+            try {
+                if (booking.getTreatment().getPhysiotherapist() != current) {
+                    continue;
+                }
+                if (!physiotherapist.isAvailable(dateTime)) {
+                    throw rejected(BPC_RejectionReason.SLOT_UNAVAILABLE,
+                            new BPC_ConflictException("Physiotherapist is not available at this time"));
+                }
+                BPC_Treatment newTreatment = newTreatment(treatmentName, physiotherapist, dateTime);
+                LocalDateTime from = booking.getTreatment().getDateTime();
+                checkBooked(booking);
+                // the patient's booking at this time may only be this one
+                if (!from.equals(dateTime) && booking.getPatient().hasBookingAt(dateTime)) {
+                    throw rejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED,
+                            new BPC_ConflictException("Patient already has a booking at this time"));
+                }
+                logged = log(() -> BPC_JournalRecords.bookingModified(booking, newTreatment));
+                booking.changeBooking(newTreatment);
+                reportAggregates.bookingMoved(booking, current);
+                reindexBooking(booking, from, current);
+                bookingChanges.publish(BPC_BookingChangeType.MODIFIED, booking, current, from);
+                break;
+            } finally {
+                patientLocks.unlock(patientStripes);
+                physiotherapistLocks.unlock(physiotherapistStripes);
+            }
         }
+        awaitLogged(logged);
+    }
+
+    //report functionality
+    public Map<BPC_Physiotherapist, List<BPC_Booking>> getPhysiotherapistBookings(){
+        return reportAggregates.getBookingsByPhysiotherapist();
+    }
+
+    public List<Map.Entry<BPC_Physiotherapist, Long>> getPhysiotherapistByAttendedBookings(){
+        return reportAggregates.getAttendedRanking();
+    }
 
+    public String generateReport(){
+        StringBuilder report = new StringBuilder();
+        try {
+            writeReport(report);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
         return report.toString();
     }
 
+    /**
+     * Streams the report to a StringBuilder, Writer or any other Appendable
+     */
+    public void writeReport(Appendable out) throws IOException {
+        BPC_ReportEvent event = new BPC_ReportEvent();
+        event.begin();
+        long started = metrics.started();
+        Throwable failure = null;
+        try {
+            new BPC_ReportWriter(out).write(reportAggregates);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.finished(BPC_Operation.GENERATE_REPORT, started, failure == null);
+            event.end();
+            if (event.shouldCommit()) {
+                event.physiotherapists = physiotherapists.size();
+                event.outcome = BPC_BookingEvent.outcome(failure);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Streams the report as UTF-8 to a channel, such as a FileChannel
+     */
+    public void writeReport(WritableByteChannel channel) throws IOException {
+        Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        writeReport(out);
+        out.flush();
+    }
+
     private BPC_Physiotherapist getPhysiotherapist(String physiotherapistId) {
-        BPC_Physiotherapist physiotherapist = physiotherapists.get(physiotherapistId);
+        BPC_Physiotherapist physiotherapist = findPhysiotherapist(physiotherapistId);
         if (physiotherapist == null) {
-            throw new IllegalArgumentException("Physiotherapist not found: " + physiotherapistId);
+            throw rejected(BPC_RejectionReason.NOT_FOUND,
+                    new BPC_NotFoundException("Physiotherapist not found: " + physiotherapistId));
         }
         if (!physiotherapist.isActive()) {
-            throw new IllegalArgumentException("Physiotherapist is not active: " + physiotherapistId);
+            throw rejected(BPC_RejectionReason.INACTIVE_PHYSIOTHERAPIST,
+                    new BPC_ConflictException("Physiotherapist is not active: " + physiotherapistId));
         }
         return physiotherapist;
     }
 
+    private BPC_Patient getPatient(String patientId) {
+        BPC_Patient patient = findPatient(patientId);
+        if (patient == null) {
+            throw rejected(BPC_RejectionReason.NOT_FOUND,
+                    new BPC_NotFoundException("Patient not found: " + patientId));
+        }
+        return patient;
+    }
+
+    private BPC_BookingSeries getSeries(String seriesId) {
+        BPC_BookingSeries bookingSeries = findBookingSeries(seriesId);
+        if (bookingSeries == null) {
+            throw rejected(BPC_RejectionReason.NOT_FOUND,
+                    new BPC_NotFoundException("Booking series not found: " + seriesId));
+        }
+        return bookingSeries;
+    }
+
     private BPC_Booking getBooking(String bookingId) {
-        BPC_Booking booking = bookings.get(bookingId);
+        BPC_Booking booking = findBooking(bookingId);
         if (booking == null) {
-            throw new IllegalArgumentException("Booking not found" + bookingId);
+            throw rejected(BPC_RejectionReason.NOT_FOUND,
+                    new BPC_NotFoundException("Booking not found: " + bookingId));
+        }
+        return booking;
+    }
+
+    //bulk import, see BPC_CsvImporter
+
+    /**
+     * Runs an import with every stripe locked, so no other change interleaves with it,
+     * then waits until everything it journaled is durable
+     */
+    void importExclusively(Runnable task) {
+        int[] physiotherapistStripes = physiotherapistLocks.lockAll();
+        int[] patientStripes = patientLocks.lockAll();
+        importLogged = 0;
+        try {
+            task.run();
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
+        }
+        awaitLogged(importLogged);
+    }
+
+    // the import methods below are only called by a task passed to importExclusively,
+    // a journal failure in any of them is thrown on to end the import
+
+    // listed and searchable once indexImported is called
+    void importPatient(BPC_Patient patient) {
+        importLogged = log(() -> BPC_JournalRecords.patientAdded(patient));
+        patients.put(patient.getKey(), patient);
+    }
+
+    // qualified for bookings at once, listed and searchable once indexImported is called
+    void importPhysiotherapist(BPC_Physiotherapist physiotherapist) {
+        importLogged = log(() -> BPC_JournalRecords.physiotherapistAdded(physiotherapist));
+        physiotherapists.put(physiotherapist.getKey(), physiotherapist);
+        expertiseIndex.add(physiotherapist);
+    }
+
+    // adds the imported people to the listings and searches in one go, as a snapshot load does
+    void indexImported(List<BPC_Patient> importedPatients, List<BPC_Physiotherapist> importedPhysiotherapists) {
+        listingIndex.addAll(importedPatients, importedPhysiotherapists);
+        patientSearch.addAll(importedPatients);
+        physiotherapistSearch.addAll(importedPhysiotherapists);
+    }
+
+    /**
+     * Checks that a booking row fits the clinic's state, before anything is changed for it
+     *
+     * @throws IllegalArgumentException if the booking does not fit the clinic's state
+     * @throws IllegalStateException if the booking does not fit the clinic's state
+     */
+    void checkImportable(BPC_Patient patient, BPC_Physiotherapist physiotherapist, String treatmentName,
+                         LocalDateTime dateTime) {
+        checkBookable(patient, physiotherapist, treatmentName, dateTime, true);
+        if (patient.hasBookingAt(dateTime)) {
+            throw rejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED,
+                    new BPC_ConflictException("Patient already has a booking at this time"));
+        }
+    }
+
+    /**
+     * Books a historical or future slot and closes the booking again if it was attended or cancelled.
+     * The booking must have passed {@link #checkImportable}. It is journaled by
+     * {@link #logImportedBooking(BPC_Booking)} and the report is left alone, see
+     * {@link #importedBookings(BPC_Physiotherapist, List)}.
+     */
+    BPC_Booking importBooking(BPC_Patient patient, BPC_Physiotherapist physiotherapist, String treatmentName,
+                              LocalDateTime dateTime, BPC_BookingStatus status, LocalDateTime bookingTime) {
+        BPC_Treatment treatment = BPC_Treatment.restore(treatmentName, physiotherapist, dateTime);
+        BPC_Booking booking = new BPC_Booking(BPC_IdGenerator.nextBookingKey(), patient, treatment, bookingTime);
+        addToPatient(patient, booking);
+        bookings.put(booking.getKey(), booking);
+        indexBooking(booking);
+        bookingChanges.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+        if (status == BPC_BookingStatus.ATTENDED) {
+            booking.attend();
+            bookingChanges.publish(BPC_BookingChangeType.ATTENDED, booking, null, null);
+        } else if (status == BPC_BookingStatus.CANCELLED) {
+            booking.cancelBooking();
+            bookingChanges.publish(BPC_BookingChangeType.CANCELLED, booking, null, null);
         }
         return booking;
     }
 
-    //getters and setters
+    /**
+     * Journals an imported booking as booked, then attended or cancelled as it was imported
+     *
+     * @throws IllegalStateException if the journal could not be written
+     */
+    void logImportedBooking(BPC_Booking booking) {
+        importLogged = log(() -> BPC_JournalRecords.bookingCreated(booking));
+        if (booking.getStatus() == BPC_BookingStatus.ATTENDED) {
+            importLogged = log(() -> BPC_JournalRecords.bookingAttended(booking));
+        } else if (booking.getStatus() == BPC_BookingStatus.CANCELLED) {
+            importLogged = log(() -> BPC_JournalRecords.bookingCancelled(booking));
+        }
+    }
+
+    // the patient must have no active booking left, see importBooking
+    void importDeactivation(BPC_Patient patient) {
+        patient.deactivate();
+        importLogged = log(() -> BPC_JournalRecords.patientDeactivated(patient));
+    }
+
+    // adds the imported bookings of one physiotherapist to the report in one go
+    void importedBookings(BPC_Physiotherapist physiotherapist, List<BPC_Booking> imported) {
+        reportAggregates.bookingsRestored(physiotherapist, imported);
+    }
+
+    // restores the bookings of one physiotherapist from a snapshot, in report order (listed once it is loaded)
+    void restoreBookings(BPC_Physiotherapist physiotherapist, List<BPC_Booking> restored) {
+        for (BPC_Booking booking : restored) {
+            bookings.put(booking.getKey(), booking);
+            BPC_IdGenerator.advanceBookingCounter(booking.getKey());
+        }
+        reportAggregates.bookingsRestored(physiotherapist, restored);
+    }
+
+    void ensureCapacity(int patientCount, int physiotherapistCount, int bookingCount) {
+        patients.ensureCapacity(patientCount);
+        physiotherapists.ensureCapacity(physiotherapistCount);
+        bookings.ensureCapacity(bookingCount);
+    }
+
+    // registries for snapshots and imports
+    BPC_LongMap<BPC_Patient> patientMap() { return patients; }
+    BPC_LongMap<BPC_Physiotherapist> physiotherapistMap() { return physiotherapists; }
+    BPC_LongMap<BPC_Booking> bookingMap() { return bookings; }
+    BPC_LongMap<BPC_BookingSeries> seriesMap() { return series; }
+    BPC_ReportAggregates reportAggregates() { return reportAggregates; }
+
+    // lookups for journal replay, which refers to entities by key
+    BPC_Patient patientByKey(long key) {
+        return restored(patients.get(key), "patient", key);
+    }
+
+    BPC_Physiotherapist physiotherapistByKey(long key) {
+        return restored(physiotherapists.get(key), "physiotherapist", key);
+    }
+
+    BPC_Booking bookingByKey(long key) {
+        return restored(bookings.get(key), "booking", key);
+    }
+
+    private static <T> T restored(T entity, String kind, long key) {
+        if (entity == null) {
+            throw new IllegalStateException("Journal refers to an unknown " + kind + ": " + key);
+        }
+        return entity;
+    }
+
+    // direct lookups by id, null if there is no such entity
+    public BPC_Physiotherapist findPhysiotherapist(String physiotherapistId) {
+        return physiotherapists.get(BPC_IdGenerator.parsePhysiotherapistKey(physiotherapistId));
+    }
+
+    public BPC_Patient findPatient(String patientId) {
+        return patients.get(BPC_IdGenerator.parsePatientKey(patientId));
+    }
+
+    public BPC_Booking findBooking(String bookingId) {
+        return bookings.get(BPC_IdGenerator.parseBookingKey(bookingId));
+    }
+
+    public BPC_BookingSeries findBookingSeries(String seriesId) {
+        return series.get(BPC_IdGenerator.parseSeriesKey(seriesId));
+    }
+
+    /**
+     * Copies a patient's bookings under the patient's lock, so the list can be read while
+     * bookings are made for the patient meanwhile
+     */
+    public List<BPC_Booking> getPatientBookings(BPC_Patient patient) {
+        int[] patientStripes = patientLocks.lock(patient.getKey());
+        try {
+            return new ArrayList<>(patient.getBookings());
+        } finally {
+            patientLocks.unlock(patientStripes);
+        }
+    }
+
+    //sorted listings, one page at a time: pass null as the cursor for the first page
+    //and the page's getNextCursor() for the one after it
+
+    public BPC_Page<BPC_Patient> listPatientsById(String cursor, int limit) {
+        return listingIndex.patientsById(cursor == null ? null : cursorEntity(findPatient(cursor), cursor), limit);
+    }
+
+    public BPC_Page<BPC_Patient> listPatientsByName(String cursor, int limit) {
+        return listingIndex.patientsByName(cursor == null ? null : cursorEntity(findPatient(cursor), cursor), limit);
+    }
+
+    public BPC_Page<BPC_Physiotherapist> listPhysiotherapistsByName(String cursor, int limit) {
+        return listingIndex.physiotherapistsByName(
+                cursor == null ? null : cursorEntity(findPhysiotherapist(cursor), cursor), limit);
+    }
+
+    // by appointment time, cancelled and attended bookings included
+    public BPC_Page<BPC_Booking> listBookingsByTime(String cursor, int limit) {
+        indexAllBookings();
+        return listingIndex.bookingsByTime(cursor, limit);
+    }
+
+    /**
+     * Bookings with an appointment from one time until another, e.g. a day's agenda, by time then
+     * by id. Cancelled and attended bookings are included. Costs a search of the time index plus
+     * one step per booking returned.
+     *
+     * @param from First appointment time included
+     * @param to Appointment time the range ends before
+     */
+    public List<BPC_Booking> getBookingsBetween(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        indexAllBookings();
+        return listingIndex.bookingsBetween(from, to);
+    }
+
+    // as getBookingsBetween, for one physiotherapist
+    public List<BPC_Booking> getBookingsBetween(LocalDateTime from, LocalDateTime to, String physiotherapistId) {
+        checkRange(from, to);
+        BPC_Physiotherapist physiotherapist = findPhysiotherapist(physiotherapistId);
+        if (physiotherapist == null) {
+            throw new BPC_NotFoundException("Physiotherapist not found: " + physiotherapistId);
+        }
+        indexAllBookings();
+        return listingIndex.bookingsBetween(from, to, physiotherapist);
+    }
+
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Time range ends before it starts");
+        }
+    }
+
+    /**
+     * Builds the bookings by time index, with every stripe locked so no booking changes meanwhile.
+     * Done on first use rather than at startup, indexing a million bookings takes about a second.
+     */
+    private void indexAllBookings() {
+        if (bookingsIndexed) {
+            return;
+        }
+        int[] physiotherapistStripes = physiotherapistLocks.lockAll();
+        int[] patientStripes = patientLocks.lockAll();
+        try {
+            if (!bookingsIndexed) {
+                listingIndex.addBookings(bookings.values());
+                bookingsIndexed = true;
+            }
+        } finally {
+            patientLocks.unlock(patientStripes);
+            physiotherapistLocks.unlock(physiotherapistStripes);
+        }
+    }
+
+    // called with the booking's locks held
+    private void indexBooking(BPC_Booking booking) {
+        if (bookingsIndexed) {
+            listingIndex.bookingAdded(booking);
+        }
+    }
+
+    private void reindexBooking(BPC_Booking booking, LocalDateTime from, BPC_Physiotherapist fromPhysiotherapist) {
+        if (bookingsIndexed) {
+            listingIndex.bookingMoved(booking, from, fromPhysiotherapist);
+        }
+    }
+
+    // the cursor of a patient or physiotherapist listing is the id of the last entry of the page before
+    private static <T> T cursorEntity(T entity, String cursor) {
+        if (entity == null) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return entity;
+    }
+
+    /**
+     * Passes every later change to a booking to the listener, on a thread of its own, so work
+     * such as reminders runs after the booking calls return instead of inside them. Changes
+     * to one booking arrive in the order they were made. Bookings restored from a snapshot or
+     * journal are not passed. Changes made while a listener is thousands of changes behind are
+     * dropped rather than waited for, see {@link BPC_MetricsMXBean#getDroppedBookingChanges()}.
+     *
+     * @throws IllegalArgumentException if the listener is already registered
+     */
+    public void addBookingListener(BPC_BookingChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must be non-null");
+        }
+        bookingChanges.add(listener);
+    }
+
+    /**
+     * Stops a listener once it has received the changes already made
+     *
+     * @return false if the listener was not registered
+     */
+    public boolean removeBookingListener(BPC_BookingChangeListener listener) {
+        return bookingChanges.remove(listener);
+    }
+
+    // changes made that the slowest listener has not received yet
+    public long getBookingListenerBacklog() {
+        return bookingChanges.getBacklog();
+    }
+
+    // latency, failures and rejections of the clinic's operations
+    public BPC_Metrics getMetrics() {
+        return metrics;
+    }
+
+    //getters and setters, live read-only views that are not copied (copy them to keep a snapshot)
     public Map<String, BPC_Physiotherapist> getPhysiotherapists(){
-        return new HashMap<>(physiotherapists);
+        return physiotherapistView;
     }
 
     public Map<String, BPC_Patient> getPatients(){
-        return new HashMap<>(patients);
+        return patientView;
+    }
+
+    public Map<String, BPC_BookingSeries> getBookingSeries(){
+        return seriesView;
     }
 
     public Map<String, BPC_Booking> getBookings(){
-        return new HashMap<>(bookings);
+        return bookingView;
     }
 
 }
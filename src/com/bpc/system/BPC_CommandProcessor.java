@@ -0,0 +1,202 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_Recurrence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs clinic operations from a script, one command per line, for scripted loads,
+ * replaying a day's operations and load tests.
+ * <p>
+ * A command is a CSV line: the command name followed by its arguments, e.g.
+ * {@code book,PAT_20250304_0001,PHY_20250304_0001,Massage,2025-03-10T10:00}. A command can be
+ * given a name with {@code name=command,...}; the ID it returns is then used in later commands
+ * as {@code $name}. Blank lines and lines starting with {@code #} are skipped.
+ * <p>
+ * Each command writes one line, {@code OK} followed by its result, or {@code ERROR}, the line
+ * number and the reason. A failed command does not stop the script. Output is written to the
+ * given writer without flushing, so it should be buffered.
+ */
+public class BPC_CommandProcessor {
+    private final BPC_Clinic clinic;
+    private final Map<String, String> names; // $name -> ID returned by the named command
+    private long executed;
+    private long failed;
+
+    public BPC_CommandProcessor(BPC_Clinic clinic) {
+        this.clinic = clinic;
+        this.names = new HashMap<>();
+    }
+
+    /**
+     * Runs every command of a script
+     *
+     * @throws IOException if the script cannot be read or the output cannot be written
+     */
+    public void run(Reader script, Writer out) throws IOException {
+        BufferedReader in = script instanceof BufferedReader ? (BufferedReader) script
+                : new BufferedReader(script, 1 << 16);
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            execute(line, ++lineNumber, out);
+        }
+    }
+
+    /**
+     * Runs one command line, writing its result line
+     */
+    public void execute(String line, long lineNumber, Appendable out) throws IOException {
+        int start = 0;
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (start == line.length() || line.charAt(start) == '#') {
+            return;
+        }
+        executed++;
+        String result;
+        try {
+            String[] fields = BPC_CsvImporter.fields(line, start, line.length());
+            String name = null;
+            int assign = fields[0].indexOf('=');
+            if (assign >= 0) {
+                name = fields[0].substring(0, assign).trim();
+                fields[0] = fields[0].substring(assign + 1).trim();
+            }
+            for (int i = 1; i < fields.length; i++) {
+                fields[i] = resolve(fields[i]);
+            }
+            result = execute(fields);
+            if (name != null) {
+                // a series names its own ID, not those of its sessions
+                int end = result.indexOf(' ');
+                names.put(name, end < 0 ? result : result.substring(0, end));
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            failed++;
+            out.append("ERROR ").append(Long.toString(lineNumber)).append(": ").append(e.getMessage()).append('\n');
+            return;
+        }
+        out.append("OK");
+        if (!result.isEmpty() && result.charAt(0) != '\n') {
+            out.append(' ');
+        }
+        out.append(result).append('\n');
+    }
+
+    private String resolve(String argument) {
+        if (!argument.startsWith("$")) {
+            return argument;
+        }
+        String value = names.get(argument.substring(1));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown name: " + argument);
+        }
+        return value;
+    }
+
+    // runs a parsed command, returning its result
+    private String execute(String[] fields) {
+        switch (fields[0]) {
+            case "add-patient":
+                arguments(fields, 3);
+                return clinic.addPatient(fields[1], fields[2], fields[3]).getId();
+            case "add-physiotherapist":
+                arguments(fields, 4);
+                return clinic.addPhysiotherapist(fields[1], fields[2], fields[3],
+                        Arrays.asList(fields[4].split(";"))).getId();
+            case "deactivate-patient":
+                arguments(fields, 1);
+                clinic.deactivatePatient(fields[1]);
+                return "";
+            case "reactivate-patient":
+                arguments(fields, 1);
+                clinic.reactivatePatient(fields[1]);
+                return "";
+            case "book":
+                arguments(fields, 4);
+                return clinic.createBooking(fields[1], fields[2], fields[3],
+                        BPC_CsvImporter.parseDateTime(fields[4])).getId();
+            case "cancel":
+                arguments(fields, 1);
+                clinic.cancelBooking(fields[1]);
+                return "";
+            case "attend":
+                arguments(fields, 1);
+                clinic.attendBooking(fields[1]);
+                return "";
+            case "modify":
+                arguments(fields, 4);
+                clinic.modifyBooking(fields[1], fields[2], fields[3], BPC_CsvImporter.parseDateTime(fields[4]));
+                return "";
+            case "book-series": {
+                // patient, physiotherapist, treatment, first session, sessions[, interval in weeks]
+                if (fields.length != 6 && fields.length != 7) {
+                    throw new IllegalArgumentException("book-series takes 5 or 6 arguments");
+                }
+                int intervalWeeks = fields.length == 7 ? number(fields[6]) : 1;
+                BPC_BookingSeries series = clinic.createBookingSeries(fields[1], fields[2], fields[3],
+                        new BPC_Recurrence(BPC_CsvImporter.parseDateTime(fields[4]), intervalWeeks,
+                                number(fields[5])));
+                StringBuilder result = new StringBuilder(series.getId());
+                for (BPC_Booking booking : series.getBookings()) {
+                    result.append(' ').append(booking.getId());
+                }
+                return result.toString();
+            }
+            case "cancel-series":
+                arguments(fields, 1);
+                clinic.cancelBookingSeries(fields[1]);
+                return "";
+            case "find-slots": {
+                // treatment, from, to, limit
+                arguments(fields, 4);
+                List<BPC_AvailableSlot> slots = clinic.findAvailableSlots(fields[1],
+                        BPC_CsvImporter.parseDateTime(fields[2]), BPC_CsvImporter.parseDateTime(fields[3]),
+                        number(fields[4]));
+                StringBuilder result = new StringBuilder();
+                for (BPC_AvailableSlot slot : slots) {
+                    if (result.length() > 0) {
+                        result.append(' ');
+                    }
+                    result.append(slot.getPhysiotherapist().getId()).append('@').append(slot.getDateTime());
+                }
+                return result.toString();
+            }
+            case "report":
+                arguments(fields, 0);
+                // the report's own lines follow the OK line
+                return "\n" + clinic.generateReport().stripTrailing();
+            default:
+                throw new IllegalArgumentException("Unknown command: " + fields[0]);
+        }
+    }
+
+    private static void arguments(String[] fields, int count) {
+        if (fields.length != count + 1) {
+            throw new IllegalArgumentException(fields[0] + " takes " + count + " arguments");
+        }
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    // Getters
+    public long getExecuted() { return executed; }
+    public long getFailed() { return failed; }
+}
@@ -0,0 +1,18 @@
+package com.bpc.system;
+
+/**
+ * A valid request that the clinic's current state does not allow, such as a taken slot, an
+ * inactive patient or a booking that is no longer booked. Asking again later may succeed.
+ */
+public class BPC_ConflictException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public BPC_ConflictException(String message) {
+        super(message);
+    }
+
+    // the model's reason, e.g. from BPC_Patient.addBooking
+    public BPC_ConflictException(RuntimeException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
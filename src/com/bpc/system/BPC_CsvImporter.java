@@ -0,0 +1,434 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_WorkingHours;
+import com.bpc.util.BPC_IdGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk import of patients, physiotherapists and historical bookings from CSV files,
+ * e.g. when migrating from another system.
+ * <p>
+ * Every file starts with a header row. Files are cut into chunks at line boundaries, and the
+ * chunks are parsed and checked in parallel. The rows are then added to the clinic in file order
+ * in one step that no other change interleaves with, and the report is brought up to date once
+ * per physiotherapist at the end instead of once per booking.
+ * <p>
+ * Rows refer to each other by the ids of the old system in their first column; a booking may
+ * also refer to a patient or physiotherapist that is already in the clinic by its clinic id.
+ * Imported entities get new clinic ids. A row that cannot be imported is left out and listed
+ * in the report, every other row is imported.
+ */
+public class BPC_CsvImporter {
+    // patients:         id,name,address,phone[,active]
+    // physiotherapists: id,name,address,phone,expertise (phrases separated by ';')
+    // bookings:         id,patient id,physiotherapist id,treatment,date time[,status[,booked at]]
+    // Quoted fields may contain commas and doubled quotes, but not line breaks.
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final BPC_Clinic clinic;
+    private final int chunkBytes;
+
+    public BPC_CsvImporter(BPC_Clinic clinic) {
+        this(clinic, CHUNK_BYTES);
+    }
+
+    // smaller chunks let tests cover rows spread over several chunks
+    BPC_CsvImporter(BPC_Clinic clinic, int chunkBytes) {
+        this.clinic = clinic;
+        this.chunkBytes = chunkBytes;
+    }
+
+    private interface RowParser<R> {
+        // throws IllegalArgumentException with the reason if the row is invalid
+        R parse(long line, String[] fields);
+    }
+
+    private static class PatientRow {
+        final long line;
+        final String id;
+        final String name;
+        final String address;
+        final String phone;
+        final boolean active;
+
+        PatientRow(long line, String[] fields) {
+            requireColumns(fields, 4, 5);
+            this.line = line;
+            this.id = required(fields[0], "patient id");
+            this.name = required(fields[1], "name");
+            this.address = fields[2];
+            this.phone = fields[3];
+            this.active = fields.length < 5 || parseActive(fields[4]);
+            BPC_JournalRecords.checkText(name, address, phone);
+        }
+    }
+
+    private static class PhysiotherapistRow {
+        final long line;
+        final String id;
+        final String name;
+        final String address;
+        final String phone;
+        final List<String> expertise;
+
+        PhysiotherapistRow(long line, String[] fields) {
+            requireColumns(fields, 5, 5);
+            this.line = line;
+            this.id = required(fields[0], "physiotherapist id");
+            this.name = required(fields[1], "name");
+            this.address = fields[2];
+            this.phone = fields[3];
+            this.expertise = Arrays.stream(fields[4].split(";"))
+                    .map(String::trim)
+                    .filter(phrase -> !phrase.isEmpty())
+                    .collect(Collectors.toList());
+            if (expertise.isEmpty()) {
+                throw new IllegalArgumentException("Missing expertise");
+            }
+            BPC_JournalRecords.checkText(name, address, phone);
+            BPC_JournalRecords.checkText(expertise.toArray(new String[0]));
+        }
+    }
+
+    private static class BookingRow {
+        final long line;
+        final String patientId;
+        final String physiotherapistId;
+        final String treatment;
+        final LocalDateTime dateTime;
+        final BPC_BookingStatus status;
+        final LocalDateTime bookingTime; // null if not known
+
+        BookingRow(long line, String[] fields) {
+            requireColumns(fields, 5, 7);
+            this.line = line;
+            this.patientId = required(fields[1], "patient id");
+            this.physiotherapistId = required(fields[2], "physiotherapist id");
+            this.treatment = required(fields[3], "treatment");
+            BPC_JournalRecords.checkText(treatment);
+            this.dateTime = parseDateTime(required(fields[4], "date time"));
+            this.status = fields.length < 6 || fields[5].isEmpty() ? BPC_BookingStatus.BOOKED : parseStatus(fields[5]);
+            this.bookingTime = fields.length < 7 || fields[6].isEmpty() ? null : parseDateTime(fields[6]);
+        }
+    }
+
+    private static class Chunk<R> {
+        final List<R> rows = new ArrayList<>();
+        final List<BPC_ImportError> errors = new ArrayList<>();
+    }
+
+    /**
+     * Imports the given files, any of which may be null to skip it
+     *
+     * @return how many rows were imported, and the rows that were rejected
+     * @throws IOException if a file cannot be read
+     * @throws IllegalStateException if the journal could not be written, which ends the import after
+     *         the rows added so far
+     */
+    public BPC_ImportReport importCsv(Path patientsFile, Path physiotherapistsFile, Path bookingsFile)
+            throws IOException {
+        List<BPC_ImportError> errors = new ArrayList<>();
+        List<PatientRow> patientRows = parse(patientsFile, PatientRow::new, errors);
+        List<PhysiotherapistRow> physiotherapistRows = parse(physiotherapistsFile, PhysiotherapistRow::new, errors);
+        List<BookingRow> bookingRows = parse(bookingsFile, BookingRow::new, errors);
+
+        clinic.ensureCapacity(clinic.patientMap().size() + patientRows.size(),
+                clinic.physiotherapistMap().size() + physiotherapistRows.size(),
+                clinic.bookingMap().size() + bookingRows.size());
+        int[] imported = new int[3];
+        clinic.importExclusively(() -> {
+            Map<String, BPC_Patient> patients = new HashMap<>();
+            Map<String, BPC_Physiotherapist> physiotherapists = new HashMap<>();
+            List<PatientRow> inactive = new ArrayList<>();
+            // the people added are indexed together, even if the journal ends the import
+            try {
+                for (PatientRow row : patientRows) {
+                    if (patients.containsKey(row.id)) {
+                        errors.add(error(patientsFile, row.line, "Duplicate patient id: " + row.id));
+                        continue;
+                    }
+                    BPC_Patient patient = new BPC_Patient(BPC_IdGenerator.nextPatientKey(), row.name, row.address,
+                            row.phone);
+                    clinic.importPatient(patient);
+                    patients.put(row.id, patient);
+                    if (!row.active) {
+                        inactive.add(row);
+                    }
+                }
+                imported[0] = patients.size();
+
+                for (PhysiotherapistRow row : physiotherapistRows) {
+                    if (physiotherapists.containsKey(row.id)) {
+                        errors.add(error(physiotherapistsFile, row.line, "Duplicate physiotherapist id: " + row.id));
+                        continue;
+                    }
+                    BPC_Physiotherapist physiotherapist = new BPC_Physiotherapist(
+                            BPC_IdGenerator.nextPhysiotherapistKey(), row.name, row.address, row.phone, row.expertise,
+                            BPC_WorkingHours.standard());
+                    clinic.importPhysiotherapist(physiotherapist);
+                    physiotherapists.put(row.id, physiotherapist);
+                }
+                imported[1] = physiotherapists.size();
+            } finally {
+                clinic.indexImported(new ArrayList<>(patients.values()), new ArrayList<>(physiotherapists.values()));
+            }
+
+            Map<BPC_Physiotherapist, List<BPC_Booking>> bookings = new LinkedHashMap<>();
+            // the report takes the bookings added even if the journal ends the import
+            try {
+                for (BookingRow row : bookingRows) {
+                    BPC_Patient patient = patients.get(row.patientId);
+                    if (patient == null) {
+                        patient = clinic.patientMap().get(BPC_IdGenerator.parsePatientKey(row.patientId));
+                    }
+                    BPC_Physiotherapist physiotherapist = physiotherapists.get(row.physiotherapistId);
+                    if (physiotherapist == null) {
+                        physiotherapist = clinic.physiotherapistMap().get(
+                                BPC_IdGenerator.parsePhysiotherapistKey(row.physiotherapistId));
+                    }
+                    if (patient == null) {
+                        errors.add(error(bookingsFile, row.line, "Patient not found: " + row.patientId));
+                    } else if (physiotherapist == null) {
+                        errors.add(error(bookingsFile, row.line,
+                                "Physiotherapist not found: " + row.physiotherapistId));
+                    } else {
+                        try {
+                            clinic.checkImportable(patient, physiotherapist, row.treatment, row.dateTime);
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            errors.add(error(bookingsFile, row.line, e.getMessage()));
+                            continue;
+                        }
+                        // only the checks reject a row, a failure after them (the journal) ends the import
+                        BPC_Booking booking = clinic.importBooking(patient, physiotherapist, row.treatment,
+                                row.dateTime, row.status, row.bookingTime != null ? row.bookingTime : LocalDateTime.now());
+                        bookings.computeIfAbsent(physiotherapist, key -> new ArrayList<>()).add(booking);
+                        imported[2]++;
+                        clinic.logImportedBooking(booking);
+                    }
+                }
+            } finally {
+                bookings.forEach(clinic::importedBookings);
+            }
+
+            // patients are deactivated last, so their historical bookings could still be added
+            for (PatientRow row : inactive) {
+                BPC_Patient patient = patients.get(row.id);
+                if (patient.hasActiveBooking()) {
+                    errors.add(error(patientsFile, row.line,
+                            "Cannot deactivate patient with active booking, left active"));
+                } else {
+                    clinic.importDeactivation(patient);
+                }
+            }
+        });
+        return new BPC_ImportReport(imported[0], imported[1], imported[2], errors);
+    }
+
+    /**
+     * Parses a file in chunks of about chunkBytes, in parallel
+     *
+     * @return the valid rows in file order; invalid rows are added to errors
+     */
+    private <R> List<R> parse(Path file, RowParser<R> parser, List<BPC_ImportError> errors) throws IOException {
+        List<R> rows = new ArrayList<>();
+        if (file == null) {
+            return rows;
+        }
+        byte[] data = Files.readAllBytes(file);
+        String name = file.getFileName().toString();
+
+        // chunks start after the header row and end after a line break
+        List<Integer> bounds = new ArrayList<>();
+        int start = Math.min(lineEnd(data, 0), data.length);
+        bounds.add(start);
+        while (start < data.length) {
+            start = lineEnd(data, Math.min(start + chunkBytes, data.length) - 1);
+            bounds.add(start);
+        }
+        int chunkCount = bounds.size() - 1;
+
+        // line number of the first row of each chunk, the header is line 1
+        long[] firstLine = new long[chunkCount + 1];
+        firstLine[0] = 2;
+        long[] lineCounts = IntStream.range(0, chunkCount).parallel()
+                .mapToLong(i -> countLines(data, bounds.get(i), bounds.get(i + 1)))
+                .toArray();
+        for (int i = 0; i < chunkCount; i++) {
+            firstLine[i + 1] = firstLine[i] + lineCounts[i];
+        }
+
+        List<Chunk<R>> chunks = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(i -> parseChunk(name, data, bounds.get(i), bounds.get(i + 1), firstLine[i], parser))
+                .collect(Collectors.toList());
+        for (Chunk<R> chunk : chunks) {
+            rows.addAll(chunk.rows);
+            errors.addAll(chunk.errors);
+        }
+        return rows;
+    }
+
+    // position after the line break that ends the line containing from, or the end of the data
+    private static int lineEnd(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return data.length;
+    }
+
+    private static long countLines(byte[] data, int from, int to) {
+        long lines = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                lines++;
+            }
+        }
+        // a last line without a line break
+        return to > from && data[to - 1] != '\n' ? lines + 1 : lines;
+    }
+
+    private static <R> Chunk<R> parseChunk(String file, byte[] data, int from, int to, long firstLine,
+                                           RowParser<R> parser) {
+        Chunk<R> chunk = new Chunk<>();
+        // chunks end at a line break, which never splits a UTF-8 character
+        String text = new String(data, from, to - from, StandardCharsets.UTF_8);
+        long line = firstLine;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart) {
+                try {
+                    chunk.rows.add(parser.parse(line, fields(text, lineStart, contentEnd)));
+                } catch (IllegalArgumentException e) {
+                    chunk.errors.add(new BPC_ImportError(file, line, e.getMessage()));
+                }
+            }
+            line++;
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Splits one CSV line into trimmed fields
+     *
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static String[] fields(String text, int from, int to) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = from;
+        while (true) {
+            field.setLength(0);
+            while (i < to && text.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < to && text.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= to) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = text.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < to && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < to && text.charAt(i) != ',') {
+                    i++;
+                }
+                fields.add(field.toString());
+            } else {
+                int end = text.indexOf(',', i);
+                if (end < 0 || end > to) {
+                    end = to;
+                }
+                fields.add(text.substring(i, end).trim());
+                i = end;
+            }
+            if (i >= to) {
+                return fields.toArray(new String[0]);
+            }
+            i++; // the comma
+        }
+    }
+
+    private static void requireColumns(String[] fields, int min, int max) {
+        if (fields.length < min || fields.length > max) {
+            throw new IllegalArgumentException("Expected " + (min == max ? min + "" : min + " to " + max)
+                    + " columns but found " + fields.length);
+        }
+    }
+
+    private static String required(String value, String column) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value;
+    }
+
+    private static boolean parseActive(String value) {
+        if (value.isEmpty() || value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid active flag: " + value);
+    }
+
+    /**
+     * Parses an ISO date-time with a space or a T between date and time, as both the CSV files and
+     * the command scripts write them
+     *
+     * @throws IllegalArgumentException if the value is not one
+     */
+    static LocalDateTime parseDateTime(String value) {
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date time: " + value);
+        }
+    }
+
+    private static BPC_BookingStatus parseStatus(String value) {
+        for (BPC_BookingStatus status : BPC_BookingStatus.values()) {
+            if (status.name().equalsIgnoreCase(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Invalid status: " + value);
+    }
+
+    private static BPC_ImportError error(Path file, long line, String message) {
+        return new BPC_ImportError(file.getFileName().toString(), line, message);
+    }
+}
@@ -0,0 +1,125 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Physiotherapist;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive index of physiotherapists by expertise.
+ * Whole expertise phrases and their single words are both indexed in sorted maps,
+ * so lookups neither scan every physiotherapist nor lowercase any strings.
+ */
+public class BPC_ExpertiseIndex {
+    // expertise phrase -> physiotherapist keys
+    private final NavigableMap<String, Set<Long>> phrases;
+    // single word of an expertise phrase -> physiotherapist keys
+    private final NavigableMap<String, Set<Long>> words;
+    // trimmed expertise phrases of each physiotherapist
+    private final Map<Long, String[]> expertiseByKey;
+
+    public BPC_ExpertiseIndex() {
+        phrases = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        words = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        expertiseByKey = new ConcurrentHashMap<>();
+    }
+
+    public void add(BPC_Physiotherapist physiotherapist) {
+        long key = physiotherapist.getKey();
+        String[] expertise = physiotherapist.getExpertise().stream()
+                .map(String::trim)
+                .toArray(String[]::new);
+
+        for (String phrase : expertise) {
+            phrases.computeIfAbsent(phrase, p -> ConcurrentHashMap.newKeySet()).add(key);
+            int start = -1;
+            for (int i = 0; i <= phrase.length(); i++) {
+                boolean wordChar = i < phrase.length() && Character.isLetterOrDigit(phrase.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    words.computeIfAbsent(phrase.substring(start, i), w -> ConcurrentHashMap.newKeySet()).add(key);
+                    start = -1;
+                }
+            }
+        }
+        expertiseByKey.put(key, expertise);
+    }
+
+    /**
+     * Finds physiotherapists by expertise, ignoring case. A single word matches any
+     * expertise containing that word, several words must match a whole expertise.
+     *
+     * @return keys of the matching physiotherapists, empty if none
+     */
+    public Set<Long> find(String expertise) {
+        String query = expertise.trim();
+        Set<Long> keys = isSingleWord(query) ? words.get(query) : phrases.get(query);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Checks if a treatment is valid for a physiotherapist: the treatment name must
+     * contain one of the physiotherapist's expertise phrases or be part of one, ignoring case
+     */
+    public boolean isQualified(long physiotherapistKey, String treatmentName) {
+        String[] expertise = expertiseByKey.get(physiotherapistKey);
+        if (expertise == null) {
+            return false;
+        }
+        for (String phrase : expertise) {
+            if (matches(treatmentName, phrase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the physiotherapists a treatment is valid for, the same ones {@link #isQualified}
+     * accepts. A match may begin in the middle of a word, which no word lookup finds, so each
+     * distinct expertise phrase is checked once instead of each physiotherapist.
+     *
+     * @return keys of the qualified physiotherapists
+     */
+    public Set<Long> findQualified(String treatmentName) {
+        Set<Long> qualified = new HashSet<>();
+        for (Map.Entry<String, Set<Long>> entry : phrases.entrySet()) {
+            if (matches(treatmentName, entry.getKey())) {
+                qualified.addAll(entry.getValue());
+            }
+        }
+        return qualified;
+    }
+
+    private static boolean matches(String treatmentName, String phrase) {
+        return containsIgnoreCase(treatmentName, phrase) || containsIgnoreCase(phrase, treatmentName);
+    }
+
+    private static boolean isSingleWord(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        int last = text.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,475 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * HTTP interface to a clinic, so reception desks, kiosks and the patient portal share one instance.
+ * <p>
+ * Requests pass their parameters in the query string or as a form-encoded body, responses are JSON
+ * (the report is plain text). Date-times are ISO, e.g. {@code 2025-03-10T10:00}. Listings are sorted
+ * pages, {@code {"items":[...],"next":cursor}}: patients by id or name, physiotherapists by name and
+ * bookings by time. They take {@code limit} and the {@code cursor} of the page before. A search,
+ * {@code q} the start of a name or phone number as it is typed, answers one page of the best matches.
+ * <pre>
+ * GET  /patients[?order=name|?q=]     POST /patients (name, address, phone)
+ * GET  /patients/{id}                 POST /patients/{id}/deactivate, /patients/{id}/reactivate
+ * GET  /physiotherapists[?expertise=|?q=]
+ *                                     POST /physiotherapists (name, address, phone, expertise=a;b)
+ * GET  /physiotherapists/{id}
+ * GET  /bookings[?from=&amp;to=[&amp;physiotherapist=]]
+ *                                     POST /bookings (patient, physiotherapist, treatment, dateTime)
+ * GET  /bookings/{id}
+ * POST /bookings/{id}/cancel, /bookings/{id}/attend
+ * POST /bookings/{id}/modify (physiotherapist, treatment, dateTime)
+ * GET  /availability?treatment=[&amp;from=][&amp;to=][&amp;limit=]
+ * GET  /report
+ * </pre>
+ * An invalid request answers 400 with the reason, one that conflicts with the clinic's state, such
+ * as a taken slot or a booking that is no longer booked, 409 and an unknown ID, in the path or a
+ * parameter, 404. Any other failure, such as a journal that cannot be written, answers 500. Each request
+ * runs on a virtual thread when the JVM has them, otherwise on a cached pool.
+ */
+public class BPC_HttpApi {
+    private static final int DEFAULT_SLOT_LIMIT = 10;
+    private static final int DEFAULT_SEARCH_DAYS = 14;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int DEFAULT_MATCH_LIMIT = 10;
+
+    static {
+        // the JDK server writes headers and body separately, with Nagle on every keep-alive response
+        // then waits about 40 ms for the client's delayed ACK. Read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final BPC_Clinic clinic;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds the server, call {@link #start()} to accept requests
+     *
+     * @param address Address to listen on, port 0 picks a free port
+     */
+    public BPC_HttpApi(BPC_Clinic clinic, InetSocketAddress address) throws IOException {
+        this.clinic = clinic;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    // a virtual thread per request where available (Java 21), the handlers mostly wait on locks and the journal
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "bpc-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given delay for running ones to finish
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            Map<String, String> parameters = parameters(exchange);
+            boolean post = exchange.getRequestMethod().equals("POST");
+            if (!post && !exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            switch (path[0]) {
+                case "patients":
+                    patients(exchange, path, post, parameters);
+                    break;
+                case "physiotherapists":
+                    physiotherapists(exchange, path, post, parameters);
+                    break;
+                case "bookings":
+                    bookings(exchange, path, post, parameters);
+                    break;
+                case "availability":
+                    if (path.length != 1 || post) {
+                        notFound(exchange);
+                    } else {
+                        availability(exchange, parameters);
+                    }
+                    break;
+                case "report":
+                    if (path.length != 1 || post) {
+                        notFound(exchange);
+                    } else {
+                        report(exchange);
+                    }
+                    break;
+                default:
+                    notFound(exchange);
+            }
+        } catch (BPC_NotFoundException e) {
+            send(exchange, 404, error(messageOf(e)));
+        } catch (BPC_ConflictException e) {
+            send(exchange, 409, error(messageOf(e)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            send(exchange, 400, error(messageOf(e)));
+        } catch (RuntimeException e) {
+            if (exchange.getResponseCode() != -1) {
+                // the headers are out, as for a streamed report: leave the body unended and let the
+                // server drop the connection, so the client sees a cut-off response, not a 200
+                throw e;
+            }
+            send(exchange, 500, error(String.valueOf(e)));
+        }
+        exchange.close();
+    }
+
+    private void patients(HttpExchange exchange, String[] path, boolean post, Map<String, String> parameters)
+            throws IOException {
+        if (path.length == 1) {
+            if (post) {
+                BPC_Patient patient = clinic.addPatient(required(parameters, "name"),
+                        required(parameters, "address"), required(parameters, "phone"));
+                send(exchange, 201, patient(new StringBuilder(), patient));
+            } else if (parameters.containsKey("q")) {
+                send(exchange, 200, page(clinic.searchPatients(parameters.get("q"), matchLimit(parameters)), null,
+                        BPC_HttpApi::patient));
+            } else {
+                String cursor = parameters.get("cursor");
+                int limit = pageSize(parameters);
+                BPC_Page<BPC_Patient> page = "name".equals(parameters.get("order"))
+                        ? clinic.listPatientsByName(cursor, limit) : clinic.listPatientsById(cursor, limit);
+                send(exchange, 200, page(page.getItems(), page.getNextCursor(), BPC_HttpApi::patient));
+            }
+            return;
+        }
+        BPC_Patient patient = clinic.findPatient(path[1]);
+        if (patient == null || path.length > 3 || post != (path.length == 3)) {
+            notFound(exchange);
+            return;
+        }
+        if (path.length == 3) {
+            switch (path[2]) {
+                case "deactivate":
+                    clinic.deactivatePatient(path[1]);
+                    break;
+                case "reactivate":
+                    clinic.reactivatePatient(path[1]);
+                    break;
+                default:
+                    notFound(exchange);
+                    return;
+            }
+        }
+        StringBuilder json = patient(new StringBuilder(), patient);
+        json.setLength(json.length() - 1);
+        json.append(",\"bookings\":[");
+        for (BPC_Booking booking : clinic.getPatientBookings(patient)) {
+            booking(separate(json), booking);
+        }
+        send(exchange, 200, json.append("]}"));
+    }
+
+    private void physiotherapists(HttpExchange exchange, String[] path, boolean post, Map<String, String> parameters)
+            throws IOException {
+        if (path.length == 1) {
+            if (post) {
+                BPC_Physiotherapist physiotherapist = clinic.addPhysiotherapist(required(parameters, "name"),
+                        required(parameters, "address"), required(parameters, "phone"),
+                        Arrays.asList(required(parameters, "expertise").split(";")));
+                send(exchange, 201, physiotherapist(new StringBuilder(), physiotherapist));
+            } else {
+                String expertise = parameters.get("expertise");
+                if (expertise != null) {
+                    // a search, the whole result fits one page
+                    send(exchange, 200, page(clinic.findPhysiotherapistsByExpertise(expertise), null,
+                            BPC_HttpApi::physiotherapist));
+                } else if (parameters.containsKey("q")) {
+                    send(exchange, 200, page(clinic.searchPhysiotherapists(parameters.get("q"),
+                            matchLimit(parameters)), null, BPC_HttpApi::physiotherapist));
+                } else {
+                    BPC_Page<BPC_Physiotherapist> page =
+                            clinic.listPhysiotherapistsByName(parameters.get("cursor"), pageSize(parameters));
+                    send(exchange, 200, page(page.getItems(), page.getNextCursor(), BPC_HttpApi::physiotherapist));
+                }
+            }
+            return;
+        }
+        BPC_Physiotherapist physiotherapist = clinic.findPhysiotherapist(path[1]);
+        if (physiotherapist == null || path.length > 2 || post) {
+            notFound(exchange);
+            return;
+        }
+        send(exchange, 200, physiotherapist(new StringBuilder(), physiotherapist));
+    }
+
+    private void bookings(HttpExchange exchange, String[] path, boolean post, Map<String, String> parameters)
+            throws IOException {
+        if (path.length == 1) {
+            if (!post && parameters.containsKey("from")) {
+                // a time range, e.g. a day's agenda, fits one page
+                LocalDateTime from = dateTime(parameters.get("from"));
+                LocalDateTime to = dateTime(required(parameters, "to"));
+                String physiotherapistId = parameters.get("physiotherapist");
+                send(exchange, 200, page(physiotherapistId == null ? clinic.getBookingsBetween(from, to)
+                        : clinic.getBookingsBetween(from, to, physiotherapistId), null, BPC_HttpApi::booking));
+                return;
+            }
+            if (!post) {
+                BPC_Page<BPC_Booking> page = clinic.listBookingsByTime(parameters.get("cursor"), pageSize(parameters));
+                send(exchange, 200, page(page.getItems(), page.getNextCursor(), BPC_HttpApi::booking));
+                return;
+            }
+            BPC_Booking booking = clinic.createBooking(required(parameters, "patient"),
+                    required(parameters, "physiotherapist"), required(parameters, "treatment"),
+                    dateTime(required(parameters, "dateTime")));
+            send(exchange, 201, booking(new StringBuilder(), booking));
+            return;
+        }
+        BPC_Booking booking = clinic.findBooking(path[1]);
+        if (booking == null || path.length > 3 || post != (path.length == 3)) {
+            notFound(exchange);
+            return;
+        }
+        if (path.length == 3) {
+            switch (path[2]) {
+                case "cancel":
+                    clinic.cancelBooking(path[1]);
+                    break;
+                case "attend":
+                    clinic.attendBooking(path[1]);
+                    break;
+                case "modify":
+                    clinic.modifyBooking(path[1], required(parameters, "physiotherapist"),
+                            required(parameters, "treatment"), dateTime(required(parameters, "dateTime")));
+                    break;
+                default:
+                    notFound(exchange);
+                    return;
+            }
+        }
+        send(exchange, 200, booking(new StringBuilder(), booking));
+    }
+
+    private void availability(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        LocalDateTime from = parameters.containsKey("from") ? dateTime(parameters.get("from")) : LocalDateTime.now();
+        LocalDateTime to = parameters.containsKey("to") ? dateTime(parameters.get("to"))
+                : from.plusDays(DEFAULT_SEARCH_DAYS);
+        int limit = parameters.containsKey("limit") ? number(parameters.get("limit")) : DEFAULT_SLOT_LIMIT;
+        StringBuilder json = new StringBuilder("[");
+        for (BPC_AvailableSlot slot : clinic.findAvailableSlots(required(parameters, "treatment"), from, to, limit)) {
+            separate(json).append("{\"physiotherapist\":");
+            string(json, slot.getPhysiotherapist().getId()).append(",\"name\":");
+            string(json, slot.getPhysiotherapist().getName()).append(",\"dateTime\":");
+            string(json, slot.getDateTime().toString()).append('}');
+        }
+        send(exchange, 200, json.append(']'));
+    }
+
+    // streamed, the report of a large clinic is not built in memory
+    private void report(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        clinic.writeReport(out);
+        out.flush();
+    }
+
+    // JSON
+
+    private static StringBuilder patient(StringBuilder json, BPC_Patient patient) {
+        json.append("{\"id\":");
+        string(json, patient.getId()).append(",\"name\":");
+        string(json, patient.getName()).append(",\"address\":");
+        string(json, patient.getAddress()).append(",\"phone\":");
+        string(json, patient.getPhone()).append(",\"active\":").append(patient.isActive())
+                .append(",\"activeBookings\":").append(patient.getActiveBookingCount());
+        return json.append('}');
+    }
+
+    private static StringBuilder physiotherapist(StringBuilder json, BPC_Physiotherapist physiotherapist) {
+        json.append("{\"id\":");
+        string(json, physiotherapist.getId()).append(",\"name\":");
+        string(json, physiotherapist.getName()).append(",\"address\":");
+        string(json, physiotherapist.getAddress()).append(",\"phone\":");
+        string(json, physiotherapist.getPhone()).append(",\"expertise\":[");
+        for (String expertise : physiotherapist.getExpertise()) {
+            string(separate(json), expertise);
+        }
+        return json.append("]}");
+    }
+
+    private static StringBuilder booking(StringBuilder json, BPC_Booking booking) {
+        json.append("{\"id\":");
+        string(json, booking.getId()).append(",\"patient\":");
+        string(json, booking.getPatient().getId()).append(",\"physiotherapist\":");
+        string(json, booking.getTreatment().getPhysiotherapist().getId()).append(",\"treatment\":");
+        string(json, booking.getTreatment().getName()).append(",\"dateTime\":");
+        string(json, booking.getTreatment().getDateTime().toString()).append(",\"status\":");
+        string(json, booking.getStatus().name()).append(",\"bookedAt\":");
+        return string(json, booking.getBookingTime().toString()).append('}');
+    }
+
+    private static <T> StringBuilder page(List<T> items, String nextCursor,
+                                          BiFunction<StringBuilder, T, StringBuilder> item) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (T entry : items) {
+            item.apply(separate(json), entry);
+        }
+        json.append("],\"next\":");
+        return (nextCursor == null ? json.append("null") : string(json, nextCursor)).append('}');
+    }
+
+    // an exception thrown without a message is named by its class
+    private static String messageOf(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : String.valueOf(e);
+    }
+
+    private static StringBuilder error(String message) {
+        return string(new StringBuilder("{\"error\":"), message).append('}');
+    }
+
+    // a comma before every element of an array but the first
+    private static StringBuilder separate(StringBuilder json) {
+        char last = json.charAt(json.length() - 1);
+        return last == '[' ? json : json.append(',');
+    }
+
+    // a missing value, such as the phone number of a patient added without one, is null
+    static StringBuilder string(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    // requests
+
+    // query string and form-encoded body, the body wins
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            decode(query, parameters);
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] form = body.readAllBytes();
+            if (form.length > 0) {
+                decode(new String(form, StandardCharsets.UTF_8), parameters);
+            }
+        }
+        return parameters;
+    }
+
+    private static void decode(String encoded, Map<String, String> parameters) {
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int pageSize(Map<String, String> parameters) {
+        return parameters.containsKey("limit") ? number(parameters.get("limit")) : DEFAULT_PAGE_SIZE;
+    }
+
+    private static int matchLimit(Map<String, String> parameters) {
+        return parameters.containsKey("limit") ? number(parameters.get("limit")) : DEFAULT_MATCH_LIMIT;
+    }
+
+    private static LocalDateTime dateTime(String value) {
+        return LocalDateTime.parse(value);
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static void notFound(HttpExchange exchange) throws IOException {
+        send(exchange, 404, error("Not found: " + exchange.getRequestURI().getPath()));
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bpc.system;
+
+/**
+ * A row of an import file that was rejected, and why
+ */
+public class BPC_ImportError {
+    private final String file;
+    private final long line;
+    private final String message;
+
+    public BPC_ImportError(String file, long line, String message) {
+        this.file = file;
+        this.line = line;
+        this.message = message;
+    }
+
+    // Getters
+    public String getFile() { return file; }
+    public long getLine() { return line; }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return file + ":" + line + ": " + message;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bpc.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many rows of each file were imported, and every rejected row
+ */
+public class BPC_ImportReport {
+    private final int patients;
+    private final int physiotherapists;
+    private final int bookings;
+    private final List<BPC_ImportError> errors;
+
+    public BPC_ImportReport(int patients, int physiotherapists, int bookings, List<BPC_ImportError> errors) {
+        this.patients = patients;
+        this.physiotherapists = physiotherapists;
+        this.bookings = bookings;
+        List<BPC_ImportError> sorted = new ArrayList<>(errors);
+        sorted.sort(Comparator.comparing(BPC_ImportError::getFile).thenComparingLong(BPC_ImportError::getLine));
+        this.errors = Collections.unmodifiableList(sorted);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    // Getters
+    public int getImportedPatients() { return patients; }
+    public int getImportedPhysiotherapists() { return physiotherapists; }
+    public int getImportedBookings() { return bookings; }
+    // rejected rows, by file and line
+    public List<BPC_ImportError> getErrors() { return errors; }
+
+    @Override
+    public String toString() {
+        return "Imported " + patients + " patients, " + physiotherapists + " physiotherapists and "
+                + bookings + " bookings, rejected " + errors.size() + " rows";
+    }
+}
@@ -0,0 +1,313 @@
+package com.bpc.system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal file with group commit.
+ * Records are collected in memory and written by a single background thread, so many
+ * concurrent appends share one write and one fsync. Each record is stored as its length,
+ * a CRC32C checksum and the payload. A last record cut short or garbled by a crash while it was
+ * appended is dropped on open; a broken record with more of the file after it fails the open
+ * instead, rather than silently dropping every record that follows it.
+ */
+public class BPC_Journal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long syncIntervalMillis;
+    private final Thread writer;
+
+    // guarded by this
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER);
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BUFFER);
+    private long appended;  // sequence number of the last appended record
+    private long written;   // last record handed to the operating system
+    private long synced;    // last record forced to disk
+    private boolean busy;   // the writer is working on a batch
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Opens or creates a journal
+     *
+     * @param file Journal file
+     * @param syncIntervalMillis 0 to fsync every batch before appends return, otherwise
+     *                           appends return once written and fsync runs at most this often,
+     *                           so at most this much time of changes can be lost on a crash
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalStateException if a record before the last one is corrupt
+     */
+    public BPC_Journal(Path file, long syncIntervalMillis) throws IOException {
+        if (syncIntervalMillis < 0) {
+            throw new IllegalArgumentException("Sync interval must not be negative: " + syncIntervalMillis);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.syncIntervalMillis = syncIntervalMillis;
+        try {
+            channel.position(validLength());
+            channel.truncate(channel.position());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // length of the file up to the last complete record, once only a torn last record follows it
+    private long validLength() throws IOException {
+        long end = scan(payload -> { });
+        long size = channel.size();
+        if (end < size && !isLastRecord(end, size)) {
+            throw new IllegalStateException("Corrupt journal record at byte " + end + " of " + size);
+        }
+        return end;
+    }
+
+    // whether the record at a position reaches the end of the file, as only an append in progress does
+    private boolean isLastRecord(long position, long size) throws IOException {
+        if (position + HEADER_BYTES > size) {
+            return true;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, position);
+        int length = header.getInt(0);
+        return length >= 0 && position + HEADER_BYTES + length >= size;
+    }
+
+    /**
+     * Passes the payload of every record, in the order they were appended
+     */
+    public synchronized void replay(Consumer<ByteBuffer> consumer) throws IOException {
+        scan(consumer);
+    }
+
+    // returns the position just after the last intact record
+    private long scan(Consumer<ByteBuffer> consumer) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        long position = 0;
+        long size = channel.size();
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            consumer.accept(payload.flip().asReadOnlyBuffer());
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+
+    /**
+     * Queues a record for writing. Call {@link #awaitDurable(long)} with the returned
+     * sequence number, ideally after releasing any locks, to wait until it is stored.
+     *
+     * @param payload Record contents, from its position to its limit
+     * @return the sequence number of the record
+     * @throws IllegalStateException if the journal is closed or failed
+     */
+    public synchronized long append(ByteBuffer payload) {
+        checkUsable();
+        int length = payload.remaining();
+        if (pending.remaining() < HEADER_BYTES + length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_BYTES + length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        putRecord(pending, payload);
+        appended++;
+        notifyAll();
+        return appended;
+    }
+
+    private static void putRecord(ByteBuffer target, ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        target.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload);
+    }
+
+    /**
+     * Empties the journal and starts it again with one record, forced to disk before
+     * returning. The caller must make sure nothing is appended meanwhile.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void reset(ByteBuffer firstRecord) throws IOException {
+        checkUsable();
+        // let the writer finish the records appended before
+        while (busy || pending.position() > 0 || written < appended) {
+            checkFailure();
+            waitQuietly(0);
+        }
+        channel.truncate(0);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + firstRecord.remaining());
+        putRecord(record, firstRecord);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(true);
+        appended++;
+        written = appended;
+        synced = appended;
+        notifyAll();
+    }
+
+    /**
+     * Waits until a record is stored: forced to disk when syncing every batch,
+     * otherwise written to the operating system
+     *
+     * @throws IllegalStateException if writing the journal failed
+     */
+    public synchronized void awaitDurable(long sequence) {
+        boolean interrupted = false;
+        while ((syncIntervalMillis == 0 ? synced : written) < sequence) {
+            checkFailure();
+            if (closed && !writer.isAlive()) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        long lastSync = System.currentTimeMillis();
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            boolean finished;
+            synchronized (this) {
+                while (pending.position() == 0 && !closed && written == synced) {
+                    waitQuietly(0);
+                }
+                if (pending.position() == 0 && !closed && syncIntervalMillis > 0) {
+                    // only an fsync is due, wait out the interval unless more records arrive
+                    long due = lastSync + syncIntervalMillis - System.currentTimeMillis();
+                    if (due > 0) {
+                        waitQuietly(due);
+                        continue;
+                    }
+                }
+                batch = pending;
+                pending = writing;
+                writing = batch;
+                batchEnd = appended;
+                finished = closed;
+                busy = true;
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                batch.clear();
+                long now = System.currentTimeMillis();
+                boolean sync = syncIntervalMillis == 0 || finished || now - lastSync >= syncIntervalMillis;
+                if (sync) {
+                    channel.force(false);
+                    lastSync = now;
+                }
+                synchronized (this) {
+                    busy = false;
+                    written = batchEnd;
+                    if (sync) {
+                        synced = batchEnd;
+                    }
+                    notifyAll();
+                    if (closed && pending.position() == 0 && synced == appended) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    busy = false;
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            // the writer only stops once the journal is closed
+        }
+    }
+
+    private void checkUsable() {
+        checkFailure();
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal could not be written", failure);
+        }
+    }
+
+    /**
+     * Writes and forces every appended record, then closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
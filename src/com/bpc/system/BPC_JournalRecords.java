@@ -0,0 +1,350 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_Treatment;
+import com.bpc.model.BPC_WorkingHours;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Clinic changes as journal records, and replaying them into a clinic.
+ * A record is a type byte followed by its fields; entities are referred to by key
+ * and date-times are stored as epoch seconds of the local time read as UTC.
+ */
+final class BPC_JournalRecords {
+    private static final byte PATIENT_ADDED = 1;
+    private static final byte PHYSIOTHERAPIST_ADDED = 2;
+    private static final byte BOOKING_CREATED = 3;
+    private static final byte BOOKING_CANCELLED = 4;
+    private static final byte BOOKING_ATTENDED = 5;
+    private static final byte BOOKING_MODIFIED = 6;
+    private static final byte PATIENT_DEACTIVATED = 7;
+    private static final byte PATIENT_REACTIVATED = 8;
+    private static final byte CHECKPOINT = 9;
+    private static final byte SERIES_CREATED = 10;
+    private static final byte BOOKINGS_CREATED = 11;
+    private static final byte SERIES_CANCELLED = 12;
+    private static final byte SERIES_MODIFIED = 13;
+    private static final int MAX_TEXT_BYTES = 65535;
+
+    private BPC_JournalRecords() {
+    }
+
+    /**
+     * Checks up front that text fits a record, which stores it as at most 65535 bytes of modified
+     * UTF-8, so a change is turned down before it is made rather than failing once it is
+     *
+     * @throws IllegalArgumentException if a value is too long
+     */
+    static void checkText(String... values) {
+        for (String value : values) {
+            // at most three bytes a char
+            if (value == null || value.length() <= MAX_TEXT_BYTES / 3) {
+                continue;
+            }
+            long bytes = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                bytes += c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+            }
+            if (bytes > MAX_TEXT_BYTES) {
+                throw new IllegalArgumentException("Text is too long to store: " + bytes + " bytes, at most "
+                        + MAX_TEXT_BYTES);
+            }
+        }
+    }
+
+    static ByteBuffer patientAdded(BPC_Patient patient) {
+        return record(PATIENT_ADDED, out -> {
+            out.writeLong(patient.getKey());
+            out.writeUTF(patient.getName());
+            out.writeUTF(patient.getAddress());
+            out.writeUTF(patient.getPhone());
+        });
+    }
+
+    static ByteBuffer physiotherapistAdded(BPC_Physiotherapist physiotherapist) {
+        return record(PHYSIOTHERAPIST_ADDED, out -> {
+            out.writeLong(physiotherapist.getKey());
+            out.writeUTF(physiotherapist.getName());
+            out.writeUTF(physiotherapist.getAddress());
+            out.writeUTF(physiotherapist.getPhone());
+            List<String> expertise = physiotherapist.getExpertise();
+            out.writeInt(expertise.size());
+            for (String phrase : expertise) {
+                out.writeUTF(phrase);
+            }
+            BPC_WorkingHours workingHours = physiotherapist.getWorkingHours();
+            int days = 0;
+            for (DayOfWeek day : workingHours.getWorkingDays()) {
+                days |= 1 << day.ordinal();
+            }
+            out.writeByte(days);
+            out.writeByte(workingHours.getFirstHour());
+            out.writeByte(workingHours.getLastHour());
+        });
+    }
+
+    static ByteBuffer bookingCreated(BPC_Booking booking) {
+        return bookingCreated(booking.getKey(), booking.getPatient(), booking.getTreatment(), booking.getBookingTime());
+    }
+
+    // a booking about to be made, so it is journaled before anything changes
+    static ByteBuffer bookingCreated(long key, BPC_Patient patient, BPC_Treatment treatment, LocalDateTime bookingTime) {
+        return record(BOOKING_CREATED, out -> writeBooking(out, key, patient, treatment, bookingTime));
+    }
+
+    // the bookings of a batch in one record, so a replay restores all of them or none
+    static ByteBuffer bookingsCreated(long[] keys, BPC_Patient[] patients, BPC_Treatment[] treatments,
+                                      LocalDateTime bookingTime) {
+        return record(BOOKINGS_CREATED, out -> {
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                writeBooking(out, keys[i], patients[i], treatments[i], bookingTime);
+            }
+        });
+    }
+
+    static ByteBuffer bookingCancelled(BPC_Booking booking) {
+        return record(BOOKING_CANCELLED, out -> out.writeLong(booking.getKey()));
+    }
+
+    static ByteBuffer bookingAttended(BPC_Booking booking) {
+        return record(BOOKING_ATTENDED, out -> out.writeLong(booking.getKey()));
+    }
+
+    // a booking about to be moved to a treatment
+    static ByteBuffer bookingModified(BPC_Booking booking, BPC_Treatment treatment) {
+        return record(BOOKING_MODIFIED, out -> {
+            out.writeLong(booking.getKey());
+            out.writeLong(treatment.getPhysiotherapist().getKey());
+            out.writeUTF(treatment.getName());
+            writeDateTime(out, treatment.getDateTime());
+        });
+    }
+
+    // the series with its bookings, so a replay restores all of them or none
+    static ByteBuffer seriesCreated(long key, BPC_Patient patient, int intervalWeeks, long[] bookingKeys,
+                                    List<BPC_Treatment> treatments, LocalDateTime bookingTime) {
+        return record(SERIES_CREATED, out -> {
+            out.writeLong(key);
+            out.writeLong(patient.getKey());
+            out.writeInt(intervalWeeks);
+            out.writeInt(bookingKeys.length);
+            for (int i = 0; i < bookingKeys.length; i++) {
+                writeBooking(out, bookingKeys[i], patient, treatments.get(i), bookingTime);
+            }
+        });
+    }
+
+    // the cancelled sessions of a series in one record
+    static ByteBuffer seriesCancelled(BPC_BookingSeries series, List<BPC_Booking> sessions) {
+        return record(SERIES_CANCELLED, out -> {
+            out.writeLong(series.getKey());
+            out.writeInt(sessions.size());
+            for (BPC_Booking session : sessions) {
+                out.writeLong(session.getKey());
+            }
+        });
+    }
+
+    // the moved sessions of a series in one record, in the order they are moved
+    static ByteBuffer seriesModified(BPC_BookingSeries series, List<BPC_Booking> sessions,
+                                     List<BPC_Treatment> treatments) {
+        return record(SERIES_MODIFIED, out -> {
+            out.writeLong(series.getKey());
+            out.writeLong(treatments.get(0).getPhysiotherapist().getKey());
+            out.writeUTF(treatments.get(0).getName());
+            out.writeInt(sessions.size());
+            for (int i = 0; i < sessions.size(); i++) {
+                out.writeLong(sessions.get(i).getKey());
+                writeDateTime(out, treatments.get(i).getDateTime());
+            }
+        });
+    }
+
+    static ByteBuffer patientDeactivated(BPC_Patient patient) {
+        return record(PATIENT_DEACTIVATED, out -> out.writeLong(patient.getKey()));
+    }
+
+    static ByteBuffer patientReactivated(BPC_Patient patient) {
+        return record(PATIENT_REACTIVATED, out -> out.writeLong(patient.getKey()));
+    }
+
+    // first record of a journal that continues the snapshot of this generation
+    static ByteBuffer checkpoint(long generation) {
+        return record(CHECKPOINT, out -> out.writeLong(generation));
+    }
+
+    /**
+     * @return the generation of a checkpoint record, or -1 for any other record
+     */
+    static long checkpointGeneration(ByteBuffer record) {
+        if (record.remaining() != 9 || record.get(record.position()) != CHECKPOINT) {
+            return -1;
+        }
+        return record.getLong(record.position() + 1);
+    }
+
+    /**
+     * Applies one record to a clinic that is being restored
+     *
+     * @throws IllegalStateException if the record is malformed or does not fit the clinic's state
+     */
+    static void apply(ByteBuffer record, BPC_Clinic clinic) {
+        byte[] bytes = new byte[record.remaining()];
+        record.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            byte type = in.readByte();
+            switch (type) {
+                case PATIENT_ADDED:
+                    clinic.restorePatient(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF());
+                    break;
+                case PHYSIOTHERAPIST_ADDED: {
+                    long key = in.readLong();
+                    String name = in.readUTF();
+                    String address = in.readUTF();
+                    String phone = in.readUTF();
+                    int count = in.readInt();
+                    List<String> expertise = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        expertise.add(in.readUTF());
+                    }
+                    int days = in.readByte();
+                    Set<DayOfWeek> workingDays = EnumSet.noneOf(DayOfWeek.class);
+                    for (DayOfWeek day : DayOfWeek.values()) {
+                        if ((days & (1 << day.ordinal())) != 0) {
+                            workingDays.add(day);
+                        }
+                    }
+                    BPC_WorkingHours workingHours = new BPC_WorkingHours(workingDays, in.readByte(), in.readByte());
+                    clinic.restorePhysiotherapist(key, name, address, phone, expertise, workingHours);
+                    break;
+                }
+                case BOOKING_CREATED:
+                    restoreBooking(in, clinic);
+                    break;
+                case BOOKINGS_CREATED: {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        restoreBooking(in, clinic);
+                    }
+                    break;
+                }
+                case BOOKING_CANCELLED:
+                    clinic.cancelBooking(clinic.bookingByKey(in.readLong()));
+                    break;
+                case BOOKING_ATTENDED:
+                    clinic.attendBooking(clinic.bookingByKey(in.readLong()));
+                    break;
+                case BOOKING_MODIFIED:
+                    clinic.modifyBooking(clinic.bookingByKey(in.readLong()), clinic.physiotherapistByKey(in.readLong()),
+                            in.readUTF(), readDateTime(in));
+                    break;
+                case SERIES_CREATED: {
+                    long key = in.readLong();
+                    BPC_Patient patient = clinic.patientByKey(in.readLong());
+                    int intervalWeeks = in.readInt();
+                    int count = in.readInt();
+                    List<BPC_Booking> bookings = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        bookings.add(clinic.bookingByKey(restoreBooking(in, clinic)));
+                    }
+                    clinic.restoreSeries(key, patient, intervalWeeks, bookings);
+                    break;
+                }
+                case SERIES_CANCELLED: {
+                    in.readLong(); // the series, its sessions are listed
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        clinic.cancelBooking(clinic.bookingByKey(in.readLong()));
+                    }
+                    break;
+                }
+                case SERIES_MODIFIED: {
+                    in.readLong(); // the series, its sessions are listed
+                    BPC_Physiotherapist physiotherapist = clinic.physiotherapistByKey(in.readLong());
+                    String treatmentName = in.readUTF();
+                    int count = in.readInt();
+                    List<BPC_Booking> sessions = new ArrayList<>(count);
+                    List<LocalDateTime> dateTimes = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        sessions.add(clinic.bookingByKey(in.readLong()));
+                        dateTimes.add(readDateTime(in));
+                    }
+                    clinic.restoreSeriesMove(sessions, physiotherapist, treatmentName, dateTimes);
+                    break;
+                }
+                case PATIENT_DEACTIVATED:
+                    clinic.deactivatePatient(clinic.patientByKey(in.readLong()));
+                    break;
+                case PATIENT_REACTIVATED:
+                    clinic.reactivatePatient(clinic.patientByKey(in.readLong()));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record type: " + type);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Truncated journal record", e);
+        }
+    }
+
+    private interface Fields {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static ByteBuffer record(byte type, Fields fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(type);
+            fields.write(out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writeBooking(DataOutputStream out, long key, BPC_Patient patient, BPC_Treatment treatment,
+                                     LocalDateTime bookingTime) throws IOException {
+        out.writeLong(key);
+        out.writeLong(patient.getKey());
+        out.writeLong(treatment.getPhysiotherapist().getKey());
+        out.writeUTF(treatment.getName());
+        writeDateTime(out, treatment.getDateTime());
+        writeDateTime(out, bookingTime);
+    }
+
+    // returns the restored booking's key
+    private static long restoreBooking(DataInputStream in, BPC_Clinic clinic) throws IOException {
+        long key = in.readLong();
+        clinic.restoreBooking(key, in.readLong(), in.readLong(), in.readUTF(), readDateTime(in), readDateTime(in));
+        return key;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+    }
+}
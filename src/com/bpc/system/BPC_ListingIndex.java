@@ -0,0 +1,223 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Sorted indexes behind the paginated listings: patients by id and by name, physiotherapists
+ * by name and bookings by appointment time, also per physiotherapist. Pages start after a cursor
+ * and time ranges at their start, so fetching one costs a skip list search plus the bookings
+ * fetched, however far into the listing it is.
+ */
+class BPC_ListingIndex {
+    private static final Comparator<BPC_Patient> PATIENT_NAMES = Comparator
+            .comparing(BPC_Patient::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(BPC_Patient::getKey);
+    private static final Comparator<BPC_Physiotherapist> PHYSIOTHERAPIST_NAMES = Comparator
+            .comparing(BPC_Physiotherapist::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(BPC_Physiotherapist::getKey);
+
+    /**
+     * A booking at its place in the time order. Bookings move, so the position keeps the
+     * appointment time the booking had when it was added instead of reading the booking's.
+     */
+    private static final class Position implements Comparable<Position> {
+        private final long time; // epoch second of the appointment
+        private final long key;
+        private final BPC_Booking booking; // null in positions only used to search
+
+        Position(LocalDateTime dateTime, long key, BPC_Booking booking) {
+            this.time = dateTime.toEpochSecond(ZoneOffset.UTC);
+            this.key = key;
+            this.booking = booking;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(key, other.key);
+        }
+    }
+
+    private final NavigableSet<BPC_Patient> patientsById;
+    private final NavigableSet<BPC_Patient> patientsByName;
+    private final NavigableSet<BPC_Physiotherapist> physiotherapistsByName;
+    private final NavigableSet<Position> bookingsByTime;
+    // physiotherapist key -> the physiotherapist's bookings by time
+    private final Map<Long, NavigableSet<Position>> physiotherapistBookings;
+
+    BPC_ListingIndex() {
+        patientsById = new ConcurrentSkipListSet<>(Comparator.comparingLong(BPC_Patient::getKey));
+        patientsByName = new ConcurrentSkipListSet<>(PATIENT_NAMES);
+        physiotherapistsByName = new ConcurrentSkipListSet<>(PHYSIOTHERAPIST_NAMES);
+        bookingsByTime = new ConcurrentSkipListSet<>();
+        physiotherapistBookings = new ConcurrentHashMap<>();
+    }
+
+    void patientAdded(BPC_Patient patient) {
+        patientsById.add(patient);
+        patientsByName.add(patient);
+    }
+
+    void physiotherapistAdded(BPC_Physiotherapist physiotherapist) {
+        physiotherapistsByName.add(physiotherapist);
+    }
+
+    void bookingAdded(BPC_Booking booking) {
+        Position position = position(booking);
+        bookingsByTime.add(position);
+        bookingsOf(booking.getTreatment().getPhysiotherapist()).add(position);
+    }
+
+    private NavigableSet<Position> bookingsOf(BPC_Physiotherapist physiotherapist) {
+        return physiotherapistBookings.computeIfAbsent(physiotherapist.getKey(), k -> new ConcurrentSkipListSet<>());
+    }
+
+    private static Position position(BPC_Booking booking) {
+        return new Position(booking.getTreatment().getDateTime(), booking.getKey(), booking);
+    }
+
+    /**
+     * Indexes the patients and physiotherapists of a loaded snapshot. They are added in sorted
+     * order, which keeps each skip list search on recently visited nodes and takes a fraction of
+     * the time that adding them in registry order does.
+     */
+    void addAll(List<BPC_Patient> patients, List<BPC_Physiotherapist> physiotherapists) {
+        patients.sort(patientsById.comparator());
+        patientsById.addAll(patients);
+        patients.sort(PATIENT_NAMES);
+        patientsByName.addAll(patients);
+        physiotherapists.sort(PHYSIOTHERAPIST_NAMES);
+        physiotherapistsByName.addAll(physiotherapists);
+    }
+
+    // adds many bookings in sorted order, see addAll
+    void addBookings(List<BPC_Booking> bookings) {
+        Position[] positions = new Position[bookings.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = position(bookings.get(i));
+        }
+        Arrays.sort(positions);
+        bookingsByTime.addAll(Arrays.asList(positions));
+        Map<Long, List<Position>> byPhysiotherapist = new HashMap<>();
+        for (Position position : positions) {
+            byPhysiotherapist.computeIfAbsent(position.booking.getTreatment().getPhysiotherapist().getKey(),
+                    k -> new ArrayList<>()).add(position);
+        }
+        byPhysiotherapist.forEach((key, sorted) ->
+                physiotherapistBookings.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).addAll(sorted));
+    }
+
+    /**
+     * Moves a booking to its new appointment time and physiotherapist, called with the booking's locks held
+     *
+     * @param from Appointment time before the move
+     * @param fromPhysiotherapist Physiotherapist before the move
+     */
+    void bookingMoved(BPC_Booking booking, LocalDateTime from, BPC_Physiotherapist fromPhysiotherapist) {
+        Position previous = new Position(from, booking.getKey(), null);
+        bookingsByTime.remove(previous);
+        bookingsOf(fromPhysiotherapist).remove(previous);
+        bookingAdded(booking);
+    }
+
+    // the listings below start after the given entry, or at the beginning if it is null
+
+    BPC_Page<BPC_Patient> patientsById(BPC_Patient after, int limit) {
+        return page(tail(patientsById, after), limit, BPC_Patient::getId);
+    }
+
+    BPC_Page<BPC_Patient> patientsByName(BPC_Patient after, int limit) {
+        return page(tail(patientsByName, after), limit, BPC_Patient::getId);
+    }
+
+    BPC_Page<BPC_Physiotherapist> physiotherapistsByName(BPC_Physiotherapist after, int limit) {
+        return page(tail(physiotherapistsByName, after), limit, BPC_Physiotherapist::getId);
+    }
+
+    private static <T> Iterator<T> tail(NavigableSet<T> sorted, T after) {
+        return (after == null ? sorted : sorted.tailSet(after, false)).iterator();
+    }
+
+    /**
+     * Bookings by appointment time, then by id. The cursor holds the time and id of the last
+     * booking of the previous page, so it stays valid if that booking is moved meanwhile.
+     */
+    BPC_Page<BPC_Booking> bookingsByTime(String cursor, int limit) {
+        Iterator<Position> positions = (cursor == null ? bookingsByTime
+                : bookingsByTime.tailSet(bookingPosition(cursor), false)).iterator();
+        Iterator<BPC_Booking> bookings = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return positions.hasNext();
+            }
+
+            @Override
+            public BPC_Booking next() {
+                return positions.next().booking;
+            }
+        };
+        return page(bookings, limit, booking -> booking.getTreatment().getDateTime() + "/" + booking.getId());
+    }
+
+    // bookings with an appointment in [from, to), by time then by id
+    List<BPC_Booking> bookingsBetween(LocalDateTime from, LocalDateTime to) {
+        return between(bookingsByTime, from, to);
+    }
+
+    List<BPC_Booking> bookingsBetween(LocalDateTime from, LocalDateTime to, BPC_Physiotherapist physiotherapist) {
+        NavigableSet<Position> positions = physiotherapistBookings.get(physiotherapist.getKey());
+        return positions == null ? new ArrayList<>() : between(positions, from, to);
+    }
+
+    private static List<BPC_Booking> between(NavigableSet<Position> positions, LocalDateTime from, LocalDateTime to) {
+        List<BPC_Booking> bookings = new ArrayList<>();
+        for (Position position : positions.subSet(new Position(from, Long.MIN_VALUE, null), true,
+                new Position(to, Long.MIN_VALUE, null), false)) {
+            bookings.add(position.booking);
+        }
+        return bookings;
+    }
+
+    private static Position bookingPosition(String cursor) {
+        int separator = cursor.lastIndexOf('/');
+        long key = separator < 0 ? -1 : BPC_IdGenerator.parseBookingKey(cursor.substring(separator + 1));
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new Position(LocalDateTime.parse(cursor.substring(0, separator)), key, null);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static <T> BPC_Page<T> page(Iterator<T> next, int limit, Function<T, String> cursorOf) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        while (items.size() < limit && next.hasNext()) {
+            items.add(next.next());
+        }
+        String nextCursor = next.hasNext() && !items.isEmpty() ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new BPC_Page<>(items, nextCursor);
+    }
+}
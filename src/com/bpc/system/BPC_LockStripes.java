@@ -0,0 +1,73 @@
+package com.bpc.system;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by keys through hashing (lock striping).
+ * Several stripes are always acquired in ascending stripe order, so two callers
+ * locking overlapping sets of keys cannot deadlock each other.
+ */
+public class BPC_LockStripes {
+    private final ReentrantLock[] locks;
+
+    /**
+     * Creates the lock stripes
+     *
+     * @param stripes Number of stripes, rounded up to a power of two
+     */
+    public BPC_LockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public int stripeOf(long key) {
+        int hash = Long.hashCode(key * 0x9e3779b97f4a7c15L);
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    /**
+     * Locks the stripes of all given keys, each stripe once, in ascending order
+     *
+     * @return the locked stripes, to be passed to {@link #unlock(int[])}
+     */
+    public int[] lock(long... keys) {
+        int[] stripes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            stripes[i] = stripeOf(keys[i]);
+        }
+        Arrays.sort(stripes);
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1]) {
+                stripes[count++] = stripes[i];
+            }
+        }
+        int[] distinct = Arrays.copyOf(stripes, count);
+        for (int stripe : distinct) {
+            locks[stripe].lock();
+        }
+        return distinct;
+    }
+
+    /**
+     * Locks every stripe, in ascending order
+     */
+    public int[] lockAll() {
+        int[] stripes = new int[locks.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = i;
+            locks[i].lock();
+        }
+        return stripes;
+    }
+
+    public void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.bpc.system;
+
+import com.bpc.util.BPC_LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, failures and rejection reasons of a clinic's operations, and failures of its booking
+ * listeners and changes dropped for them. Everything is counted with
+ * LongAdders, so measuring an operation adds two clock reads and a few uncontended additions
+ * to it and never a lock. Readings are snapshots, taken without stopping the clinic.
+ */
+public class BPC_Metrics implements BPC_MetricsMXBean {
+    public static final String MBEAN_NAME = "com.bpc:type=Clinic,name=Metrics";
+    // start time of an operation that is not measured
+    private static final long NOT_MEASURED = Long.MIN_VALUE;
+
+    private final BPC_LatencyHistogram[] latencies; // by operation
+    private final LongAdder[] failures; // by operation
+    private final LongAdder[] rejections; // by reason
+    private final LongAdder listenerFailures;
+    private final LongAdder droppedBookingChanges;
+    private volatile boolean enabled;
+
+    public BPC_Metrics() {
+        latencies = new BPC_LatencyHistogram[BPC_Operation.values().length];
+        failures = new LongAdder[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new BPC_LatencyHistogram();
+            failures[i] = new LongAdder();
+        }
+        rejections = new LongAdder[BPC_RejectionReason.values().length];
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+        listenerFailures = new LongAdder();
+        droppedBookingChanges = new LongAdder();
+        enabled = true;
+    }
+
+    // called when an operation starts, its result is passed to finished
+    long started() {
+        return enabled ? System.nanoTime() : NOT_MEASURED;
+    }
+
+    void finished(BPC_Operation operation, long started, boolean succeeded) {
+        if (started != NOT_MEASURED) {
+            latencies[operation.ordinal()].record(System.nanoTime() - started);
+            if (!succeeded) {
+                failures[operation.ordinal()].increment();
+            }
+        }
+    }
+
+    void rejected(BPC_RejectionReason reason) {
+        if (enabled) {
+            rejections[reason.ordinal()].increment();
+        }
+    }
+
+    void listenerFailed() {
+        if (enabled) {
+            listenerFailures.increment();
+        }
+    }
+
+    void bookingChangeDropped() {
+        if (enabled) {
+            droppedBookingChanges.increment();
+        }
+    }
+
+    public BPC_OperationStats getStats(BPC_Operation operation) {
+        return new BPC_OperationStats(latencies[operation.ordinal()], failures[operation.ordinal()].sum());
+    }
+
+    public long getRejections(BPC_RejectionReason reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    // snapshots of every operation and reason, in declaration order
+
+    public Map<BPC_Operation, BPC_OperationStats> getOperationStats() {
+        Map<BPC_Operation, BPC_OperationStats> stats = new EnumMap<>(BPC_Operation.class);
+        for (BPC_Operation operation : BPC_Operation.values()) {
+            stats.put(operation, getStats(operation));
+        }
+        return stats;
+    }
+
+    public Map<BPC_RejectionReason, Long> getRejectionCounts() {
+        Map<BPC_RejectionReason, Long> counts = new EnumMap<>(BPC_RejectionReason.class);
+        for (BPC_RejectionReason reason : BPC_RejectionReason.values()) {
+            counts.put(reason, getRejections(reason));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, BPC_OperationStats> getOperations() {
+        Map<String, BPC_OperationStats> stats = new LinkedHashMap<>();
+        getOperationStats().forEach((operation, operationStats) -> stats.put(operation.name(), operationStats));
+        return stats;
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        getRejectionCounts().forEach((reason, count) -> counts.put(reason.name(), count));
+        return counts;
+    }
+
+    @Override
+    public long getListenerFailures() {
+        return listenerFailures.sum();
+    }
+
+    @Override
+    public long getDroppedBookingChanges() {
+        return droppedBookingChanges.sum();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Operations that start while measuring is off are not measured, nor are rejections or listener failures counted
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server
+     *
+     * @param name Object name, e.g. {@link #MBEAN_NAME}
+     * @throws JMException if the name is invalid or already registered
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+}
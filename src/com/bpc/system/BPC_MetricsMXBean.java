@@ -0,0 +1,32 @@
+package com.bpc.system;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link BPC_Metrics}, so JConsole or any JMX client can watch a running clinic
+ */
+public interface BPC_MetricsMXBean {
+    /**
+     * @return statistics of each operation, by operation name
+     */
+    Map<String, BPC_OperationStats> getOperations();
+
+    /**
+     * @return number of rejected requests, by reason
+     */
+    Map<String, Long> getRejections();
+
+    /**
+     * @return number of booking changes a listener threw on
+     */
+    long getListenerFailures();
+
+    /**
+     * @return number of booking changes no listener received, as one was a whole ring behind
+     */
+    long getDroppedBookingChanges();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+}
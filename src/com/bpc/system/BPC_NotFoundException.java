@@ -0,0 +1,12 @@
+package com.bpc.system;
+
+/**
+ * A request names a patient, physiotherapist, booking or series the clinic does not have
+ */
+public class BPC_NotFoundException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public BPC_NotFoundException(String message) {
+        super(message);
+    }
+}
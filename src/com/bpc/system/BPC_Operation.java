@@ -0,0 +1,16 @@
+package com.bpc.system;
+
+/**
+ * Clinic operations whose latency and failures are measured, see {@link BPC_Metrics}
+ */
+public enum BPC_Operation {
+    CREATE_BOOKING,
+    CANCEL_BOOKING,
+    ATTEND_BOOKING,
+    MODIFY_BOOKING,
+    GENERATE_REPORT,
+    CREATE_BOOKINGS,
+    CREATE_BOOKING_SERIES,
+    CANCEL_BOOKING_SERIES,
+    MODIFY_BOOKING_SERIES
+}
@@ -0,0 +1,44 @@
+package com.bpc.system;
+
+import com.bpc.util.BPC_LatencyHistogram;
+
+/**
+ * Snapshot of how often one clinic operation ran, how often it failed and how long it took,
+ * failed runs included. Durations are in microseconds, percentiles at most 25% above the truth.
+ */
+public class BPC_OperationStats {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final long count;
+    private final long failures;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double maxMicros;
+
+    BPC_OperationStats(BPC_LatencyHistogram latencies, long failures) {
+        this.count = latencies.getCount();
+        this.failures = failures;
+        this.meanMicros = latencies.getMeanNanos() / NANOS_PER_MICRO;
+        this.p50Micros = latencies.getPercentileNanos(0.5) / NANOS_PER_MICRO;
+        this.p90Micros = latencies.getPercentileNanos(0.9) / NANOS_PER_MICRO;
+        this.p99Micros = latencies.getPercentileNanos(0.99) / NANOS_PER_MICRO;
+        this.maxMicros = latencies.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d runs, %d failed, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us",
+                count, failures, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+    }
+
+    // Getters
+    public long getCount() { return count; }
+    public long getFailures() { return failures; }
+    public double getMeanMicros() { return meanMicros; }
+    public double getP50Micros() { return p50Micros; }
+    public double getP90Micros() { return p90Micros; }
+    public double getP99Micros() { return p99Micros; }
+    public double getMaxMicros() { return maxMicros; }
+}
@@ -0,0 +1,28 @@
+package com.bpc.system;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a sorted listing, with the cursor to pass back for the page after it
+ *
+ * @param <T> Listed entity type
+ */
+public class BPC_Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    BPC_Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    // Getters
+    public List<T> getItems() { return items; }
+    // null on the last page
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,16 @@
+package com.bpc.system;
+
+/**
+ * Why the clinic turned a request down, tallied by {@link BPC_Metrics}
+ */
+public enum BPC_RejectionReason {
+    INVALID_REQUEST,          // missing parameter
+    NOT_FOUND,                // unknown patient, physiotherapist, booking or series
+    INACTIVE_PATIENT,
+    INACTIVE_PHYSIOTHERAPIST,
+    SLOT_UNAVAILABLE,         // outside working hours or already taken
+    EXPERTISE_MISMATCH,       // treatment the physiotherapist is not qualified for
+    PATIENT_DOUBLE_BOOKED,    // the patient has another booking at that time
+    IN_THE_PAST,
+    NOT_BOOKED                // the booking was already cancelled or attended
+}
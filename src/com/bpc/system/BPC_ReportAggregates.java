@@ -0,0 +1,176 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Physiotherapist;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Report data kept up to date as bookings change, so reports do not regroup every booking.
+ * Updates for one physiotherapist are expected to happen under that physiotherapist's booking lock.
+ */
+public class BPC_ReportAggregates {
+    private static final Comparator<Ranking> BY_ATTENDED =
+            Comparator.comparingLong(Ranking::attended).reversed()
+                    .thenComparingLong(ranking -> ranking.physiotherapist().getKey());
+
+    // physiotherapist key -> bookings and attended count
+    private final NavigableMap<Long, Stats> stats;
+    // physiotherapists with at least one attended booking, most attended first
+    private final NavigableSet<Ranking> ranking;
+
+    public BPC_ReportAggregates() {
+        stats = new ConcurrentSkipListMap<>();
+        ranking = new ConcurrentSkipListSet<>(BY_ATTENDED);
+    }
+
+    private static class Ranking {
+        private final BPC_Physiotherapist physiotherapist;
+        private final long attended;
+
+        Ranking(BPC_Physiotherapist physiotherapist, long attended) {
+            this.physiotherapist = physiotherapist;
+            this.attended = attended;
+        }
+
+        long attended() { return attended; }
+        BPC_Physiotherapist physiotherapist() { return physiotherapist; }
+    }
+
+    private static class Stats {
+        private final BPC_Physiotherapist physiotherapist;
+        private final Set<BPC_Booking> bookings = new LinkedHashSet<>();
+        private Ranking ranking;
+
+        Stats(BPC_Physiotherapist physiotherapist) {
+            this.physiotherapist = physiotherapist;
+            this.ranking = new Ranking(physiotherapist, 0);
+        }
+    }
+
+    private Stats statsOf(BPC_Physiotherapist physiotherapist) {
+        return stats.computeIfAbsent(physiotherapist.getKey(), key -> new Stats(physiotherapist));
+    }
+
+    public void bookingCreated(BPC_Booking booking) {
+        Stats physioStats = statsOf(booking.getTreatment().getPhysiotherapist());
+        synchronized (physioStats) {
+            physioStats.bookings.add(booking);
+        }
+    }
+
+    public void bookingAttended(BPC_Booking booking) {
+        Stats physioStats = statsOf(booking.getTreatment().getPhysiotherapist());
+        synchronized (physioStats) {
+            rank(physioStats, physioStats.ranking.attended + 1);
+        }
+    }
+
+    /**
+     * Adds all bookings of one physiotherapist at once, in the order they were made, when restoring
+     * a clinic or importing bookings
+     */
+    public void bookingsRestored(BPC_Physiotherapist physiotherapist, List<BPC_Booking> restored) {
+        Stats physioStats = statsOf(physiotherapist);
+        synchronized (physioStats) {
+            long attended = physioStats.ranking.attended;
+            for (BPC_Booking booking : restored) {
+                physioStats.bookings.add(booking);
+                if (booking.getStatus() == BPC_BookingStatus.ATTENDED) {
+                    attended++;
+                }
+            }
+            if (attended != physioStats.ranking.attended) {
+                rank(physioStats, attended);
+            }
+        }
+    }
+
+    private void rank(Stats physioStats, long attended) {
+        Ranking updated = new Ranking(physioStats.physiotherapist, attended);
+        ranking.remove(physioStats.ranking);
+        ranking.add(updated);
+        physioStats.ranking = updated;
+    }
+
+    /**
+     * Moves a booking to the list of its new physiotherapist after a modification
+     */
+    public void bookingMoved(BPC_Booking booking, BPC_Physiotherapist previous) {
+        BPC_Physiotherapist current = booking.getTreatment().getPhysiotherapist();
+        if (current.equals(previous)) {
+            return;
+        }
+        Stats previousStats = statsOf(previous);
+        synchronized (previousStats) {
+            previousStats.bookings.remove(booking);
+        }
+        bookingCreated(booking);
+    }
+
+    /**
+     * Bookings grouped by physiotherapist, ordered by physiotherapist key, i.e. in the order they were added.
+     * Physiotherapists without bookings are left out.
+     */
+    public Map<BPC_Physiotherapist, List<BPC_Booking>> getBookingsByPhysiotherapist() {
+        Map<BPC_Physiotherapist, List<BPC_Booking>> result = new LinkedHashMap<>();
+        for (Stats physioStats : stats.values()) {
+            synchronized (physioStats) {
+                if (!physioStats.bookings.isEmpty()) {
+                    result.put(physioStats.physiotherapist, new ArrayList<>(physioStats.bookings));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Physiotherapists with at least one booking, ordered by physiotherapist key
+     */
+    public List<BPC_Physiotherapist> getPhysiotherapistsWithBookings() {
+        List<BPC_Physiotherapist> result = new ArrayList<>();
+        for (Stats physioStats : stats.values()) {
+            synchronized (physioStats) {
+                if (!physioStats.bookings.isEmpty()) {
+                    result.add(physioStats.physiotherapist);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copy of one physiotherapist's bookings, in the order they were made
+     */
+    public List<BPC_Booking> getBookings(BPC_Physiotherapist physiotherapist) {
+        Stats physioStats = stats.get(physiotherapist.getKey());
+        if (physioStats == null) {
+            return new ArrayList<>();
+        }
+        synchronized (physioStats) {
+            return new ArrayList<>(physioStats.bookings);
+        }
+    }
+
+    /**
+     * Physiotherapists with attended bookings, most attended first
+     */
+    public List<Map.Entry<BPC_Physiotherapist, Long>> getAttendedRanking() {
+        List<Map.Entry<BPC_Physiotherapist, Long>> result = new ArrayList<>(ranking.size());
+        for (Ranking entry : ranking) {
+            result.add(Map.entry(entry.physiotherapist, entry.attended));
+        }
+        return result;
+    }
+}
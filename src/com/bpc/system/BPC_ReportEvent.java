@@ -0,0 +1,24 @@
+package com.bpc.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Generating or streaming the clinic report, see {@link BPC_BookingEvent}
+ */
+@Name("com.bpc.Report")
+@Label("Report")
+@Category({"BPC Clinic", "Reports"})
+@StackTrace(false)
+class BPC_ReportEvent extends Event {
+    @Label("Physiotherapists")
+    int physiotherapists;
+
+    @Label("Outcome")
+    @Description("OK, or why the report could not be written")
+    String outcome;
+}
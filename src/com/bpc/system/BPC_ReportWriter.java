@@ -0,0 +1,102 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Physiotherapist;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the clinic report piece by piece to any Appendable (StringBuilder, Writer, ...).
+ * Only one physiotherapist's bookings are held at a time, and lines are appended
+ * field by field instead of going through String.format.
+ */
+public class BPC_ReportWriter {
+    private final Appendable out;
+
+    public BPC_ReportWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public void write(BPC_ReportAggregates aggregates) throws IOException {
+        out.append("BOOST PHYSIO CLINIC - REPORT\n");
+        out.append("==============================\n\n");
+
+        // List all treatment appointments for each physiotherapist
+        out.append("APPOINTMENTS BY PHYSIOTHERAPIST\n");
+        out.append("------------------------------\n");
+        for (BPC_Physiotherapist physio : aggregates.getPhysiotherapistsWithBookings()) {
+            List<BPC_Booking> appointments = aggregates.getBookings(physio);
+
+            out.append(physio.getName()).append(" (").append(physio.getId()).append(")\n");
+
+            if (appointments.isEmpty()) {
+                out.append("  No appointments\n");
+            } else {
+                for (BPC_Booking booking : appointments) {
+                    out.append("  ").append(booking.getId()).append(" | ");
+                    appendDateTime(booking.getTreatment().getDateTime());
+                    out.append(" | ").append(booking.getTreatment().getName())
+                            .append(" | ").append(booking.getPatient().getName())
+                            .append(" | ").append(booking.getStatus().name())
+                            .append('\n');
+                }
+            }
+            out.append('\n');
+        }
+
+        // List physiotherapists by number of attended appointments
+        out.append("PHYSIOTHERAPISTS BY ATTENDED APPOINTMENTS\n");
+        out.append("----------------------------------------\n");
+        for (Map.Entry<BPC_Physiotherapist, Long> entry : aggregates.getAttendedRanking()) {
+            out.append(entry.getKey().getName()).append(" (").append(entry.getKey().getId()).append("): ");
+            appendNumber(entry.getValue(), 1);
+            out.append(" attended appointments\n");
+        }
+    }
+
+    /**
+     * Same text as LocalDateTime.toString, without building a String
+     */
+    private void appendDateTime(LocalDateTime dateTime) throws IOException {
+        if (dateTime.getYear() < 0 || dateTime.getYear() > 9999 || dateTime.getNano() != 0) {
+            out.append(dateTime.toString());
+            return;
+        }
+        appendNumber(dateTime.getYear(), 4);
+        out.append('-');
+        appendNumber(dateTime.getMonthValue(), 2);
+        out.append('-');
+        appendNumber(dateTime.getDayOfMonth(), 2);
+        out.append('T');
+        appendNumber(dateTime.getHour(), 2);
+        out.append(':');
+        appendNumber(dateTime.getMinute(), 2);
+        if (dateTime.getSecond() != 0) {
+            out.append(':');
+            appendNumber(dateTime.getSecond(), 2);
+        }
+    }
+
+    /**
+     * Appends a non-negative number, left padded with zeros to the given width
+     */
+    private void appendNumber(long value, int width) throws IOException {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+        long divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
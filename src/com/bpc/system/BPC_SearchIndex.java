@@ -0,0 +1,281 @@
+package com.bpc.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Type-ahead index of people by name and phone number. Every word of a name and the digits of
+ * the phone number are kept in sorted sets, so the matches for a typed prefix are a range of
+ * the set and the first few cost a skip list search, however many people are indexed.
+ * <p>
+ * Typos are corrected to indexed words one edit away: each distinct word is also filed under
+ * the words it gives with one letter deleted, and a query word meets its corrections there.
+ * Entries are added under the person's lock, searches do not lock and may miss someone
+ * being added meanwhile.
+ *
+ * @param <T> Indexed entity type
+ */
+class BPC_SearchIndex<T> {
+    // shorter query words are not corrected, nor corrected to shorter words: too many are one edit away
+    private static final int CORRECTED_LENGTH = 3;
+
+    // a word of a name, or the digits of a phone number, of one entity
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+        private final String word;
+        private final long key;
+        private final T entity; // null in entries only used to search
+
+        Entry(String word, long key, T entity) {
+            this.word = word;
+            this.key = key;
+            this.entity = entity;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            int byWord = word.compareTo(other.word);
+            return byWord != 0 ? byWord : Long.compare(key, other.key);
+        }
+    }
+
+    private final ToLongFunction<T> keyOf;
+    private final Function<T, String> nameOf;
+    private final Function<T, String> phoneOf;
+    private final NavigableSet<Entry<T>> names;
+    private final NavigableSet<Entry<T>> phones;
+    // distinct lowercase name words -> nothing, and word with one letter deleted -> the words giving it
+    private final Set<String> words;
+    private final Map<String, Set<String>> deletions;
+
+    BPC_SearchIndex(ToLongFunction<T> keyOf, Function<T, String> nameOf, Function<T, String> phoneOf) {
+        this.keyOf = keyOf;
+        this.nameOf = nameOf;
+        this.phoneOf = phoneOf;
+        names = new ConcurrentSkipListSet<>();
+        phones = new ConcurrentSkipListSet<>();
+        words = ConcurrentHashMap.newKeySet();
+        deletions = new ConcurrentHashMap<>();
+    }
+
+    void add(T entity) {
+        long key = keyOf.applyAsLong(entity);
+        for (String word : words(nameOf.apply(entity))) {
+            names.add(new Entry<>(word, key, entity));
+            wordAdded(word);
+        }
+        String digits = digits(phoneOf.apply(entity));
+        if (!digits.isEmpty()) {
+            phones.add(new Entry<>(digits, key, entity));
+        }
+    }
+
+    // adds many entities in sorted order, as BPC_ListingIndex.addAll does
+    void addAll(Collection<T> entities) {
+        List<Entry<T>> nameEntries = new ArrayList<>(entities.size() * 2);
+        List<Entry<T>> phoneEntries = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            long key = keyOf.applyAsLong(entity);
+            for (String word : words(nameOf.apply(entity))) {
+                nameEntries.add(new Entry<>(word, key, entity));
+                wordAdded(word);
+            }
+            String digits = digits(phoneOf.apply(entity));
+            if (!digits.isEmpty()) {
+                phoneEntries.add(new Entry<>(digits, key, entity));
+            }
+        }
+        Collections.sort(nameEntries);
+        names.addAll(nameEntries);
+        Collections.sort(phoneEntries);
+        phones.addAll(phoneEntries);
+    }
+
+    private void wordAdded(String word) {
+        if (words.add(word) && word.length() > 1) {
+            for (String deletion : deletionsOf(word)) {
+                deletions.computeIfAbsent(deletion, d -> ConcurrentHashMap.newKeySet()).add(word);
+            }
+        }
+    }
+
+    /**
+     * Finds people as a query is typed. A query of digits and punctuation only matches phone
+     * numbers starting with its digits. Otherwise each word of the query must start a word of
+     * the name, ignoring case. If that finds fewer than the limit, a query word that starts no
+     * indexed word is taken as a typo: people whose name has a word one edit away from it, or
+     * starting with such a word, follow.
+     *
+     * @param limit Maximum number of people to return
+     * @return matches, by the matched word then by key, then corrected matches
+     */
+    List<T> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Result limit must be positive");
+        }
+        Map<Long, T> found = new LinkedHashMap<>();
+        String digits = digits(query);
+        if (!digits.isEmpty() && !hasLetter(query)) {
+            collect(phones, digits, Collections.emptyList(), limit, found);
+            return new ArrayList<>(found.values());
+        }
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        collectNames(queryWords, limit, found);
+        for (String word : queryWords) {
+            if (found.size() >= limit) {
+                break;
+            }
+            // a word that starts an indexed word is taken as typed
+            if (word.length() >= CORRECTED_LENGTH && !startsIndexedWord(word)) {
+                for (String corrected : corrections(word)) {
+                    List<String> correctedWords = others(queryWords, word);
+                    correctedWords.add(corrected);
+                    collectNames(correctedWords, limit, found);
+                }
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    private boolean startsIndexedWord(String prefix) {
+        Entry<T> next = names.ceiling(new Entry<>(prefix, Long.MIN_VALUE, null));
+        return next != null && next.word.startsWith(prefix);
+    }
+
+    // adds the entities with a name word starting with each of the prefixes
+    private void collectNames(List<String> prefixes, int limit, Map<Long, T> found) {
+        // the longest prefix leads, it has the fewest matches to check against the others
+        String lead = Collections.max(prefixes, (a, b) -> Integer.compare(a.length(), b.length()));
+        collect(names, lead, others(prefixes, lead), limit, found);
+    }
+
+    // adds the entities with an entry starting with the prefix and a name word starting with each other word
+    private void collect(NavigableSet<Entry<T>> entries, String prefix, List<String> others, int limit,
+                         Map<Long, T> found) {
+        Entry<T> from = new Entry<>(prefix, Long.MIN_VALUE, null);
+        Entry<T> to = new Entry<>(prefix + Character.MAX_VALUE, Long.MIN_VALUE, null);
+        for (Entry<T> entry : entries.subSet(from, true, to, false)) {
+            if (found.size() >= limit) {
+                return;
+            }
+            if (!found.containsKey(entry.key) && startsWords(nameOf.apply(entry.entity), others)) {
+                found.put(entry.key, entry.entity);
+            }
+        }
+    }
+
+    private static boolean startsWords(String name, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (!startsWord(name, prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true if a word of the text starts with the lowercase prefix
+    private static boolean startsWord(String text, String prefix) {
+        for (int i = 0; i <= text.length() - prefix.length(); i++) {
+            boolean wordStart = i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+            if (wordStart && text.regionMatches(true, i, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> others(List<String> queryWords, String word) {
+        List<String> others = new ArrayList<>(queryWords);
+        others.remove(word);
+        return others;
+    }
+
+    /**
+     * Indexed words one deletion, insertion, substitution or swap of neighbouring letters away
+     * from a word, in sorted order. Two words are that close if one is the other with a letter
+     * deleted, or if deleting a letter from each gives the same word.
+     */
+    private Set<String> corrections(String word) {
+        Set<String> corrections = new TreeSet<>();
+        addAll(corrections, deletions.get(word)); // the query misses a letter
+        for (String deletion : deletionsOf(word)) {
+            if (deletion.length() >= CORRECTED_LENGTH && words.contains(deletion)) {
+                corrections.add(deletion); // the query has a letter too many
+            }
+            addAll(corrections, deletions.get(deletion)); // a letter is wrong or swapped
+        }
+        corrections.remove(word);
+        return corrections;
+    }
+
+    private static void addAll(Set<String> to, Set<String> words) {
+        if (words != null) {
+            to.addAll(words);
+        }
+    }
+
+    private static Set<String> deletionsOf(String word) {
+        Set<String> deletions = new TreeSet<>();
+        for (int i = 0; i < word.length(); i++) {
+            deletions.add(word.substring(0, i) + word.substring(i + 1));
+        }
+        return deletions;
+    }
+
+    // lowercase words of letters and digits
+    // a missing name or phone number has no words or digits
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>(2);
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static String digits(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static boolean hasLetter(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetter(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,341 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_Timetable;
+import com.bpc.model.BPC_Treatment;
+import com.bpc.model.BPC_WorkingHours;
+import com.bpc.util.BPC_LongMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Binary point-in-time image of a clinic.
+ * Layout: header (magic, version, journal generation, entity counts), a table of every
+ * distinct string, the patients, each physiotherapist followed by its timetable and
+ * its bookings in report order, then the booking series (since version 2). Strings are referred to by table index and date-times are
+ * stored as epoch seconds of the local time read as UTC. Snapshots are loaded through a
+ * memory-mapped buffer and restored without replaying any booking logic.
+ */
+final class BPC_Snapshot {
+    private static final int MAGIC = 0x42504353; // "BPCS"
+    private static final int VERSION = 2;
+
+    private BPC_Snapshot() {
+    }
+
+    /**
+     * Writes a snapshot, replacing the file only once it is complete and forced to disk.
+     * The caller must keep the clinic from changing meanwhile.
+     */
+    static void write(BPC_Clinic clinic, long generation, Path file) throws IOException {
+        List<BPC_Patient> patients = clinic.patientMap().values();
+        List<BPC_Physiotherapist> physiotherapists = clinic.physiotherapistMap().values();
+        Map<BPC_Physiotherapist, List<BPC_Booking>> bookings = new HashMap<>();
+        int bookingCount = 0;
+        for (BPC_Physiotherapist physiotherapist : physiotherapists) {
+            List<BPC_Booking> physioBookings = clinic.reportAggregates().getBookings(physiotherapist);
+            bookings.put(physiotherapist, physioBookings);
+            bookingCount += physioBookings.size();
+        }
+
+        // first pass collects the string table
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        for (BPC_Patient patient : patients) {
+            intern(patient.getName(), strings, table);
+            intern(patient.getAddress(), strings, table);
+            intern(patient.getPhone(), strings, table);
+        }
+        for (BPC_Physiotherapist physiotherapist : physiotherapists) {
+            intern(physiotherapist.getName(), strings, table);
+            intern(physiotherapist.getAddress(), strings, table);
+            intern(physiotherapist.getPhone(), strings, table);
+            for (String phrase : physiotherapist.getExpertise()) {
+                intern(phrase, strings, table);
+            }
+            for (BPC_Booking booking : bookings.get(physiotherapist)) {
+                intern(booking.getTreatment().getName(), strings, table);
+            }
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(patients.size());
+            out.writeInt(physiotherapists.size());
+            out.writeInt(bookingCount);
+
+            out.writeInt(table.size());
+            for (String value : table) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            for (BPC_Patient patient : patients) {
+                out.writeLong(patient.getKey());
+                out.writeInt(strings.get(patient.getName()));
+                out.writeInt(strings.get(patient.getAddress()));
+                out.writeInt(strings.get(patient.getPhone()));
+                out.writeBoolean(patient.isActive());
+            }
+
+            for (BPC_Physiotherapist physiotherapist : physiotherapists) {
+                out.writeLong(physiotherapist.getKey());
+                out.writeInt(strings.get(physiotherapist.getName()));
+                out.writeInt(strings.get(physiotherapist.getAddress()));
+                out.writeInt(strings.get(physiotherapist.getPhone()));
+                out.writeBoolean(physiotherapist.isActive());
+                List<String> expertise = physiotherapist.getExpertise();
+                out.writeInt(expertise.size());
+                for (String phrase : expertise) {
+                    out.writeInt(strings.get(phrase));
+                }
+                writeTimetable(out, physiotherapist.getTimetable());
+
+                List<BPC_Booking> physioBookings = bookings.get(physiotherapist);
+                out.writeInt(physioBookings.size());
+                for (BPC_Booking booking : physioBookings) {
+                    out.writeLong(booking.getKey());
+                    out.writeLong(booking.getPatient().getKey());
+                    out.writeInt(strings.get(booking.getTreatment().getName()));
+                    out.writeLong(booking.getTreatment().getDateTime().toEpochSecond(ZoneOffset.UTC));
+                    out.writeLong(booking.getBookingTime().toEpochSecond(ZoneOffset.UTC));
+                    out.writeByte(booking.getStatus().ordinal());
+                }
+            }
+
+            List<BPC_BookingSeries> series = clinic.seriesMap().values();
+            out.writeInt(series.size());
+            for (BPC_BookingSeries bookingSeries : series) {
+                out.writeLong(bookingSeries.getKey());
+                out.writeLong(bookingSeries.getPatient().getKey());
+                out.writeInt(bookingSeries.getIntervalWeeks());
+                List<BPC_Booking> seriesBookings = bookingSeries.getBookings();
+                out.writeInt(seriesBookings.size());
+                for (BPC_Booking booking : seriesBookings) {
+                    out.writeLong(booking.getKey());
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void intern(String value, Map<String, Integer> strings, List<String> table) {
+        if (!strings.containsKey(value)) {
+            strings.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    private static void writeTimetable(DataOutputStream out, BPC_Timetable timetable) throws IOException {
+        BPC_WorkingHours workingHours = timetable.getWorkingHours();
+        int days = 0;
+        for (DayOfWeek day : workingHours.getWorkingDays()) {
+            days |= 1 << day.ordinal();
+        }
+        out.writeByte(days);
+        out.writeByte(workingHours.getFirstHour());
+        out.writeByte(workingHours.getLastHour());
+        out.writeLong(timetable.getFirstWeek());
+        out.writeLong(timetable.getRolledOverWeeks());
+        out.writeLong(timetable.getRolledOverBookedSlots());
+        Map<Long, long[]> weeks = timetable.getBookedWeeks();
+        out.writeInt(weeks.size());
+        for (Map.Entry<Long, long[]> week : weeks.entrySet()) {
+            out.writeLong(week.getKey());
+            for (long word : week.getValue()) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Restores a snapshot into an empty clinic
+     *
+     * @return the journal generation the snapshot was taken at
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file is not a valid snapshot
+     */
+    static long read(Path file, BPC_Clinic clinic) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(in, clinic);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalStateException("Corrupt snapshot: " + file, e);
+        }
+    }
+
+    private static long read(ByteBuffer in, BPC_Clinic clinic) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a clinic snapshot");
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalStateException("Unsupported snapshot version: " + version);
+        }
+        long generation = in.getLong();
+        int patientCount = in.getInt();
+        int physiotherapistCount = in.getInt();
+        int bookingCount = in.getInt();
+        clinic.ensureCapacity(patientCount, physiotherapistCount, bookingCount);
+
+        String[] strings = new String[in.getInt()];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            int length = in.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        BPC_LongMap<BPC_Patient> patients = clinic.patientMap();
+        for (int i = 0; i < patientCount; i++) {
+            BPC_Patient patient = clinic.restorePatient(in.getLong(), strings[in.getInt()], strings[in.getInt()],
+                    strings[in.getInt()]);
+            if (in.get() == 0) {
+                patient.deactivate();
+            }
+        }
+
+        BPC_BookingStatus[] statuses = BPC_BookingStatus.values();
+        // slot times repeat across physiotherapists, so they are shared
+        BPC_LongMap<LocalDateTime> slotTimes = new BPC_LongMap<>();
+        for (int i = 0; i < physiotherapistCount; i++) {
+            long key = in.getLong();
+            String name = strings[in.getInt()];
+            String address = strings[in.getInt()];
+            String phone = strings[in.getInt()];
+            boolean active = in.get() != 0;
+            List<String> expertise = new ArrayList<>();
+            for (int count = in.getInt(); count > 0; count--) {
+                expertise.add(strings[in.getInt()]);
+            }
+            BPC_WorkingHours workingHours = readWorkingHours(in);
+            BPC_Physiotherapist physiotherapist = clinic.restorePhysiotherapist(key, name, address, phone,
+                    expertise, workingHours);
+            readTimetable(in, physiotherapist.getTimetable());
+            if (!active) {
+                physiotherapist.deactivate();
+            }
+
+            int count = in.getInt();
+            List<BPC_Booking> bookings = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                long bookingKey = in.getLong();
+                BPC_Patient patient = patients.get(in.getLong());
+                if (patient == null) {
+                    throw new IllegalStateException("Booking of an unknown patient: " + bookingKey);
+                }
+                String treatmentName = strings[in.getInt()];
+                LocalDateTime dateTime = slotTime(in.getLong(), slotTimes);
+                LocalDateTime bookingTime = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+                BPC_Treatment treatment = BPC_Treatment.restore(treatmentName, physiotherapist, dateTime);
+                bookings.add(BPC_Booking.restore(bookingKey, patient, treatment, statuses[in.get()], bookingTime));
+            }
+            clinic.restoreBookings(physiotherapist, bookings);
+        }
+
+        if (version >= 2) {
+            BPC_LongMap<BPC_Booking> bookings = clinic.bookingMap();
+            for (int count = in.getInt(); count > 0; count--) {
+                long key = in.getLong();
+                BPC_Patient patient = patients.get(in.getLong());
+                if (patient == null) {
+                    throw new IllegalStateException("Booking series of an unknown patient: " + key);
+                }
+                int intervalWeeks = in.getInt();
+                List<BPC_Booking> sessions = new ArrayList<>();
+                for (int sessionCount = in.getInt(); sessionCount > 0; sessionCount--) {
+                    BPC_Booking booking = bookings.get(in.getLong());
+                    if (booking == null) {
+                        throw new IllegalStateException("Booking series with an unknown booking: " + key);
+                    }
+                    sessions.add(booking);
+                }
+                clinic.restoreSeries(key, patient, intervalWeeks, sessions);
+            }
+        }
+        return generation;
+    }
+
+    private static LocalDateTime slotTime(long seconds, BPC_LongMap<LocalDateTime> slotTimes) {
+        // the map only takes positive keys, which covers every time after 1970
+        LocalDateTime dateTime = slotTimes.get(seconds);
+        if (dateTime == null) {
+            dateTime = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+            if (seconds > 0) {
+                slotTimes.put(seconds, dateTime);
+            }
+        }
+        return dateTime;
+    }
+
+    private static BPC_WorkingHours readWorkingHours(ByteBuffer in) {
+        int days = in.get();
+        Set<DayOfWeek> workingDays = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((days & (1 << day.ordinal())) != 0) {
+                workingDays.add(day);
+            }
+        }
+        return new BPC_WorkingHours(workingDays, in.get(), in.get());
+    }
+
+    private static void readTimetable(ByteBuffer in, BPC_Timetable timetable) {
+        long firstWeek = in.getLong();
+        long rolledOverWeeks = in.getLong();
+        long rolledOverBookedSlots = in.getLong();
+        int words = timetable.getWordsPerWeek();
+        Map<Long, long[]> weeks = new TreeMap<>();
+        for (int count = in.getInt(); count > 0; count--) {
+            long week = in.getLong();
+            long[] bits = new long[words];
+            for (int i = 0; i < words; i++) {
+                bits[i] = in.getLong();
+            }
+            weeks.put(week, bits);
+        }
+        timetable.restore(weeks, firstWeek, rolledOverWeeks, rolledOverBookedSlots);
+    }
+}
@@ -1,36 +1,170 @@
 package com.bpc.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class BPC_IdGenerator {
+    private static final String PATIENT_PREFIX = "PAT";
+    private static final String PHYSIOTHERAPIST_PREFIX = "PHY";
+    private static final String BOOKING_PREFIX = "BOOK";
+    private static final String SERIES_PREFIX = "SER";
+
     private static final AtomicInteger patientCounter = new AtomicInteger(1);
     private static final AtomicInteger physiotherapistCounter = new AtomicInteger(1);
     private static final AtomicInteger bookingCounter = new AtomicInteger(1);
+    private static final AtomicInteger seriesCounter = new AtomicInteger(1);
+
+    // per-thread scratch buffer the IDs are assembled in
+    private static final ThreadLocal<char[]> idBuffer = ThreadLocal.withInitial(() -> new char[32]);
+    private static volatile DayStamp today = DayStamp.of(System.currentTimeMillis());
+
+    /**
+     * One day as yyyyMMdd, with the time range the day covers in the default time zone
+     */
+    private static final class DayStamp {
+        private final int day;
+        private final long startMillis;
+        private final long endMillis;
+
+        private DayStamp(int day, long startMillis, long endMillis) {
+            this.day = day;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        static DayStamp of(long millis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            return new DayStamp(date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth(),
+                    date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+
+    //current day as yyyyMMdd, recomputed only when the date changes
+    private static int getCurrentTimestamp() {
+        long now = System.currentTimeMillis();
+        DayStamp stamp = today;
+        if (now < stamp.startMillis || now >= stamp.endMillis) {
+            stamp = DayStamp.of(now);
+            today = stamp;
+        }
+        return stamp.day;
+    }
+
+    //Key layout: yyyyMMdd in the upper 32 bits, sequence number in the lower 32 bits
+    private static long nextKey(AtomicInteger counter) {
+        return ((long) getCurrentTimestamp() << 32) | counter.getAndIncrement();
+    }
+
+    //Format: <PREFIX>_YYYYMMDD_XXXX, the sequence has at least 4 digits
+    private static String formatId(String prefix, long key) {
+        int day = (int) (key >>> 32);
+        int sequence = (int) key;
+        char[] buffer = idBuffer.get();
 
-    private static String getCurrentTimestamp() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        prefix.getChars(0, prefix.length(), buffer, 0);
+        int length = prefix.length();
+        buffer[length++] = '_';
+        for (int i = length + 7; i >= length; i--) {
+            buffer[i] = (char) ('0' + day % 10);
+            day /= 10;
+        }
+        length += 8;
+        buffer[length++] = '_';
+
+        int digits = 1;
+        for (int rest = sequence / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, 4);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + sequence % 10);
+            sequence /= 10;
+        }
+        return new String(buffer, 0, length + digits);
+    }
+
+    /**
+     * Parses an ID in the generated format back to its key
+     *
+     * @return the key, or -1 if the ID was not generated with this prefix
+     */
+    private static long parseKey(String id, String prefix) {
+        int start = prefix.length();
+        int sequenceStart = start + 10;
+        int sequenceDigits = id == null ? 0 : id.length() - sequenceStart;
+        if (sequenceDigits < 4 || sequenceDigits > 10 || !id.startsWith(prefix)
+                || id.charAt(start) != '_' || id.charAt(start + 9) != '_') {
+            return -1;
+        }
+        // a sequence longer than 4 digits has no leading zero
+        if (sequenceDigits > 4 && id.charAt(sequenceStart) == '0') {
+            return -1;
+        }
+        long day = 0;
+        for (int i = start + 1; i < start + 9; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            day = day * 10 + (c - '0');
+        }
+        long sequence = 0;
+        for (int i = sequenceStart; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            sequence = sequence * 10 + (c - '0');
+        }
+        if (sequence > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return (day << 32) | sequence;
     }
 
+    public static long nextPatientKey() { return nextKey(patientCounter); }
+    public static long nextPhysiotherapistKey() { return nextKey(physiotherapistCounter); }
+    public static long nextBookingKey() { return nextKey(bookingCounter); }
+    public static long nextSeriesKey() { return nextKey(seriesCounter); }
+
+    public static String formatPatientId(long key) { return formatId(PATIENT_PREFIX, key); }
+    public static String formatPhysiotherapistId(long key) { return formatId(PHYSIOTHERAPIST_PREFIX, key); }
+    public static String formatBookingId(long key) { return formatId(BOOKING_PREFIX, key); }
+    public static String formatSeriesId(long key) { return formatId(SERIES_PREFIX, key); }
+
+    public static long parsePatientKey(String id) { return parseKey(id, PATIENT_PREFIX); }
+    public static long parsePhysiotherapistKey(String id) { return parseKey(id, PHYSIOTHERAPIST_PREFIX); }
+    public static long parseBookingKey(String id) { return parseKey(id, BOOKING_PREFIX); }
+    public static long parseSeriesKey(String id) { return parseKey(id, SERIES_PREFIX); }
+
     //Format: PAT_YYYYMMDD_XXXX (e.g. PAT_20250304_0001)
     public static String generatePatientId(){
-        String timestamp = getCurrentTimestamp();
-        String sequence = String.format("%04d", patientCounter.getAndIncrement());
-        return String.format("PAT_%s_%s", timestamp, sequence);
+        return formatPatientId(nextPatientKey());
     }
 
     //Format: PHY_YYYYMMDD_XXXX (e.g. PHY_20250304_0001)
     public static String generatePhysiotherapistId(){
-        String timestamp = getCurrentTimestamp();
-        String sequence = String.format("%04d", physiotherapistCounter.getAndIncrement());
-        return String.format("PHY_%s_%s", timestamp, sequence);
+        return formatPhysiotherapistId(nextPhysiotherapistKey());
     }
 
+    //Format: BOOK_YYYYMMDD_XXXX (e.g. BOOK_20250304_0001)
     public static String generateBookingId(){
-        String timestamp = getCurrentTimestamp();
-        String sequence = String.format("%04d", bookingCounter.getAndIncrement());
-        return String.format("BOOK_%s_%s", timestamp, sequence);
+        return formatBookingId(nextBookingKey());
+    }
+
+    //keys generated after these calls come after the given key, used when restoring saved entities
+    public static void advancePatientCounter(long key) { advanceCounter(patientCounter, key); }
+    public static void advancePhysiotherapistCounter(long key) { advanceCounter(physiotherapistCounter, key); }
+    public static void advanceBookingCounter(long key) { advanceCounter(bookingCounter, key); }
+    public static void advanceSeriesCounter(long key) { advanceCounter(seriesCounter, key); }
+
+    private static void advanceCounter(AtomicInteger counter, long key) {
+        int sequence = (int) key;
+        counter.accumulateAndGet(sequence + 1, Math::max);
     }
 
     //testing purposes
@@ -38,17 +172,36 @@ public class BPC_IdGenerator {
         patientCounter.set(1);
         physiotherapistCounter.set(1);
         bookingCounter.set(1);
+        seriesCounter.set(1);
+    }
+
+    //checks <PREFIX>_ followed by 8 digits, '_' and 4 digits
+    private static boolean isValidId(String id, String prefix) {
+        int start = prefix.length();
+        if (id == null || id.length() != start + 14 || !id.startsWith(prefix)) {
+            return false;
+        }
+        if (id.charAt(start) != '_' || id.charAt(start + 9) != '_') {
+            return false;
+        }
+        for (int i = start + 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (i != start + 9 && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static boolean isValidPatientId(String id){
-        return id.matches("PAT_\\d{8}_\\d{4}");
+        return isValidId(id, PATIENT_PREFIX);
     }
 
     public static boolean isValidPhysiotherapistId(String id){
-        return id.matches("PHY_\\d{8}_\\d{4}");
+        return isValidId(id, PHYSIOTHERAPIST_PREFIX);
     }
 
     public static boolean isValidBookingId(String id){
-        return id.matches("BOOK_\\d{8}_\\d{4}");
+        return isValidId(id, BOOKING_PREFIX);
     }
 }
@@ -0,0 +1,213 @@
+package com.bpc.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from positive long keys to values, with linear probing.
+ * Keys and values live in two flat arrays, so an entry costs no node object and no boxing.
+ * Writers are serialised; lookups take no lock and see every entry whose put has completed.
+ * Entries are never removed.
+ */
+public class BPC_LongMap<V> {
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Key and value arrays of one capacity. A key slot is 0 while unused and is written
+     * (with release semantics) only after its value, so a reader that sees the key sees the value.
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private volatile Table table;
+    private volatile int size; // written under the lock, read without it
+
+    public BPC_LongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public BPC_LongMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int entries) {
+        // keep the load factor at or below one half
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slotOf(long key, int mask) {
+        // murmur3 finaliser, spreads sequential keys over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        Table current = table;
+        long[] keys = current.keys;
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long found = (long) KEYS.getAcquire(keys, slot);
+            if (found == key) {
+                return (V) current.values[slot];
+            }
+            if (found == 0) {
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Adds or replaces an entry
+     *
+     * @return the previous value, or null
+     * @throws IllegalArgumentException if the key is not positive or the value is null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V put(long key, V value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must be non-null");
+        }
+        if ((size + 1) * 2 > table.keys.length) {
+            resize(table.keys.length << 1);
+        }
+        Table current = table;
+        int mask = current.keys.length - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long found = current.keys[slot];
+            if (found == key) {
+                V previous = (V) current.values[slot];
+                current.values[slot] = value;
+                return previous;
+            }
+            if (found == 0) {
+                current.values[slot] = value;
+                KEYS.setRelease(current.keys, slot, key);
+                size++;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Grows the table so the given number of entries fit without further resizing
+     */
+    public synchronized void ensureCapacity(int entries) {
+        int capacity = capacityFor(entries);
+        if (capacity > table.keys.length) {
+            resize(capacity);
+        }
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            long key = old.keys[i];
+            if (key == 0) {
+                continue;
+            }
+            int slot = slotOf(key, mask);
+            while (resized.keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            resized.keys[slot] = key;
+            resized.values[slot] = old.values[i];
+        }
+        // publishing through the volatile field makes the whole new table visible
+        table = resized;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Visits every value. Entries added while iterating may or may not be visited.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        Table current = table;
+        for (int i = 0; i < current.keys.length; i++) {
+            if ((long) KEYS.getAcquire(current.keys, i) != 0) {
+                action.accept((V) current.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Iterates over every value without copying them. Like {@link #forEachValue(Consumer)},
+     * entries added while iterating may or may not be returned.
+     */
+    public Iterator<V> valueIterator() {
+        Table current = table;
+        return new Iterator<V>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < current.keys.length && (long) KEYS.getAcquire(current.keys, from) == 0) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < current.keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                V value = (V) current.values[next];
+                next = advance(next + 1);
+                return value;
+            }
+        };
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        forEachValue(values::add);
+        return values;
+    }
+}
@@ -0,0 +1,115 @@
+package com.bpc.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-only, live view of a long-keyed registry as a map from string ids, without copying it.
+ * Lookups parse the id back to its key, iteration walks the registry's table, and entries
+ * added meanwhile may or may not be seen, as with {@link BPC_LongMap#forEachValue}.
+ *
+ * @param <V> Entity type
+ */
+public class BPC_RegistryView<V> extends AbstractMap<String, V> {
+    private final BPC_LongMap<V> registry;
+    private final ToLongFunction<String> keyOf;
+    private final Function<? super V, String> idOf;
+    private Set<Map.Entry<String, V>> entries;
+    private Collection<V> values;
+
+    /**
+     * @param keyOf Parses an id to its key, negative if it is not an id of this registry
+     * @param idOf Id of an entity
+     */
+    public BPC_RegistryView(BPC_LongMap<V> registry, ToLongFunction<String> keyOf, Function<? super V, String> idOf) {
+        this.registry = registry;
+        this.keyOf = keyOf;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public V get(Object id) {
+        return id instanceof String ? registry.get(keyOf.applyAsLong((String) id)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object id) {
+        return get(id) != null;
+    }
+
+    @Override
+    public int size() {
+        return registry.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return registry.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Registry views are read-only");
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        registry.forEachValue(value -> action.accept(idOf.apply(value), value));
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (values == null) {
+            values = new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return registry.valueIterator();
+                }
+
+                @Override
+                public int size() {
+                    return registry.size();
+                }
+            };
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (entries == null) {
+            entries = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, V>> iterator() {
+                    Iterator<V> values = registry.valueIterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return values.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, V> next() {
+                            V value = values.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(idOf.apply(value), value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return registry.size();
+                }
+            };
+        }
+        return entries;
+    }
+}
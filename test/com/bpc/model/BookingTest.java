@@ -2,7 +2,10 @@ package com.bpc.model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,7 +26,7 @@ public class BookingTest {
                 "555-5678",
                 Arrays.asList("Test Specialty", "Test Treatment")
         );
-        dateTime = LocalDateTime.of(2025, 6, 16, 10, 0);
+        dateTime = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
         treatment = new BPC_Treatment("Test Treatment", physiotherapist, dateTime);
         booking = new BPC_Booking("B1", patient, treatment);
     }
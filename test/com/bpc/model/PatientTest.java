@@ -2,7 +2,10 @@ package com.bpc.model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
 import java.util.List;
 
@@ -18,7 +21,7 @@ public class PatientTest {
         patient = new BPC_Patient("P1", "Test Patient", "123 Test St", "555-1234");
         physio = new BPC_Physiotherapist("PHY1", "Test Physio", "456 Test Ave", "555-5678",
                 List.of("Test Specialty"));
-        dateTime = LocalDateTime.of(2025, 6, 16, 10, 0);
+        dateTime = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
     }
 
     @Test
@@ -110,4 +113,36 @@ public class PatientTest {
 
         assertTrue(exception.getMessage().contains("inactive patient"));
     }
+
+    @Test
+    void testActiveBookingIndexFollowsBookingChanges() {
+        // Given two active bookings
+        BPC_Booking first = new BPC_Booking("B1", patient, new BPC_Treatment("Test Treatment", physio, dateTime));
+        BPC_Booking second = new BPC_Booking("B2", patient,
+                new BPC_Treatment("Test Treatment", physio, dateTime.plusHours(1)));
+        patient.addBooking(first);
+        patient.addBooking(second);
+        assertEquals(2, patient.getActiveBookingCount());
+
+        // A booking at the same time overlaps
+        BPC_Physiotherapist otherPhysio = new BPC_Physiotherapist("PHY2", "Other Physio", "1 Test Rd", "555-0000",
+                List.of("Test Specialty"));
+        BPC_Booking clash = new BPC_Booking("B3", patient, new BPC_Treatment("Test Treatment", otherPhysio, dateTime));
+        assertTrue(patient.hasOverlappingBooking(clash));
+
+        // Moving a booking onto the time of another one is rejected
+        BPC_Treatment clashingMove = new BPC_Treatment("Test Treatment", otherPhysio, dateTime.plusHours(1));
+        assertThrows(IllegalArgumentException.class, () -> first.changeBooking(clashingMove));
+
+        // Moving a booking frees its old time
+        first.changeBooking(new BPC_Treatment("Test Treatment", physio, dateTime.plusHours(2)));
+        assertFalse(patient.hasOverlappingBooking(clash));
+
+        // Attended and cancelled bookings are no longer active
+        first.attend();
+        second.cancelBooking();
+        assertEquals(0, patient.getActiveBookingCount());
+        assertFalse(patient.hasActiveBooking());
+        assertEquals(2, patient.getBookings().size());
+    }
 }
@@ -3,8 +3,12 @@ package com.bpc.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,7 +25,7 @@ public class PhysiotherapistTest {
                 "456 Test Ave",
                 "555-5678",
                 List.of("Test Specialty"));
-        dateTime = LocalDateTime.of(2025, 6, 2, 10, 0);
+        dateTime = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
     }
 
     @Test
@@ -37,16 +41,16 @@ public class PhysiotherapistTest {
         // Check if the list is not empty
         assertFalse(availableAppointments.isEmpty());
 
-        // Define expected start and end dates for April 2025
-        LocalDateTime expectedStart = LocalDateTime.of(2025, 6, 2, 9, 0);
-        LocalDateTime expectedEnd = LocalDateTime.of(2025, 7, 1, 0, 0);
+        // Define expected start and end of the rolling booking horizon
+        LocalDateTime expectedStart = LocalDateTime.now();
+        LocalDateTime expectedEnd = expectedStart.plusWeeks(BPC_Physiotherapist.DEFAULT_HORIZON_WEEKS);
 
-        // Check if all appointments are within April
+        // Check if all appointments are within the horizon
         for (LocalDateTime appointment : availableAppointments) {
-            assertTrue(appointment.isEqual(expectedStart) || appointment.isAfter(expectedStart),
-                    "Appointment should be on or after June 1");
+            assertTrue(appointment.isAfter(expectedStart),
+                    "Appointment should be in the future");
             assertTrue(appointment.isBefore(expectedEnd),
-                    "Appointment should be before July 1");
+                    "Appointment should be within the booking horizon");
             // Ensure appointments are only on weekdays
             assertTrue(appointment.getDayOfWeek().getValue() < 6,
                     "Appointment should be on a weekday");
@@ -59,7 +63,7 @@ public class PhysiotherapistTest {
 
     @Test
     void testIsAvailable(){
-        // Given a test date/time in April 2025
+        // Given a test date/time next week
         boolean available = physiotherapist.isAvailable(dateTime);
 
         // Then it should be available initially
@@ -78,6 +82,63 @@ public class PhysiotherapistTest {
         assertTrue(physiotherapist.isAvailable(dateTime));
     }
 
+    @Test
+    void testAvailableAppointmentCount() {
+        // Given a week of 5 weekdays with 8 slots each
+        LocalDateTime weekStart = dateTime.toLocalDate().atStartOfDay();
+        LocalDateTime weekEnd = weekStart.plusWeeks(1);
+        int initial = physiotherapist.getAvailableAppointmentCount(weekStart, weekEnd);
+        assertEquals(5 * 8, initial);
+        assertEquals(initial, physiotherapist.getAvailableAppointments(weekStart, weekEnd).size());
+
+        // When a slot is assigned, the count drops by one
+        physiotherapist.assignAppointment(dateTime);
+        assertEquals(initial - 1, physiotherapist.getAvailableAppointmentCount(weekStart, weekEnd));
+        assertFalse(physiotherapist.getAvailableAppointments(weekStart, weekEnd).contains(dateTime));
+
+        // Times outside the timetable are never available
+        assertFalse(physiotherapist.isAvailable(dateTime.withHour(8)));
+        assertFalse(physiotherapist.isAvailable(dateTime.withMinute(30)));
+        assertFalse(physiotherapist.isAvailable(dateTime.plusDays(5))); // Saturday
+    }
+
+    @Test
+    void testBookingFarAhead() {
+        // Slots are available well beyond the listing horizon
+        LocalDateTime farAhead = dateTime.plusYears(2).with(TemporalAdjusters.next(DayOfWeek.TUESDAY));
+        assertTrue(physiotherapist.isAvailable(farAhead));
+        physiotherapist.assignAppointment(farAhead);
+        assertFalse(physiotherapist.isAvailable(farAhead));
+    }
+
+    @Test
+    void testCustomWorkingHours() {
+        // Given a physiotherapist working Saturday mornings only
+        BPC_Physiotherapist weekend = new BPC_Physiotherapist("PHY2", "Weekend Physio", "1 Test Rd", "555-0000",
+                List.of("Test Specialty"),
+                new BPC_WorkingHours(EnumSet.of(DayOfWeek.SATURDAY), 8, 12));
+        LocalDateTime saturday = dateTime.plusDays(5);
+
+        assertFalse(weekend.isAvailable(dateTime));
+        assertTrue(weekend.isAvailable(saturday.withHour(8)));
+        assertFalse(weekend.isAvailable(saturday.withHour(12)));
+        assertEquals(4, weekend.getAvailableAppointmentCount(dateTime, dateTime.plusWeeks(1)));
+    }
+
+    @Test
+    void testRolloverTimetable() {
+        // Given a booked slot
+        physiotherapist.assignAppointment(dateTime);
+
+        // When the timetable rolls over past that week
+        physiotherapist.rolloverTimetable(dateTime.toLocalDate().plusWeeks(1));
+
+        // Then the week is dropped into the summary counters and can no longer be booked
+        assertFalse(physiotherapist.isAvailable(dateTime));
+        assertFalse(physiotherapist.isAvailable(dateTime.plusHours(1)));
+        assertTrue(physiotherapist.isAvailable(dateTime.plusWeeks(1)));
+    }
+
     @Test
     void testActivateDeactivate() {
         // Initially active
@@ -0,0 +1,81 @@
+package com.bpc.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimetableTest {
+    private BPC_Timetable timetable;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        timetable = new BPC_Timetable(BPC_WorkingHours.standard());
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(9, 0);
+    }
+
+    @Test
+    void testWeeksAreCreatedOnlyWhenBooked() {
+        // Querying does not create any weeks
+        assertTrue(timetable.isAvailable(monday.plusWeeks(260)));
+        assertEquals(40, timetable.countAvailable(monday, monday.plusWeeks(1)));
+        assertEquals(0, timetable.getStoredWeekCount());
+
+        // Booking creates the week, freeing the last booking drops it again
+        assertTrue(timetable.book(monday));
+        assertEquals(1, timetable.getStoredWeekCount());
+        timetable.free(monday);
+        assertEquals(0, timetable.getStoredWeekCount());
+    }
+
+    @Test
+    void testAvailableSlotsWithinRange() {
+        timetable.book(monday.plusHours(1));
+
+        // From Monday 9:30 until Tuesday 10:00
+        List<LocalDateTime> slots = timetable.getAvailableSlots(monday.plusMinutes(30), monday.plusDays(1).plusHours(1));
+
+        assertEquals(6 + 1, slots.size());
+        assertEquals(monday.plusHours(2), slots.get(0));
+        assertEquals(monday.plusDays(1), slots.get(slots.size() - 1));
+    }
+
+    @Test
+    void testRolloverKeepsSummaryCounters() {
+        // Given bookings in two consecutive weeks
+        timetable.book(monday);
+        timetable.book(monday.plusHours(1));
+        timetable.book(monday.plusWeeks(1));
+
+        // When rolling over to the second week
+        timetable.rollover(monday.toLocalDate().plusWeeks(1));
+
+        // Then only the second week is kept
+        assertEquals(1, timetable.getStoredWeekCount());
+        assertEquals(1, timetable.getRolledOverWeeks());
+        assertEquals(2, timetable.getRolledOverBookedSlots());
+        assertFalse(timetable.isSlot(monday.plusHours(2)));
+        assertFalse(timetable.book(monday.plusHours(2)));
+    }
+
+    @Test
+    void testFirstUnavailableChecksSlotsInOnePass() {
+        timetable.book(monday.plusWeeks(2));
+        timetable.book(monday.plusWeeks(5).plusHours(1));
+
+        assertEquals(-1, timetable.firstUnavailable(List.of(monday.plusWeeks(1), monday.plusWeeks(3),
+                monday.plusWeeks(5))));
+        assertEquals(2, timetable.firstUnavailable(List.of(monday, monday.plusWeeks(1), monday.plusWeeks(2))));
+        // Saturday is not a working day
+        assertEquals(1, timetable.firstUnavailable(List.of(monday, monday.plusDays(5))));
+        assertThrows(IllegalArgumentException.class,
+                () -> timetable.firstUnavailable(List.of(monday.plusWeeks(1), monday)));
+    }
+}
@@ -3,7 +3,10 @@ package com.bpc.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,7 +29,7 @@ public class TreatmentTest {
                 Arrays.asList("Test Specialty", "Test Treatment")
         );
 
-        dateTime = LocalDateTime.of(2025, 6, 16, 10, 0);
+        dateTime = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
         treatment = new BPC_Treatment("Test Treatment", physiotherapist, dateTime);
     }
 
@@ -0,0 +1,200 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingListenerTest {
+    private BPC_Clinic system;
+    private BPC_Patient patient;
+    private BPC_Physiotherapist physio;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        patient = system.addPatient("Test Patient", "1 Test St", "555-0001");
+        physio = system.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678", List.of("Massage"));
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    // copies what it needs, the change itself is reused
+    private static class Recorder implements BPC_BookingChangeListener {
+        final List<String> changes = new ArrayList<>();
+        long lastSequence = -1;
+        boolean lastEndOfBatch;
+
+        @Override
+        public void changed(BPC_BookingChange change, boolean endOfBatch) {
+            assertTrue(change.getSequence() > lastSequence, "changes out of order");
+            lastSequence = change.getSequence();
+            lastEndOfBatch = endOfBatch;
+            changes.add(change.getType() + " " + change.getBookingId() + " " + change.getAppointment()
+                    + (change.getPreviousAppointment() != null ? " from " + change.getPreviousAppointment() : ""));
+        }
+    }
+
+    @Test
+    void testListenerReceivesChangesInOrder() {
+        BPC_Booking before = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+        Recorder recorder = new Recorder();
+        system.addBookingListener(recorder);
+        assertThrows(IllegalArgumentException.class, () -> system.addBookingListener(recorder));
+
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(1));
+        system.modifyBooking(booking.getId(), physio.getId(), "Massage", monday.plusHours(2));
+        system.cancelBooking(booking.getId());
+        system.attendBooking(before.getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> system.createBooking(patient.getId(), physio.getId(), "Acupuncture", monday.plusHours(3)));
+
+        // removing waits until the changes already made are delivered
+        assertTrue(system.removeBookingListener(recorder));
+        assertFalse(system.removeBookingListener(recorder));
+        assertEquals(List.of(
+                "CREATED " + booking.getId() + " " + monday.plusHours(1),
+                "MODIFIED " + booking.getId() + " " + monday.plusHours(2) + " from " + monday.plusHours(1),
+                "CANCELLED " + booking.getId() + " " + monday.plusHours(2),
+                "ATTENDED " + before.getId() + " " + monday), recorder.changes);
+        assertTrue(recorder.lastEndOfBatch);
+
+        system.cancelBooking(system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(4))
+                .getId());
+        assertEquals(4, recorder.changes.size());
+    }
+
+    @Test
+    void testListenerFailsAndRemovesItself() throws Exception {
+        CountDownLatch removed = new CountDownLatch(1);
+        boolean[] removedItself = new boolean[1];
+        Recorder recorder = new Recorder() {
+            @Override
+            public void changed(BPC_BookingChange change, boolean endOfBatch) {
+                super.changed(change, endOfBatch);
+                if (changes.size() == 1) {
+                    throw new IllegalStateException("Reminder could not be sent");
+                }
+                // returns at once, though the listener's own thread is the one to stop
+                removedItself[0] = system.removeBookingListener(this);
+                removed.countDown();
+            }
+        };
+        system.addBookingListener(recorder);
+        for (int i = 0; i < 3; i++) {
+            system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusWeeks(i));
+        }
+        assertTrue(removed.await(10, TimeUnit.SECONDS));
+        assertTrue(removedItself[0]);
+        assertFalse(system.removeBookingListener(recorder));
+        assertEquals(1, system.getMetrics().getListenerFailures());
+
+        // its thread leaves the ring once the change it removed itself on returns, and takes no other
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (system.getBookingListenerBacklog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, system.getBookingListenerBacklog());
+        system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusWeeks(3));
+        assertEquals(2, recorder.changes.size());
+    }
+
+    @Test
+    void testSlowListenerDoesNotHoldUpBookings() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void changed(BPC_BookingChange change, boolean endOfBatch) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.changed(change, endOfBatch);
+            }
+        };
+        system.addBookingListener(recorder);
+        for (int i = 0; i < 8; i++) {
+            system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusWeeks(i));
+        }
+        assertTrue(system.getBookingListenerBacklog() > 0);
+        release.countDown();
+        system.removeBookingListener(recorder);
+        assertEquals(8, recorder.changes.size());
+        assertEquals(0, system.getBookingListenerBacklog());
+    }
+
+    @Test
+    void testRingWrapsWithConcurrentPublishers() throws Exception {
+        BPC_Metrics metrics = new BPC_Metrics();
+        BPC_BookingChangeRing ring = new BPC_BookingChangeRing(4, metrics);
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+        long[] received = new long[2]; // count, and sum of sequences
+        BPC_BookingChangeListener listener = (change, endOfBatch) -> {
+            received[0]++;
+            received[1] += change.getSequence();
+        };
+        ring.add(listener);
+        int publishers = 4;
+        int each = 5_000;
+        Thread[] threads = new Thread[publishers];
+        for (int t = 0; t < publishers; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < each; i++) {
+                    ring.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        ring.remove(listener);
+        // changes published while the listener was a whole ring behind were dropped, the rest arrived in order
+        long total = (long) publishers * each;
+        assertEquals(total, received[0] + metrics.getDroppedBookingChanges());
+        assertEquals(received[0] * (received[0] - 1) / 2, received[1]);
+        assertThrows(IllegalArgumentException.class, () -> new BPC_BookingChangeRing(6, new BPC_Metrics()));
+    }
+
+    @Test
+    void testFullRingDropsChangesInsteadOfWaiting() throws Exception {
+        BPC_Metrics metrics = new BPC_Metrics();
+        BPC_BookingChangeRing ring = new BPC_BookingChangeRing(4, metrics);
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void changed(BPC_BookingChange change, boolean endOfBatch) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.changed(change, endOfBatch);
+            }
+        };
+        ring.add(recorder);
+
+        // the listener is stuck on the first change, so the ring fills after four
+        for (int i = 0; i < 10; i++) {
+            ring.publish(BPC_BookingChangeType.CREATED, booking, null, null);
+        }
+        assertEquals(6, metrics.getDroppedBookingChanges());
+        release.countDown();
+        ring.remove(recorder);
+        assertEquals(4, recorder.changes.size());
+    }
+}
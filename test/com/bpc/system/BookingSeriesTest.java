@@ -0,0 +1,204 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_Recurrence;
+import com.bpc.util.BPC_IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingSeriesTest {
+    @TempDir
+    Path directory;
+
+    private BPC_Clinic system;
+    private BPC_Patient patient;
+    private BPC_Physiotherapist physio;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+        physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678", List.of("Rehabilitation"));
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    @Test
+    void testCreateWeeklySeries() {
+        BPC_BookingSeries series = system.createBookingSeries(patient.getId(), physio.getId(), "Rehabilitation",
+                BPC_Recurrence.weekly(monday, 6));
+
+        assertTrue(BPC_IdGenerator.parseSeriesKey(series.getId()) > 0);
+        assertSame(series, system.getBookingSeries().get(series.getId()));
+        List<BPC_Booking> sessions = series.getBookings();
+        assertEquals(6, sessions.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(monday.plusWeeks(i), sessions.get(i).getTreatment().getDateTime());
+            assertFalse(physio.isAvailable(monday.plusWeeks(i)));
+        }
+        assertEquals(6, patient.getActiveBookingCount());
+        assertEquals(sessions, system.getPhysiotherapistBookings().get(physio));
+    }
+
+    @Test
+    void testSeriesIsBookedAllOrNothing() {
+        BPC_Patient other = system.addPatient("Other Patient", "1 Test St", "555-0000");
+        system.createBooking(other.getId(), physio.getId(), "Rehabilitation", monday.plusWeeks(6));
+
+        IllegalStateException taken = assertThrows(IllegalStateException.class, () -> system.createBookingSeries(
+                patient.getId(), physio.getId(), "Rehabilitation", new BPC_Recurrence(monday, 2, 5)));
+        assertEquals("Physiotherapist is not available at " + monday.plusWeeks(6), taken.getMessage());
+
+        // the patient is busy with another physiotherapist in the second week
+        BPC_Physiotherapist otherPhysio = system.addPhysiotherapist("Other Physio", "1 Test Ave", "555-0001",
+                List.of("Rehabilitation"));
+        system.createBooking(patient.getId(), otherPhysio.getId(), "Rehabilitation", monday.plusWeeks(2));
+        assertThrows(BPC_ConflictException.class, () -> system.createBookingSeries(
+                patient.getId(), physio.getId(), "Rehabilitation", BPC_Recurrence.weekly(monday.plusWeeks(1), 2)));
+
+        assertEquals(1, patient.getActiveBookingCount());
+        assertTrue(physio.isAvailable(monday));
+        assertTrue(system.getBookingSeries().isEmpty());
+    }
+
+    @Test
+    void testCancelSeriesKeepsAttendedSessions() {
+        BPC_BookingSeries series = system.createBookingSeries(patient.getId(), physio.getId(), "Rehabilitation",
+                BPC_Recurrence.weekly(monday, 4));
+        BPC_Booking first = series.getBookings().get(0);
+        system.attendBooking(first.getId());
+
+        system.cancelBookingSeries(series.getId());
+
+        assertEquals(BPC_BookingStatus.ATTENDED, first.getStatus());
+        for (BPC_Booking session : series.getBookings().subList(1, 4)) {
+            assertEquals(BPC_BookingStatus.CANCELLED, session.getStatus());
+            assertTrue(physio.isAvailable(session.getTreatment().getDateTime()));
+        }
+        assertEquals(0, patient.getActiveBookingCount());
+        assertThrows(IllegalStateException.class, () -> system.cancelBookingSeries(series.getId()));
+    }
+
+    @Test
+    void testModifySeriesReusesItsOwnSlots() {
+        BPC_Physiotherapist other = system.addPhysiotherapist("Other Physio", "1 Test Ave", "555-0001",
+                List.of("Rehabilitation"));
+        BPC_BookingSeries series = system.createBookingSeries(patient.getId(), physio.getId(), "Rehabilitation",
+                BPC_Recurrence.weekly(monday, 4));
+
+        // One week later: each session takes the slot of the one after it
+        system.modifyBookingSeries(series.getId(), physio.getId(), "Rehabilitation", monday.plusWeeks(1));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(monday.plusWeeks(i + 1), series.getBookings().get(i).getTreatment().getDateTime());
+        }
+        assertTrue(physio.isAvailable(monday));
+        assertFalse(physio.isAvailable(monday.plusWeeks(4)));
+
+        // Back one week and to another physiotherapist
+        system.modifyBookingSeries(series.getId(), other.getId(), "Rehabilitation", monday);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(monday.plusWeeks(i), series.getBookings().get(i).getTreatment().getDateTime());
+            assertSame(other, series.getBookings().get(i).getTreatment().getPhysiotherapist());
+            assertTrue(physio.isAvailable(monday.plusWeeks(i + 1)));
+        }
+        assertEquals(4, system.getPhysiotherapistBookings().get(other).size());
+        assertFalse(system.getPhysiotherapistBookings().containsKey(physio));
+
+        // A slot taken by someone else stops the whole move
+        BPC_Patient second = system.addPatient("Second Patient", "2 Test St", "555-0002");
+        system.createBooking(second.getId(), physio.getId(), "Rehabilitation", monday.plusWeeks(3).plusHours(1));
+        assertThrows(IllegalStateException.class, () -> system.modifyBookingSeries(series.getId(), physio.getId(),
+                "Rehabilitation", monday.plusHours(1)));
+        assertSame(other, series.getBookings().get(0).getTreatment().getPhysiotherapist());
+        assertEquals(monday, series.getBookings().get(0).getTreatment().getDateTime());
+    }
+
+    @Test
+    void testSeriesSurviveRestart() throws Exception {
+        Path journalFile = directory.resolve("clinic.journal");
+        Path snapshotFile = directory.resolve("clinic.snapshot");
+        String beforeCheckpoint;
+        String afterCheckpoint;
+        String report;
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic clinic = new BPC_Clinic(snapshotFile, journal);
+            BPC_Patient restartPatient = clinic.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist restartPhysio = clinic.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Rehabilitation"));
+            beforeCheckpoint = clinic.createBookingSeries(restartPatient.getId(), restartPhysio.getId(),
+                    "Rehabilitation", BPC_Recurrence.weekly(monday, 3)).getId();
+            clinic.checkpoint(snapshotFile);
+            afterCheckpoint = clinic.createBookingSeries(restartPatient.getId(), restartPhysio.getId(),
+                    "Rehabilitation", new BPC_Recurrence(monday.plusHours(1), 2, 3)).getId();
+            report = clinic.generateReport();
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            int[] records = {0};
+            journal.replay(record -> records[0]++);
+            // the checkpoint, then the series with its sessions in one record
+            assertEquals(2, records[0]);
+            BPC_Clinic restored = new BPC_Clinic(snapshotFile, journal);
+            assertEquals(report, restored.generateReport());
+            assertEquals(3, restored.getBookingSeries().get(beforeCheckpoint).getBookings().size());
+            BPC_BookingSeries series = restored.getBookingSeries().get(afterCheckpoint);
+            assertEquals(2, series.getIntervalWeeks());
+            assertEquals(monday.plusWeeks(4).plusHours(1), series.getBookings().get(2).getTreatment().getDateTime());
+
+            restored.cancelBookingSeries(afterCheckpoint);
+            assertEquals(3, restored.getBookingSeries().get(beforeCheckpoint).getActiveBookings().size());
+        }
+    }
+
+    @Test
+    void testSeriesChangesAreOneRecordEach() throws Exception {
+        Path journalFile = directory.resolve("clinic.journal");
+        String moved;
+        String cancelled;
+        String report;
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic clinic = new BPC_Clinic(journal);
+            BPC_Patient restartPatient = clinic.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist restartPhysio = clinic.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Rehabilitation"));
+            moved = clinic.createBookingSeries(restartPatient.getId(), restartPhysio.getId(), "Rehabilitation",
+                    BPC_Recurrence.weekly(monday, 4)).getId();
+            cancelled = clinic.createBookingSeries(restartPatient.getId(), restartPhysio.getId(), "Rehabilitation",
+                    BPC_Recurrence.weekly(monday.plusHours(1), 3)).getId();
+            // each session takes the slot of the one after it
+            clinic.modifyBookingSeries(moved, restartPhysio.getId(), "Rehabilitation", monday.plusWeeks(1));
+            clinic.cancelBookingSeries(cancelled);
+            report = clinic.generateReport();
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            int[] records = {0};
+            journal.replay(record -> records[0]++);
+            // two people, two series, one move and one cancellation
+            assertEquals(6, records[0]);
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(report, restored.generateReport());
+            List<BPC_Booking> sessions = restored.getBookingSeries().get(moved).getBookings();
+            for (int i = 0; i < 4; i++) {
+                assertEquals(monday.plusWeeks(i + 1), sessions.get(i).getTreatment().getDateTime());
+            }
+            assertTrue(restored.getBookingSeries().get(cancelled).getActiveBookings().isEmpty());
+        }
+    }
+}
@@ -8,10 +8,18 @@ import com.bpc.model.BPC_Physiotherapist;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,8 +40,8 @@ public class ClinicSystemTest {
         List<String> expertise = List.of("Test Specialty", "Treatment", "Massage", "Rehabilitation");
         testPhysio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678", expertise);
 
-        // Set test date/time to April 15, 2025, 10:00 AM
-        testDateTime = LocalDateTime.of(2025, 6, 2, 10, 0);
+        // Set test date/time to next Monday, 10:00 AM
+        testDateTime = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
     }
 
     @Test
@@ -319,4 +327,193 @@ public class ClinicSystemTest {
         assertEquals(testPhysio.getId(), ranked.get(1).getKey().getId());
         assertEquals(1L, ranked.get(1).getValue().longValue());
     }
+
+    @Test
+    void testFindPhysiotherapistsByExpertise() {
+        // Given another physiotherapist sharing one word of expertise
+        BPC_Physiotherapist sportsPhysio = system.addPhysiotherapist(
+                "Sports Physio",
+                "Another Address",
+                "555-9999",
+                List.of("Sports Massage")
+        );
+
+        // A whole expertise matches regardless of case
+        List<BPC_Physiotherapist> exact = system.findPhysiotherapistsByExpertise("sports massage");
+        assertEquals(List.of(sportsPhysio), exact);
+
+        // A single word matches every expertise containing it
+        List<BPC_Physiotherapist> byWord = system.findPhysiotherapistsByExpertise(" MASSAGE ");
+        assertEquals(2, byWord.size());
+        assertTrue(byWord.contains(testPhysio));
+        assertTrue(byWord.contains(sportsPhysio));
+
+        assertTrue(system.findPhysiotherapistsByExpertise("Acupuncture").isEmpty());
+    }
+
+    @Test
+    void testCantBookTreatmentOutsideExpertise() {
+        // Treatments containing or contained in an expertise are valid
+        assertNotNull(system.createBooking(testPatient.getId(), testPhysio.getId(), "Deep MASSAGE", testDateTime));
+        assertNotNull(system.createBooking(testPatient.getId(), testPhysio.getId(), "rehab",
+                testDateTime.plusHours(1)));
+
+        // Anything else is rejected
+        assertThrows(IllegalArgumentException.class, () -> system.createBooking(
+                testPatient.getId(), testPhysio.getId(), "Acupuncture", testDateTime.plusHours(2)));
+        assertTrue(testPhysio.isAvailable(testDateTime.plusHours(2)));
+
+        // A fragment from the middle of a word is valid too, and searches find the same physiotherapists
+        assertFalse(system.findAvailableSlots("assage", testDateTime, testDateTime.plusWeeks(1), 1).isEmpty());
+        assertNotNull(system.createBooking(testPatient.getId(), testPhysio.getId(), "assage",
+                testDateTime.plusHours(2)));
+    }
+
+    @Test
+    void testFindAvailableSlots() {
+        // Given a second qualified physiotherapist and a physiotherapist with other expertise
+        BPC_Physiotherapist secondPhysio = system.addPhysiotherapist(
+                "Second Physio",
+                "Another Address",
+                "555-9999",
+                List.of("Sports Massage")
+        );
+        system.addPhysiotherapist("Other Physio", "Other Address", "555-7777", List.of("Acupuncture"));
+
+        // And the first slot of the window already booked with the test physiotherapist
+        LocalDateTime from = testDateTime.withHour(9);
+        system.createBooking(testPatient.getId(), testPhysio.getId(), "Massage", from);
+
+        // When asking for the next three massage slots
+        List<BPC_AvailableSlot> slots = system.findAvailableSlots("massage", from, from.plusWeeks(1), 3);
+
+        // Then the earliest free slots of both qualified physiotherapists are merged in time order
+        assertEquals(3, slots.size());
+        assertEquals(secondPhysio, slots.get(0).getPhysiotherapist());
+        assertEquals(from, slots.get(0).getDateTime());
+        assertEquals(from.plusHours(1), slots.get(1).getDateTime());
+        assertEquals(from.plusHours(1), slots.get(2).getDateTime());
+        assertNotEquals(slots.get(1).getPhysiotherapist(), slots.get(2).getPhysiotherapist());
+
+        // And no slot is returned for an unknown treatment or outside the window
+        assertTrue(system.findAvailableSlots("Hydrotherapy", from, from.plusWeeks(1), 3).isEmpty());
+        assertTrue(system.findAvailableSlots("Massage", from.withHour(17), from.withHour(18), 3).isEmpty());
+    }
+
+    @Test
+    void testReportFollowsModifiedBookings() {
+        // Given a booking with the test physiotherapist
+        BPC_Physiotherapist secondPhysio = system.addPhysiotherapist(
+                "Second Physio",
+                "Another Address",
+                "555-9999",
+                List.of("Treatment")
+        );
+        BPC_Booking booking = system.createBooking(testPatient.getId(), testPhysio.getId(), "Treatment", testDateTime);
+
+        // When it is moved to the second physiotherapist and attended
+        system.modifyBooking(booking.getId(), secondPhysio.getId(), "Treatment", testDateTime.plusHours(1));
+        system.attendBooking(booking.getId());
+
+        // Then the report only lists it under the second physiotherapist
+        Map<BPC_Physiotherapist, List<BPC_Booking>> physioBookings = system.getPhysiotherapistBookings();
+        assertFalse(physioBookings.containsKey(testPhysio));
+        assertEquals(List.of(booking), physioBookings.get(secondPhysio));
+
+        List<Map.Entry<BPC_Physiotherapist, Long>> ranked = system.getPhysiotherapistByAttendedBookings();
+        assertEquals(1, ranked.size());
+        assertEquals(secondPhysio, ranked.get(0).getKey());
+        assertEquals(1L, ranked.get(0).getValue().longValue());
+    }
+
+    @Test
+    void testWriteReport() throws Exception {
+        // Given a system with bookings
+        BPC_Booking booking = system.createBooking(testPatient.getId(), testPhysio.getId(), "Treatment", testDateTime);
+        system.attendBooking(booking.getId());
+
+        // When streaming the report to a writer and to a channel
+        StringWriter writer = new StringWriter();
+        system.writeReport(writer);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        system.writeReport(Channels.newChannel(bytes));
+
+        // Then both contain the same text as the generated report
+        String report = system.generateReport();
+        assertEquals(report, writer.toString());
+        assertEquals(report, bytes.toString(StandardCharsets.UTF_8));
+        assertTrue(report.contains("  " + booking.getId() + " | " + testDateTime + " | Treatment | Test Patient | ATTENDED\n"));
+        assertTrue(report.contains("Test Physio (" + testPhysio.getId() + "): 1 attended appointments\n"));
+    }
+
+    @Test
+    void testCreateBookingsBooksWholeBatch() {
+        // Given a treatment plan of three sessions with two physiotherapists
+        BPC_Physiotherapist secondPhysio = system.addPhysiotherapist("Second Physio", "Another Address", "555-9999",
+                List.of("Massage"));
+        List<BPC_BookingRequest> plan = List.of(
+                new BPC_BookingRequest(testPatient.getId(), testPhysio.getId(), "Massage", testDateTime),
+                new BPC_BookingRequest(testPatient.getId(), secondPhysio.getId(), "Massage", testDateTime.plusDays(1)),
+                new BPC_BookingRequest(testPatient.getId(), testPhysio.getId(), "Massage", testDateTime.plusDays(2)));
+
+        // When booking it in one call
+        List<BPC_BookingResult> results = system.createBookings(plan);
+
+        // Then every session is booked, in order
+        assertEquals(3, results.size());
+        for (int i = 0; i < plan.size(); i++) {
+            assertTrue(results.get(i).isBooked(), results.get(i).getError());
+            assertSame(plan.get(i), results.get(i).getRequest());
+            assertEquals(plan.get(i).getDateTime(), results.get(i).getBooking().getTreatment().getDateTime());
+        }
+        assertEquals(3, testPatient.getActiveBookingCount());
+        assertFalse(testPhysio.isAvailable(testDateTime));
+        assertEquals(2, system.getPhysiotherapistBookings().get(testPhysio).size());
+    }
+
+    @Test
+    void testCreateBookingsBooksNothingIfOneRequestFails() {
+        // Given a slot that is already taken
+        BPC_Patient secondPatient = system.addPatient("Second Patient", "Another Address", "555-8888");
+        system.createBooking(secondPatient.getId(), testPhysio.getId(), "Massage", testDateTime.plusHours(1));
+
+        // When a batch contains a taken slot, a slot booked twice and an unknown patient
+        List<BPC_BookingResult> results = system.createBookings(List.of(
+                new BPC_BookingRequest(testPatient.getId(), testPhysio.getId(), "Massage", testDateTime),
+                new BPC_BookingRequest(testPatient.getId(), testPhysio.getId(), "Massage", testDateTime.plusHours(1)),
+                new BPC_BookingRequest(secondPatient.getId(), testPhysio.getId(), "Massage", testDateTime),
+                new BPC_BookingRequest("PAT_20250304_0001", testPhysio.getId(), "Massage", testDateTime.plusHours(2))));
+
+        // Then no request is booked and each result says why
+        assertTrue(results.stream().noneMatch(BPC_BookingResult::isBooked));
+        assertEquals("Not booked, another request in the batch failed", results.get(0).getError());
+        assertEquals("Physiotherapist is not available at this time", results.get(1).getError());
+        assertEquals("Physiotherapist is not available at this time", results.get(2).getError());
+        assertEquals("Patient not found: PAT_20250304_0001", results.get(3).getError());
+        assertTrue(testPhysio.isAvailable(testDateTime));
+        assertEquals(0, testPatient.getActiveBookingCount());
+        assertEquals(1, system.getBookings().size());
+    }
+
+    @Test
+    void testGettersAreLiveReadOnlyViews() {
+        // Given the patient view taken before another patient is added
+        Map<String, BPC_Patient> patients = system.getPatients();
+        BPC_Patient added = system.addPatient("Second Patient", "Another Address", "555-8888");
+
+        // Then the view sees the new patient without being fetched again
+        assertSame(patients, system.getPatients());
+        assertEquals(2, patients.size());
+        assertSame(added, patients.get(added.getId()));
+        assertEquals(Set.of(testPatient.getId(), added.getId()), patients.keySet());
+        assertSame(added, system.findPatient(added.getId()));
+        assertNull(system.findPatient("PAT_20250304_9999"));
+        assertNull(patients.get("not an id"));
+        assertSame(testPhysio, system.findPhysiotherapist(testPhysio.getId()));
+
+        // And it cannot be changed through the view
+        assertThrows(UnsupportedOperationException.class, () -> patients.put("PAT_20250304_0001", added));
+        assertThrows(UnsupportedOperationException.class, () -> patients.values().clear());
+        assertThrows(UnsupportedOperationException.class, () -> system.getBookings().clear());
+    }
 }
@@ -0,0 +1,88 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandProcessorTest {
+    private BPC_Clinic system;
+    private BPC_CommandProcessor processor;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        processor = new BPC_CommandProcessor(system);
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    private String[] run(String script) throws Exception {
+        StringWriter out = new StringWriter();
+        processor.run(new StringReader(script), out);
+        return out.toString().split("\n");
+    }
+
+    @Test
+    void testRunsNamedCommands() throws Exception {
+        String[] lines = run("# set up\n"
+                + "pat=add-patient,Test Patient,\"1 Test St, Bath\",555-1234\n"
+                + "phy=add-physiotherapist,Test Physio,2 Test Ave,555-5678,Massage;Rehabilitation\n"
+                + "\n"
+                + "b1=book,$pat,$phy,Massage," + monday + "\n"
+                + "b2=book,$pat,$phy,Rehabilitation," + monday.plusHours(1) + "\n"
+                + "cancel,$b1\n"
+                + "modify,$b2,$phy,Massage," + monday.plusDays(1).toString().replace('T', ' ') + "\n"
+                + "ser=book-series,$pat,$phy,Massage," + monday.plusHours(2) + ",3\n"
+                + "cancel-series,$ser\n");
+
+        assertEquals(8, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("OK"), line);
+        }
+        String patientId = lines[0].substring(3);
+        assertTrue(system.getPatients().containsKey(patientId));
+        assertEquals(5, lines[6].split(" ").length); // OK, the series ID and its three sessions
+
+        BPC_Booking first = system.getBookings().get(lines[2].substring(3));
+        BPC_Booking second = system.getBookings().get(lines[3].substring(3));
+        assertEquals(BPC_BookingStatus.CANCELLED, first.getStatus());
+        assertEquals(monday.plusDays(1), second.getTreatment().getDateTime());
+        assertEquals(1, system.getPatients().get(patientId).getActiveBookingCount());
+        assertEquals(8, processor.getExecuted());
+        assertEquals(0, processor.getFailed());
+    }
+
+    @Test
+    void testReportsFailuresAndCarriesOn() throws Exception {
+        String[] lines = run("pat=add-patient,Test Patient,1 Test St,555-1234\n"
+                + "phy=add-physiotherapist,Test Physio,2 Test Ave,555-5678,Massage\n"
+                + "book,$pat,$phy,Massage," + monday + "\n"
+                + "book,$pat,$phy,Massage," + monday + "\n"
+                + "book,$pat,$nobody,Massage," + monday + "\n"
+                + "book,$pat,$phy,Massage,monday\n"
+                + "cancel\n"
+                + "dance,$pat\n"
+                + "find-slots,Massage," + monday + "," + monday.plusHours(3) + ",5\n");
+
+        assertEquals("ERROR 4: Physiotherapist is not available at this time", lines[3]);
+        assertEquals("ERROR 5: Unknown name: $nobody", lines[4]);
+        assertTrue(lines[5].startsWith("ERROR 6: "), lines[5]);
+        assertEquals("ERROR 7: cancel takes 1 arguments", lines[6]);
+        assertEquals("ERROR 8: Unknown command: dance", lines[7]);
+        // the first slot is booked, the next two are free
+        assertEquals(2, lines[8].split(" ").length - 1, lines[8]);
+        assertEquals(9, processor.getExecuted());
+        assertEquals(5, processor.getFailed());
+        assertEquals(1, system.getBookings().size());
+    }
+}
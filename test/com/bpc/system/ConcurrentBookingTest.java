@@ -0,0 +1,129 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentBookingTest {
+    private static final int THREADS = 8;
+
+    private BPC_Clinic system;
+    private List<BPC_Physiotherapist> physios;
+    private List<BPC_Patient> patients;
+    private LocalDateTime weekStart;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        physios = List.of(
+                system.addPhysiotherapist("Physio A", "1 Test St", "555-0001", List.of("Massage")),
+                system.addPhysiotherapist("Physio B", "2 Test St", "555-0002", List.of("Massage")));
+        patients = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            patients.add(system.addPatient("Patient " + i, "Address " + i, "555-10" + i));
+        }
+        weekStart = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atStartOfDay();
+    }
+
+    @Test
+    void testNoSlotIsBookedTwice() throws Exception {
+        List<LocalDateTime> slots = physios.get(0).getAvailableAppointments(weekStart, weekStart.plusWeeks(1));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<BPC_Booking>>> results = new ArrayList<>();
+
+        // Every thread tries to book every slot of both physiotherapists for its own patient
+        for (BPC_Patient patient : patients) {
+            results.add(pool.submit(() -> {
+                List<BPC_Booking> booked = new ArrayList<>();
+                start.await();
+                for (LocalDateTime slot : slots) {
+                    for (BPC_Physiotherapist physio : physios) {
+                        try {
+                            booked.add(system.createBooking(patient.getId(), physio.getId(), "Massage", slot));
+                        } catch (IllegalStateException | IllegalArgumentException e) {
+                            // slot or patient already taken
+                        }
+                    }
+                }
+                return booked;
+            }));
+        }
+        start.countDown();
+
+        Set<String> bookedSlots = new HashSet<>();
+        int total = 0;
+        for (Future<List<BPC_Booking>> result : results) {
+            for (BPC_Booking booking : result.get()) {
+                total++;
+                assertTrue(bookedSlots.add(booking.getTreatment().getPhysiotherapist().getId()
+                        + "@" + booking.getTreatment().getDateTime()), "Slot booked twice");
+            }
+        }
+        pool.shutdown();
+
+        // Then every slot of both physiotherapists was booked exactly once
+        assertEquals(physios.size() * slots.size(), total);
+        assertEquals(total, system.getBookings().size());
+        for (BPC_Physiotherapist physio : physios) {
+            assertEquals(0, physio.getAvailableAppointmentCount(weekStart, weekStart.plusWeeks(1)));
+        }
+    }
+
+    @Test
+    void testModifyAcrossPhysiotherapistsDoesNotDeadlock() {
+        LocalDateTime slot = weekStart.plusHours(10);
+        BPC_Booking first = system.createBooking(patients.get(0).getId(), physios.get(0).getId(), "Massage", slot);
+        BPC_Booking second = system.createBooking(patients.get(1).getId(), physios.get(1).getId(), "Massage", slot);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            // The two bookings keep moving between the two physiotherapists in opposite directions
+            Future<?> a = pool.submit(() -> moveBackAndForth(first, physios.get(1), physios.get(0), slot));
+            Future<?> b = pool.submit(() -> moveBackAndForth(second, physios.get(0), physios.get(1), slot));
+            a.get();
+            b.get();
+            pool.shutdown();
+        });
+
+        // Each booking still holds exactly one slot, and the two never share one
+        assertNotEquals(first.getTreatment().getPhysiotherapist().getId() + first.getTreatment().getDateTime(),
+                second.getTreatment().getPhysiotherapist().getId() + second.getTreatment().getDateTime());
+        for (BPC_Booking booking : List.of(first, second)) {
+            assertFalse(booking.getTreatment().getPhysiotherapist().isAvailable(booking.getTreatment().getDateTime()));
+        }
+        int free = physios.get(0).getAvailableAppointmentCount(weekStart, weekStart.plusWeeks(1))
+                + physios.get(1).getAvailableAppointmentCount(weekStart, weekStart.plusWeeks(1));
+        assertEquals(2 * 40 - 2, free);
+    }
+
+    private void moveBackAndForth(BPC_Booking booking, BPC_Physiotherapist to, BPC_Physiotherapist from,
+                                  LocalDateTime slot) {
+        for (int i = 0; i < 2000; i++) {
+            BPC_Physiotherapist target = i % 2 == 0 ? to : from;
+            try {
+                system.modifyBooking(booking.getId(), target.getId(), "Massage", slot.plusHours(i % 3));
+            } catch (IllegalStateException e) {
+                // the other booking holds that slot
+            }
+        }
+    }
+}
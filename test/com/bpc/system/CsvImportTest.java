@@ -0,0 +1,221 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvImportTest {
+    @TempDir
+    Path directory;
+
+    private Path patients;
+    private Path physiotherapists;
+    private Path bookings;
+    private LocalDateTime lastMonday;
+    private LocalDateTime nextMonday;
+
+    @BeforeEach
+    void setUp() {
+        patients = directory.resolve("patients.csv");
+        physiotherapists = directory.resolve("physiotherapists.csv");
+        bookings = directory.resolve("bookings.csv");
+        lastMonday = LocalDate.now().with(TemporalAdjusters.previous(DayOfWeek.MONDAY)).atTime(10, 0);
+        nextMonday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    @Test
+    void testImportsRowsSpreadOverChunks() throws Exception {
+        StringBuilder patientRows = new StringBuilder("id,name,address,phone,active\r\n");
+        for (int i = 1; i <= 40; i++) {
+            patientRows.append("OLD").append(i).append(",Patient ").append(i)
+                    .append(",\"").append(i).append(" High St, Bath\",0790300").append(i).append("\r\n");
+        }
+        Files.writeString(patients, patientRows);
+        Files.writeString(physiotherapists, "id,name,address,phone,expertise\n"
+                + "T1,Test Physio,1 Test Ave,555-0001,Massage;Back Pain\n"
+                + "T2,\"Smith, John\",2 Test Ave,555-0002,Massage\n");
+        StringBuilder bookingRows = new StringBuilder("id,patient,physiotherapist,treatment,date,status,booked\n");
+        for (int i = 1; i <= 40; i++) {
+            bookingRows.append("B").append(i).append(",OLD").append(i).append(",T1,Massage,")
+                    .append(lastMonday.minusWeeks(i)).append(",ATTENDED,").append(lastMonday.minusWeeks(i + 1))
+                    .append('\n');
+        }
+        bookingRows.append("B41,OLD1,T2,Massage,").append(nextMonday).append(",BOOKED\n");
+        bookingRows.append("B42,OLD2,T2,Massage,").append(nextMonday.plusHours(1)).append(",CANCELLED");
+        Files.writeString(bookings, bookingRows);
+
+        BPC_Clinic system = new BPC_Clinic();
+        BPC_ImportReport report = new BPC_CsvImporter(system, 64).importCsv(patients, physiotherapists, bookings);
+
+        assertFalse(report.hasErrors(), report.getErrors().toString());
+        assertEquals(40, report.getImportedPatients());
+        assertEquals(2, report.getImportedPhysiotherapists());
+        assertEquals(42, report.getImportedBookings());
+
+        Map<String, BPC_Patient> byName = system.getPatients().values().stream()
+                .collect(Collectors.toMap(BPC_Patient::getName, patient -> patient));
+        BPC_Patient first = byName.get("Patient 1");
+        assertEquals("1 High St, Bath", first.getAddress());
+        assertEquals(2, first.getBookings().size());
+        assertEquals(1, first.getActiveBookingCount());
+        assertEquals(lastMonday.minusWeeks(2), first.getBookings().get(0).getBookingTime());
+
+        List<Map.Entry<BPC_Physiotherapist, Long>> ranking = system.getPhysiotherapistByAttendedBookings();
+        assertEquals(1, ranking.size());
+        assertEquals("Test Physio", ranking.get(0).getKey().getName());
+        assertEquals(40L, ranking.get(0).getValue());
+
+        // the booked slot is taken and the cancelled one is free again
+        BPC_Physiotherapist smith = system.findPhysiotherapistsByExpertise("Massage").stream()
+                .filter(physio -> physio.getName().equals("Smith, John")).findFirst().orElseThrow();
+        assertFalse(smith.isAvailable(nextMonday));
+        assertTrue(smith.isAvailable(nextMonday.plusHours(1)));
+        assertEquals(2, system.getPhysiotherapistBookings().get(smith).size());
+
+        // the imported people are listed and searchable
+        assertEquals(40, system.listPatientsById(null, 100).getItems().size());
+        assertEquals("Smith, John", system.listPhysiotherapistsByName(null, 10).getItems().get(0).getName());
+        assertEquals(List.of(first), system.searchPatients("07903001", 10).subList(0, 1));
+        assertEquals(List.of(smith), system.searchPhysiotherapists("smi", 10));
+    }
+
+    @Test
+    void testReportsRejectedRows() throws Exception {
+        BPC_Clinic system = new BPC_Clinic();
+        BPC_Patient existing = system.addPatient("Existing Patient", "1 Test St", "555-1234");
+        Files.writeString(patients, "id,name,address,phone,active\n"
+                + "P1,Patient One,1 Test St,555-0001\n"
+                + "P2,,2 Test St,555-0002\n"
+                + "P3,Patient Three,\"3 Test St,555-0003\n"
+                + "P1,Patient Again,1 Test St,555-0001\n"
+                + "P4,Patient Four,4 Test St,555-0004,false\n"
+                + "P5,Patient Five,5 Test St,555-0005,maybe\n");
+        Files.writeString(physiotherapists, "id,name,address,phone,expertise\n"
+                + "T1,Test Physio,1 Test Ave,555-0001,Massage\n");
+        Files.writeString(bookings, "id,patient,physiotherapist,treatment,date,status\n"
+                + "B1,P1,T1,Massage," + nextMonday + "\n"
+                + "B2,P1,T1,Massage,next monday\n"
+                + "B3,P9,T1,Massage," + nextMonday.plusHours(1) + "\n"
+                + "B4," + existing.getId() + ",T1,Massage," + nextMonday + "\n"
+                + "B5," + existing.getId() + ",T1,Acupuncture," + nextMonday.plusHours(2) + "\n"
+                + "B6,P4,T1,Massage," + nextMonday.plusHours(3) + ",BOOKED\n"
+                + "B7,P1,T9,Massage," + nextMonday.plusHours(4) + ",LOST\n");
+
+        BPC_ImportReport report = new BPC_CsvImporter(system).importCsv(patients, physiotherapists, bookings);
+
+        assertEquals(2, report.getImportedPatients());
+        assertEquals(2, report.getImportedBookings());
+        List<String> errors = report.getErrors().stream().map(BPC_ImportError::toString).collect(Collectors.toList());
+        assertEquals(List.of(
+                "bookings.csv:3: Invalid date time: next monday",
+                "bookings.csv:4: Patient not found: P9",
+                "bookings.csv:5: Physiotherapist is not available at this time",
+                "bookings.csv:6: The treatment is not valid for this physiotherapist's expertise",
+                "bookings.csv:8: Invalid status: LOST",
+                "patients.csv:3: Missing name",
+                "patients.csv:4: Unterminated quoted field",
+                "patients.csv:5: Duplicate patient id: P1",
+                "patients.csv:6: Cannot deactivate patient with active booking, left active",
+                "patients.csv:7: Invalid active flag: maybe"), errors);
+        assertEquals(3, system.getPatients().size());
+        assertTrue(system.getPatients().values().stream().allMatch(BPC_Patient::isActive));
+    }
+
+    @Test
+    void testImportIsJournaled() throws Exception {
+        Path file = directory.resolve("clinic.journal");
+        Files.writeString(patients, "id,name,address,phone,active\n"
+                + "P1,Patient One,1 Test St,555-0001\n"
+                + "P2,Patient Two,2 Test St,555-0002,false\n");
+        Files.writeString(physiotherapists, "id,name,address,phone,expertise\n"
+                + "T1,Test Physio,1 Test Ave,555-0001,Massage\n");
+        Files.writeString(bookings, "id,patient,physiotherapist,treatment,date,status\n"
+                + "B1,P2,T1,Massage," + lastMonday + ",CANCELLED\n"
+                + "B2,P1,T1,Massage," + lastMonday + ",ATTENDED\n"
+                + "B3,P2,T1,Massage," + lastMonday.plusHours(1) + ",ATTENDED\n"
+                + "B4,P1,T1,Massage," + nextMonday + "\n");
+
+        String report;
+        Map<String, BPC_Booking> imported;
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            assertFalse(new BPC_CsvImporter(system).importCsv(patients, physiotherapists, bookings).hasErrors());
+            report = system.generateReport();
+            imported = system.getBookings();
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(report, restored.generateReport());
+            assertEquals(imported.keySet(), restored.getBookings().keySet());
+            assertEquals(1, restored.getPatients().values().stream().filter(patient -> !patient.isActive()).count());
+        }
+    }
+
+    @Test
+    void testImportsPastBookingsAfterRollover() throws Exception {
+        Files.writeString(patients, "id,name,address,phone,active\n"
+                + "P1,Patient One,1 Test St,555-0001\n");
+        Files.writeString(physiotherapists, "id,name,address,phone,expertise\n"
+                + "T1,Test Physio,1 Test Ave,555-0001,Massage\n");
+        BPC_Clinic system = new BPC_Clinic();
+        new BPC_CsvImporter(system).importCsv(patients, physiotherapists, null);
+        BPC_Patient patient = system.getPatients().values().iterator().next();
+        BPC_Physiotherapist physio = system.getPhysiotherapists().values().iterator().next();
+        system.rolloverTimetables(LocalDate.now());
+        Files.writeString(bookings, "id,patient,physiotherapist,treatment,date,status\n"
+                + "B1," + patient.getId() + "," + physio.getId() + ",Massage," + lastMonday.minusWeeks(2) + ",ATTENDED\n"
+                + "B2," + patient.getId() + "," + physio.getId() + ",Massage," + lastMonday.minusWeeks(1) + ",CANCELLED\n");
+
+        BPC_ImportReport report = new BPC_CsvImporter(system).importCsv(null, null, bookings);
+
+        // both rows take a slot in a rolled over week, and only the attended one stays counted
+        assertEquals(List.of(), report.getErrors());
+        assertEquals(2, report.getImportedBookings());
+        assertEquals(1, physio.getTimetable().getRolledOverBookedSlots());
+        assertFalse(physio.isAvailable(lastMonday.minusWeeks(2)));
+    }
+
+    @Test
+    void testJournalFailureEndsImport() throws Exception {
+        Path file = directory.resolve("clinic.journal");
+        Files.writeString(patients, "id,name,address,phone,active\n"
+                + "P1,Patient One,1 Test St,555-0001\n");
+        Files.writeString(physiotherapists, "id,name,address,phone,expertise\n"
+                + "T1,Test Physio,1 Test Ave,555-0001,Massage\n");
+        BPC_Journal journal = new BPC_Journal(file, 0);
+        BPC_Clinic system = new BPC_Clinic(journal);
+        new BPC_CsvImporter(system).importCsv(patients, physiotherapists, null);
+        BPC_Patient patient = system.getPatients().values().iterator().next();
+        BPC_Physiotherapist physio = system.getPhysiotherapists().values().iterator().next();
+        Files.writeString(bookings, "id,patient,physiotherapist,treatment,date,status\n"
+                + "B1," + patient.getId() + "," + physio.getId() + ",Massage," + lastMonday + ",ATTENDED\n"
+                + "B2," + patient.getId() + "," + physio.getId() + ",Massage," + nextMonday + "\n");
+        journal.close();
+
+        // the journal cannot take the first booking, which is not reported as a rejected row
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new BPC_CsvImporter(system).importCsv(null, null, bookings));
+        assertEquals("Journal is closed", e.getMessage());
+        assertEquals(1, system.getBookings().size());
+        // the booking added before the failure is still in the report
+        assertEquals(1, system.getPhysiotherapistBookings().get(physio).size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderTest {
+
+    private static List<RecordedEvent> events(List<RecordedEvent> recorded, String name) {
+        return recorded.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    void testRecordsBookingLifecycle() throws Exception {
+        BPC_Clinic system = new BPC_Clinic();
+        BPC_Patient patient = system.addPatient("Test Patient", "1 Test St", "555-0001");
+        BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678",
+                List.of("Massage"));
+        LocalDateTime monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+
+        Path file = Files.createTempFile("bpc-clinic", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("com.bpc.BookingCreate", "com.bpc.BookingCancel", "com.bpc.BookingAttend",
+                    "com.bpc.BookingModify", "com.bpc.Report")) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            assertThrows(IllegalArgumentException.class,
+                    () -> system.createBooking(patient.getId(), physio.getId(), "Acupuncture", monday.plusHours(1)));
+            system.modifyBooking(booking.getId(), physio.getId(), "Massage", monday.plusHours(2));
+            system.cancelBooking(booking.getId());
+            assertThrows(IllegalStateException.class, () -> system.attendBooking(booking.getId()));
+            system.generateReport();
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> recorded = RecordingFile.readAllEvents(file);
+
+            List<RecordedEvent> created = events(recorded, "com.bpc.BookingCreate");
+            assertEquals(2, created.size());
+            RecordedEvent booked = created.get(0);
+            assertEquals(booking.getId(), booked.getString("bookingId"));
+            assertEquals(patient.getId(), booked.getString("patientId"));
+            assertEquals(physio.getId(), booked.getString("physiotherapistId"));
+            assertEquals(monday.toString(), booked.getString("appointment"));
+            assertEquals("OK", booked.getString("outcome"));
+            assertTrue(booked.getDuration("timetableUpdate").toNanos() > 0);
+            assertTrue(booked.getDuration("registration").toNanos() > 0);
+            RecordedEvent rejected = created.get(1);
+            assertNull(rejected.getString("bookingId"));
+            assertTrue(rejected.getString("outcome").contains("expertise"), rejected.getString("outcome"));
+            assertEquals(0, rejected.getDuration("timetableUpdate").toNanos());
+
+            RecordedEvent modified = events(recorded, "com.bpc.BookingModify").get(0);
+            assertEquals(physio.getId(), modified.getString("previousPhysiotherapistId"));
+            assertEquals(monday.plusHours(2).toString(), modified.getString("appointment"));
+            assertEquals("OK", events(recorded, "com.bpc.BookingCancel").get(0).getString("outcome"));
+            RecordedEvent attended = events(recorded, "com.bpc.BookingAttend").get(0);
+            assertEquals(physio.getId(), attended.getString("physiotherapistId"));
+            assertNotEquals("OK", attended.getString("outcome"));
+            assertEquals(1, events(recorded, "com.bpc.Report").get(0).getInt("physiotherapists"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.bpc.system;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpApiTest {
+    private static final Pattern ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    private BPC_Clinic system;
+    private BPC_HttpApi api;
+    private HttpClient client;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        system = new BPC_Clinic();
+        api = new BPC_HttpApi(system, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        api.start();
+        client = HttpClient.newHttpClient();
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.stop(0);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).build();
+    }
+
+    private HttpRequest post(String path, String... form) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < form.length; i += 2) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(form[i]).append('=').append(URLEncoder.encode(form[i + 1], StandardCharsets.UTF_8));
+        }
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + api.getAddress().getPort() + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String id(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        assertTrue(matcher.find(), response.body());
+        return matcher.group(1);
+    }
+
+    @Test
+    void testBookingLifecycle() throws Exception {
+        HttpResponse<String> patient = send(post("/patients", "name", "Test \"Patient\"",
+                "address", "1 Test St", "phone", "555-1234"));
+        assertEquals(201, patient.statusCode());
+        assertTrue(patient.body().contains("\"name\":\"Test \\\"Patient\\\"\""), patient.body());
+        String patientId = id(patient);
+        String physioId = id(send(post("/physiotherapists", "name", "Test Physio", "address", "2 Test Ave",
+                "phone", "555-5678", "expertise", "Massage;Rehabilitation")));
+
+        HttpResponse<String> slots = send(get("/availability?treatment=Massage&from=" + monday
+                + "&to=" + monday.plusHours(3) + "&limit=5"));
+        assertEquals(200, slots.statusCode());
+        assertEquals(3, slots.body().split("dateTime").length - 1, slots.body());
+
+        HttpResponse<String> booked = send(post("/bookings", "patient", patientId, "physiotherapist", physioId,
+                "treatment", "Massage", "dateTime", monday.toString()));
+        assertEquals(201, booked.statusCode(), booked.body());
+        String bookingId = id(booked);
+
+        HttpResponse<String> taken = send(post("/bookings", "patient", patientId, "physiotherapist", physioId,
+                "treatment", "Massage", "dateTime", monday.toString()));
+        assertEquals(409, taken.statusCode());
+        assertEquals("{\"error\":\"Physiotherapist is not available at this time\"}", taken.body());
+        String otherPhysioId = id(send(post("/physiotherapists", "name", "Other Physio", "address", "4 Test Ave",
+                "phone", "555-8765", "expertise", "Massage")));
+        HttpResponse<String> doubleBooked = send(post("/bookings", "patient", patientId,
+                "physiotherapist", otherPhysioId, "treatment", "Massage", "dateTime", monday.toString()));
+        assertEquals(409, doubleBooked.statusCode());
+        assertEquals("{\"error\":\"Patient already has a booking at this time\"}", doubleBooked.body());
+        HttpResponse<String> noPatient = send(post("/bookings", "patient", "PAT_20250101_0001",
+                "physiotherapist", physioId, "treatment", "Massage", "dateTime", monday.plusHours(1).toString()));
+        assertEquals(404, noPatient.statusCode());
+        assertEquals("{\"error\":\"Patient not found: PAT_20250101_0001\"}", noPatient.body());
+        assertEquals(404, send(post("/bookings/" + bookingId + "/modify", "physiotherapist", "PHY_20250101_0001",
+                "treatment", "Massage", "dateTime", monday.plusHours(1).toString())).statusCode());
+
+        assertEquals(200, send(post("/bookings/" + bookingId + "/attend")).statusCode());
+        HttpResponse<String> again = send(post("/bookings/" + bookingId + "/cancel"));
+        assertEquals(409, again.statusCode());
+        assertTrue(send(get("/bookings/" + bookingId)).body().contains("\"status\":\"ATTENDED\""));
+        assertTrue(send(get("/patients/" + patientId)).body().contains(bookingId));
+        assertTrue(send(get("/physiotherapists?expertise=Massage")).body().contains(physioId));
+        assertTrue(send(get("/bookings?from=" + monday + "&to=" + monday.plusHours(1) + "&physiotherapist="
+                + physioId)).body().contains(bookingId));
+        assertEquals("{\"items\":[],\"next\":null}", send(get("/bookings?from=" + monday.plusHours(1)
+                + "&to=" + monday.plusHours(2))).body());
+        assertEquals("{\"items\":[],\"next\":null}", send(get("/bookings?cursor="
+                + URLEncoder.encode(monday + "/" + bookingId, StandardCharsets.UTF_8))).body());
+        send(post("/patients", "name", "Another Patient", "address", "3 Test St", "phone", "555-4321"));
+        HttpResponse<String> firstPage = send(get("/patients?order=name&limit=1"));
+        assertTrue(firstPage.body().startsWith("{\"items\":[{\"id\":\"" + id(firstPage)), firstPage.body());
+        assertTrue(firstPage.body().contains("Another Patient"), firstPage.body());
+        assertTrue(firstPage.body().endsWith(",\"next\":\"" + id(firstPage) + "\"}"), firstPage.body());
+        HttpResponse<String> search = send(get("/patients?q=anoth"));
+        assertTrue(search.body().contains("Another Patient") && !search.body().contains(patientId), search.body());
+        assertTrue(send(get("/physiotherapists?q=555-56")).body().contains(physioId));
+
+        HttpResponse<String> report = send(get("/report"));
+        assertEquals(200, report.statusCode());
+        assertEquals(system.generateReport(), report.body());
+    }
+
+    @Test
+    void testUnknownRoutesAndIds() throws Exception {
+        assertEquals(404, send(get("/patients/PAT_20250101_0001")).statusCode());
+        assertEquals(404, send(post("/bookings/nothing/cancel")).statusCode());
+        assertEquals(404, send(get("/rooms")).statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/patients")).DELETE().build()).statusCode());
+        HttpResponse<String> missing = send(post("/patients", "name", "No Address"));
+        assertEquals(400, missing.statusCode());
+        assertEquals("{\"error\":\"Missing parameter: address\"}", missing.body());
+    }
+
+    @Test
+    void testConcurrentBookingsOfOneSlot() throws Exception {
+        String physioId = system.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678",
+                List.of("Massage")).getId();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String patientId = system.addPatient("Patient " + i, "1 Test St", "555-" + i).getId();
+            responses.add(client.sendAsync(post("/bookings", "patient", patientId, "physiotherapist", physioId,
+                    "treatment", "Massage", "dateTime", monday.toString()), HttpResponse.BodyHandlers.ofString()));
+        }
+        int booked = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.get().statusCode();
+            assertTrue(status == 201 || status == 409, String.valueOf(status));
+            booked += status == 201 ? 1 : 0;
+        }
+        assertEquals(1, booked);
+        assertEquals(1, system.getBookings().size());
+    }
+
+    @Test
+    void testReportFailingMidStreamIsCutOff() throws Exception {
+        api.stop(0);
+        BPC_Clinic failing = new BPC_Clinic() {
+            @Override
+            public void writeReport(Appendable out) throws IOException {
+                out.append("Physiotherapist report\n");
+                throw new IllegalStateException("Report failed");
+            }
+        };
+        api = new BPC_HttpApi(failing, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        api.start();
+        assertThrows(IOException.class, () -> send(get("/report")));
+    }
+}
@@ -0,0 +1,240 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("clinic.journal");
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    @Test
+    void testRestartRestoresClinic() throws Exception {
+        BPC_Patient patient;
+        BPC_Physiotherapist physio;
+        BPC_Booking moved;
+        BPC_Booking cancelled;
+        BPC_Booking attended;
+        String report;
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Patient inactive = system.addPatient("Inactive Patient", "1 Test St", "555-0000");
+            physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678", List.of("Massage"));
+            BPC_Physiotherapist other = system.addPhysiotherapist("Other Physio", "789 Test Ave", "555-9999",
+                    List.of("Massage"));
+
+            moved = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            cancelled = system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(1));
+            attended = system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(2));
+            system.modifyBooking(moved.getId(), other.getId(), "Massage", monday.plusDays(1));
+            system.cancelBooking(cancelled.getId());
+            system.attendBooking(attended.getId());
+            system.deactivatePatient(inactive.getId());
+            report = system.generateReport();
+        }
+
+        // as after a restart, the ID counters start from 1 again
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(journal);
+
+            assertEquals(2, restored.getPatients().size());
+            assertEquals(2, restored.getPhysiotherapists().size());
+            assertEquals(3, restored.getBookings().size());
+            assertEquals(report, restored.generateReport());
+
+            BPC_Booking booking = restored.getBookings().get(moved.getId());
+            assertEquals(monday.plusDays(1), booking.getTreatment().getDateTime());
+            assertEquals(BPC_BookingStatus.CANCELLED, restored.getBookings().get(cancelled.getId()).getStatus());
+            assertEquals(BPC_BookingStatus.ATTENDED, restored.getBookings().get(attended.getId()).getStatus());
+            assertEquals(1, restored.getPatients().values().stream().filter(p -> !p.isActive()).count());
+
+            // restored slots are taken again, freed ones are not
+            BPC_Physiotherapist restoredPhysio = restored.getPhysiotherapists().get(physio.getId());
+            assertTrue(restoredPhysio.isAvailable(monday));
+            assertTrue(restoredPhysio.isAvailable(monday.plusHours(1)));
+            assertFalse(restoredPhysio.isAvailable(monday.plusHours(2)));
+
+            // new bookings continue after the restored ones
+            restored.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(3));
+            assertEquals(4, restored.getBookings().size());
+        }
+    }
+
+    @Test
+    void testBatchIsOneRecord() throws Exception {
+        List<BPC_BookingResult> results;
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            BPC_Patient patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Massage"));
+            results = system.createBookings(List.of(
+                    new BPC_BookingRequest(patient.getId(), physio.getId(), "Massage", monday),
+                    new BPC_BookingRequest(patient.getId(), physio.getId(), "Massage", monday.plusHours(1))));
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            List<ByteBuffer> records = new ArrayList<>();
+            journal.replay(records::add);
+            // the patient, the physiotherapist and the whole batch
+            assertEquals(3, records.size());
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(2, restored.getBookings().size());
+            for (BPC_BookingResult result : results) {
+                assertEquals(result.getBooking().getTreatment().getDateTime(),
+                        restored.getBookings().get(result.getBooking().getId()).getTreatment().getDateTime());
+            }
+        }
+    }
+
+    @Test
+    void testTextTooLongForARecordChangesNothing() throws Exception {
+        String tooLong = "x".repeat(70_000);
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            assertThrows(IllegalArgumentException.class, () -> system.addPatient(tooLong, "123 Test St", "555-1234"));
+            BPC_Patient patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Massage"));
+            // qualified, as the name contains the expertise, but too long to journal
+            assertThrows(IllegalArgumentException.class,
+                    () -> system.createBooking(patient.getId(), physio.getId(), "Massage " + tooLong, monday));
+            assertTrue(physio.isAvailable(monday));
+            assertEquals(0, patient.getActiveBookingCount());
+            assertEquals(1, system.getPatients().size());
+        }
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(1, restored.getPatients().size());
+            assertTrue(restored.getBookings().isEmpty());
+        }
+    }
+
+    @Test
+    void testFailedJournalChangesNothing() throws Exception {
+        BPC_Journal journal = new BPC_Journal(file, 0);
+        BPC_Clinic system = new BPC_Clinic(journal);
+        BPC_Patient patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+        BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                List.of("Massage"));
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+        journal.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(1)));
+        assertTrue(physio.isAvailable(monday.plusHours(1)));
+        assertEquals(1, system.getBookings().size());
+        assertThrows(IllegalStateException.class, () -> system.modifyBooking(booking.getId(), physio.getId(),
+                "Massage", monday.plusHours(2)));
+        assertEquals(monday, booking.getTreatment().getDateTime());
+        assertTrue(physio.isAvailable(monday.plusHours(2)));
+        assertThrows(IllegalStateException.class, () -> system.attendBooking(booking.getId()));
+        assertThrows(IllegalStateException.class, () -> system.cancelBooking(booking.getId()));
+        assertEquals(BPC_BookingStatus.BOOKED, booking.getStatus());
+        assertFalse(physio.isAvailable(monday));
+        assertEquals(1, patient.getActiveBookingCount());
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws Exception {
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            system.addPatient("Test Patient", "123 Test St", "555-1234");
+        }
+        // a crash in the middle of writing the next record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2}));
+        }
+
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(1, restored.getPatients().size());
+            restored.addPatient("Second Patient", "1 Test St", "555-0000");
+        }
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            assertEquals(2, new BPC_Clinic(journal).getPatients().size());
+        }
+    }
+
+    @Test
+    void testCorruptRecordFailsOpen() throws Exception {
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            system.addPatient("Test Patient", "123 Test St", "555-1234");
+            system.addPatient("Second Patient", "1 Test St", "555-0000");
+        }
+        // a damaged byte in the first record, with the second one after it
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            size = channel.size();
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), 12);
+        }
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new BPC_Journal(file, 0));
+        assertEquals("Corrupt journal record at byte 0 of " + size, e.getMessage());
+        // the records after it are left for inspection
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(size, channel.size());
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsAreAllStored() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic system = new BPC_Clinic(journal);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        system.addPatient("Patient " + thread + "-" + i, "Address", "555-0000");
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            pool.shutdown();
+        }
+
+        try (BPC_Journal journal = new BPC_Journal(file, 50)) {
+            assertEquals(threads * perThread, new BPC_Clinic(journal).getPatients().size());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListingTest {
+    @TempDir
+    Path directory;
+
+    private BPC_Clinic system;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    // follows the cursors through every page
+    private static <T> List<List<T>> allPages(Function<String, BPC_Page<T>> pages) {
+        List<List<T>> result = new ArrayList<>();
+        BPC_Page<T> page = pages.apply(null);
+        result.add(page.getItems());
+        while (page.hasNext()) {
+            page = pages.apply(page.getNextCursor());
+            result.add(page.getItems());
+        }
+        return result;
+    }
+
+    @Test
+    void testPagesPatientsByIdAndByName() {
+        List<String> names = List.of("carol", "Alice", "bob", "Alice", "dave");
+        List<BPC_Patient> added = new ArrayList<>();
+        for (String name : names) {
+            added.add(system.addPatient(name, "1 Test St", "555-0001"));
+        }
+
+        List<List<BPC_Patient>> byId = allPages(cursor -> system.listPatientsById(cursor, 2));
+        assertEquals(List.of(2, 2, 1), byId.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(added, byId.stream().flatMap(List::stream).collect(Collectors.toList()));
+
+        List<String> byName = allPages(cursor -> system.listPatientsByName(cursor, 3)).stream()
+                .flatMap(List::stream).map(BPC_Patient::getName).collect(Collectors.toList());
+        assertEquals(List.of("Alice", "Alice", "bob", "carol", "dave"), byName);
+
+        // a page that ends on the last entry has no next page
+        BPC_Page<BPC_Patient> all = system.listPatientsById(null, 5);
+        assertFalse(all.hasNext());
+        assertNull(all.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> system.listPatientsById(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> system.listPatientsByName("PAT_20250304_9999", 2));
+    }
+
+    @Test
+    void testPagesBookingsByTimeAcrossMoves() {
+        BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678",
+                List.of("Massage"));
+        List<BPC_Booking> booked = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            BPC_Patient patient = system.addPatient("Patient " + i, "1 Test St", "555-000" + i);
+            booked.add(system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(3 - i)));
+        }
+
+        BPC_Page<BPC_Booking> first = system.listBookingsByTime(null, 2);
+        assertEquals(List.of(booked.get(3), booked.get(2)), first.getItems());
+
+        // moving the last booking of the page keeps its cursor valid
+        system.modifyBooking(booked.get(2).getId(), physio.getId(), "Massage", monday.plusDays(1));
+        system.cancelBooking(booked.get(0).getId());
+        BPC_Page<BPC_Booking> second = system.listBookingsByTime(first.getNextCursor(), 2);
+        assertEquals(List.of(booked.get(1), booked.get(0)), second.getItems());
+        assertTrue(second.hasNext());
+        BPC_Page<BPC_Booking> third = system.listBookingsByTime(second.getNextCursor(), 2);
+        assertEquals(List.of(booked.get(2)), third.getItems());
+        assertFalse(third.hasNext());
+
+        assertThrows(IllegalArgumentException.class, () -> system.listBookingsByTime("tomorrow/BOOK_1", 2));
+    }
+
+    @Test
+    void testBookingsBetweenFollowMovesBetweenPhysiotherapists() {
+        BPC_Physiotherapist first = system.addPhysiotherapist("First Physio", "2 Test Ave", "555-5678",
+                List.of("Massage"));
+        BPC_Physiotherapist second = system.addPhysiotherapist("Second Physio", "3 Test Ave", "555-5679",
+                List.of("Massage"));
+        BPC_Patient patient = system.addPatient("Test Patient", "1 Test St", "555-0001");
+        BPC_Patient other = system.addPatient("Other Patient", "1 Test St", "555-0002");
+        // booked before the index is first used, and after
+        BPC_Booking early = system.createBooking(patient.getId(), first.getId(), "Massage", monday);
+        BPC_Booking late = system.createBooking(other.getId(), first.getId(), "Massage", monday.plusHours(2));
+        LocalDateTime day = monday.toLocalDate().atStartOfDay();
+        assertEquals(List.of(early, late), system.getBookingsBetween(day, day.plusDays(1)));
+        BPC_Booking middle = system.createBooking(other.getId(), second.getId(), "Massage", monday.plusHours(1));
+
+        assertEquals(List.of(early, middle, late), system.getBookingsBetween(day, day.plusDays(1)));
+        // the end is excluded
+        assertEquals(List.of(early, middle), system.getBookingsBetween(monday, monday.plusHours(2)));
+        assertEquals(List.of(middle), system.getBookingsBetween(day, day.plusDays(1), second.getId()));
+
+        system.modifyBooking(early.getId(), second.getId(), "Massage", monday.plusDays(1));
+        system.cancelBooking(late.getId());
+        assertEquals(List.of(middle, late), system.getBookingsBetween(day, day.plusDays(1)));
+        assertEquals(List.of(late), system.getBookingsBetween(day, day.plusDays(1), first.getId()));
+        assertEquals(List.of(middle, early), system.getBookingsBetween(day, day.plusDays(2), second.getId()));
+        assertEquals(List.of(), system.getBookingsBetween(monday, monday));
+
+        assertThrows(IllegalArgumentException.class, () -> system.getBookingsBetween(monday, day));
+        assertThrows(IllegalArgumentException.class,
+                () -> system.getBookingsBetween(day, monday, "PHY_20250304_9999"));
+    }
+
+    @Test
+    void testListingsAreRestoredFromTheJournal() throws Exception {
+        Path file = directory.resolve("clinic.journal");
+        List<String> bookingIds;
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic journaled = new BPC_Clinic(journal);
+            BPC_Physiotherapist physio = journaled.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678",
+                    List.of("Massage"));
+            BPC_Patient patient = journaled.addPatient("Test Patient", "1 Test St", "555-0001");
+            BPC_Booking late = journaled.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(2));
+            BPC_Booking early = journaled.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(1));
+            journaled.modifyBooking(early.getId(), physio.getId(), "Massage", monday.plusHours(3));
+            bookingIds = List.of(late.getId(), early.getId());
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(file, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(journal);
+            assertEquals(bookingIds, restored.listBookingsByTime(null, 10).getItems().stream()
+                    .map(BPC_Booking::getId).collect(Collectors.toList()));
+            assertEquals(1, restored.listPatientsByName(null, 10).getItems().size());
+            assertEquals(1, restored.listPhysiotherapistsByName(null, 10).getItems().size());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingSeries;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.model.BPC_Recurrence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+    private BPC_Clinic system;
+    private BPC_Metrics metrics;
+    private BPC_Patient patient;
+    private BPC_Physiotherapist physio;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+        metrics = system.getMetrics();
+        patient = system.addPatient("Test Patient", "1 Test St", "555-0001");
+        physio = system.addPhysiotherapist("Test Physio", "2 Test Ave", "555-5678", List.of("Massage"));
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    private void assertRejected(BPC_RejectionReason reason, Runnable request) {
+        long before = metrics.getRejections(reason);
+        assertThrows(RuntimeException.class, request::run);
+        assertEquals(before + 1, metrics.getRejections(reason), reason.name());
+    }
+
+    @Test
+    void testCountsOperationsAndFailures() {
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+        system.modifyBooking(booking.getId(), physio.getId(), "Massage", monday.plusHours(1));
+        system.cancelBooking(booking.getId());
+        assertThrows(IllegalStateException.class, () -> system.attendBooking(booking.getId()));
+        system.generateReport();
+
+        BPC_OperationStats created = metrics.getStats(BPC_Operation.CREATE_BOOKING);
+        assertEquals(1, created.getCount());
+        assertEquals(0, created.getFailures());
+        assertTrue(created.getMaxMicros() > 0 && created.getP99Micros() <= created.getMaxMicros());
+        assertEquals(1, metrics.getStats(BPC_Operation.MODIFY_BOOKING).getCount());
+        assertEquals(1, metrics.getStats(BPC_Operation.CANCEL_BOOKING).getCount());
+        assertEquals(1, metrics.getStats(BPC_Operation.ATTEND_BOOKING).getFailures());
+        assertEquals(1, metrics.getStats(BPC_Operation.GENERATE_REPORT).getCount());
+
+        // batches and series are measured as one operation each, not per booking
+        system.createBookings(List.of(new BPC_BookingRequest(patient.getId(), physio.getId(), "Massage",
+                monday.plusDays(1))));
+        BPC_BookingSeries series = system.createBookingSeries(patient.getId(), physio.getId(), "Massage",
+                BPC_Recurrence.weekly(monday.plusDays(2), 2));
+        system.modifyBookingSeries(series.getId(), physio.getId(), "Massage", monday.plusDays(2).plusHours(1));
+        system.cancelBookingSeries(series.getId());
+        assertThrows(IllegalStateException.class, () -> system.cancelBookingSeries(series.getId()));
+        assertEquals(1, metrics.getStats(BPC_Operation.CREATE_BOOKINGS).getCount());
+        assertEquals(1, metrics.getStats(BPC_Operation.CREATE_BOOKING_SERIES).getCount());
+        assertEquals(1, metrics.getStats(BPC_Operation.MODIFY_BOOKING_SERIES).getCount());
+        assertEquals(2, metrics.getStats(BPC_Operation.CANCEL_BOOKING_SERIES).getCount());
+        assertEquals(1, metrics.getStats(BPC_Operation.CANCEL_BOOKING_SERIES).getFailures());
+        assertEquals(1, metrics.getStats(BPC_Operation.CREATE_BOOKING).getCount());
+
+        metrics.setEnabled(false);
+        system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(2));
+        assertThrows(IllegalArgumentException.class, () -> system.cancelBooking("BOOK_20250101_0001"));
+        assertEquals(1, metrics.getStats(BPC_Operation.CREATE_BOOKING).getCount());
+        assertEquals(0, metrics.getRejections(BPC_RejectionReason.NOT_FOUND));
+    }
+
+    @Test
+    void testTalliesRejectionReasons() {
+        BPC_Patient other = system.addPatient("Other Patient", "3 Test St", "555-0002");
+        BPC_Booking booking = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+
+        assertRejected(BPC_RejectionReason.INVALID_REQUEST,
+                () -> system.createBooking(null, physio.getId(), "Massage", monday));
+        assertRejected(BPC_RejectionReason.NOT_FOUND,
+                () -> system.createBooking("PAT_20250101_9999", physio.getId(), "Massage", monday));
+        assertRejected(BPC_RejectionReason.SLOT_UNAVAILABLE,
+                () -> system.createBooking(other.getId(), physio.getId(), "Massage", monday));
+        assertRejected(BPC_RejectionReason.EXPERTISE_MISMATCH,
+                () -> system.createBooking(other.getId(), physio.getId(), "Acupuncture", monday.plusHours(1)));
+        assertRejected(BPC_RejectionReason.IN_THE_PAST,
+                () -> system.createBooking(other.getId(), physio.getId(), "Massage", monday.minusWeeks(2)));
+        BPC_Physiotherapist second = system.addPhysiotherapist("Second Physio", "4 Test Ave", "555-5679",
+                List.of("Massage"));
+        assertRejected(BPC_RejectionReason.PATIENT_DOUBLE_BOOKED,
+                () -> system.createBooking(patient.getId(), second.getId(), "Massage", monday));
+        system.deactivatePatient(other.getId());
+        assertRejected(BPC_RejectionReason.INACTIVE_PATIENT,
+                () -> system.createBooking(other.getId(), physio.getId(), "Massage", monday.plusHours(1)));
+
+        system.attendBooking(booking.getId());
+        assertRejected(BPC_RejectionReason.NOT_BOOKED, () -> system.cancelBooking(booking.getId()));
+        assertRejected(BPC_RejectionReason.NOT_BOOKED,
+                () -> system.modifyBooking(booking.getId(), physio.getId(), "Massage", monday.plusHours(2)));
+        assertEquals(0, metrics.getRejections(BPC_RejectionReason.INACTIVE_PHYSIOTHERAPIST));
+        assertEquals(7, metrics.getStats(BPC_Operation.CREATE_BOOKING).getFailures());
+    }
+
+    @Test
+    void testPublishedAsMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.registerMBean("com.bpc:type=Clinic,name=MetricsTest");
+        try {
+            system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData created = (CompositeData) operations.get(new Object[] {"CREATE_BOOKING"}).get("value");
+            assertEquals(1L, created.get("count"));
+            TabularData rejections = (TabularData) server.getAttribute(name, "Rejections");
+            assertEquals(0L, rejections.get(new Object[] {"NOT_FOUND"}).get("value"));
+            assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import com.bpc.util.BPC_IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+    @TempDir
+    Path directory;
+
+    private BPC_Clinic system;
+
+    @BeforeEach
+    void setUp() {
+        system = new BPC_Clinic();
+    }
+
+    private List<String> patientNames(String query, int limit) {
+        return system.searchPatients(query, limit).stream().map(BPC_Patient::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testFindsPatientsByNamePrefixAndPhone() {
+        system.addPatient("Alice Johnson", "1 Test St", "07700 900001");
+        system.addPatient("Bob Johnston", "2 Test St", "07700 900002");
+        system.addPatient("John Smith", "3 Test St", "+44 20 7946 0003");
+        system.addPatient("Mary-Jo Brown", "4 Test St", "020 7946 0004");
+
+        // any word of the name, ignoring case
+        assertEquals(List.of("John Smith", "Alice Johnson", "Bob Johnston"), patientNames("JOH", 10));
+        assertEquals(List.of("John Smith", "Alice Johnson"), patientNames("joh", 2));
+        assertEquals(List.of("Mary-Jo Brown"), patientNames("jo br", 10));
+        assertEquals(List.of("Bob Johnston"), patientNames("johnst b", 10));
+        assertEquals(List.of(), patientNames("alice smith", 10));
+
+        // digits only, punctuation and spaces ignored
+        assertEquals(List.of("Alice Johnson", "Bob Johnston"), patientNames("07700-900", 10));
+        assertEquals(List.of("John Smith"), patientNames("+4420", 10));
+        assertEquals(List.of(), patientNames("  ", 10));
+        assertThrows(IllegalArgumentException.class, () -> system.searchPatients("jo", 0));
+    }
+
+    @Test
+    void testPeopleWithoutPhoneAreFoundByName() {
+        system.addPatient("Alice Johnson", null, null);
+        system.addPhysiotherapist("Jane Doe", null, null, List.of("Massage"));
+
+        assertEquals(1, system.getPatients().size());
+        assertEquals(List.of("Alice Johnson"), patientNames("ali", 10));
+        assertEquals(List.of(), patientNames("0770", 10));
+        assertEquals(1, system.searchPhysiotherapists("jan", 10).size());
+    }
+
+    @Test
+    void testCorrectsTyposAfterPrefixMatches() {
+        system.addPatient("Alice Johnson", "1 Test St", "555-0001");
+        system.addPatient("Bob Jonson", "2 Test St", "555-0002");
+        system.addPatient("Carol Smith", "3 Test St", "555-0003");
+        system.addPatient("Dave Smithers", "4 Test St", "555-0004");
+
+        // a swapped, missing, extra and wrong letter
+        assertEquals(List.of("Carol Smith", "Dave Smithers"), patientNames("smiht", 10));
+        assertEquals(List.of("Alice Johnson", "Bob Jonson"), patientNames("jonhson", 10));
+        assertEquals(List.of("Carol Smith", "Dave Smithers"), patientNames("smitth", 10));
+        assertEquals(List.of("Carol Smith", "Dave Smithers"), patientNames("snith", 10));
+        // a word that is indexed is not corrected
+        assertEquals(List.of("Bob Jonson"), patientNames("jonson", 10));
+        assertEquals(List.of("Carol Smith"), patientNames("carol smoth", 10));
+    }
+
+    @Test
+    void testSearchesAreRestoredFromSnapshotAndJournal() throws Exception {
+        Path journalFile = directory.resolve("clinic.journal");
+        Path snapshotFile = directory.resolve("clinic.snapshot");
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic journaled = new BPC_Clinic(journal);
+            journaled.addPatient("Alice Johnson", "1 Test St", "555-0001");
+            journaled.addPhysiotherapist("John Smith", "2 Test Ave", "555-5678", List.of("Massage"));
+            journaled.checkpoint(snapshotFile);
+            journaled.addPatient("Bob Johnston", "3 Test St", "555-0002");
+        }
+
+        BPC_IdGenerator.resetCounters();
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            system = new BPC_Clinic(snapshotFile, journal);
+            assertEquals(List.of("Alice Johnson", "Bob Johnston"), patientNames("john", 10));
+            assertEquals(List.of("John Smith"), system.searchPhysiotherapists("smyth", 10).stream()
+                    .map(BPC_Physiotherapist::getName).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bpc.system;
+
+import com.bpc.model.BPC_Booking;
+import com.bpc.model.BPC_BookingStatus;
+import com.bpc.model.BPC_Patient;
+import com.bpc.model.BPC_Physiotherapist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+    @TempDir
+    Path directory;
+
+    private Path journalFile;
+    private Path snapshotFile;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        journalFile = directory.resolve("clinic.journal");
+        snapshotFile = directory.resolve("clinic.snapshot");
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    @Test
+    void testCheckpointAndLaterChangesAreRestored() throws Exception {
+        BPC_Patient patient;
+        BPC_Physiotherapist physio;
+        BPC_Booking cancelled;
+        BPC_Booking attended;
+        BPC_Booking afterCheckpoint;
+        String report;
+        long journalSize;
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic system = new BPC_Clinic(snapshotFile, journal);
+            patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678", List.of("Massage"));
+            cancelled = system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            attended = system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(1));
+            system.cancelBooking(cancelled.getId());
+            system.attendBooking(attended.getId());
+
+            system.checkpoint(snapshotFile);
+            journalSize = Files.size(journalFile);
+            afterCheckpoint = system.createBooking(patient.getId(), physio.getId(), "Massage", monday.plusHours(2));
+            report = system.generateReport();
+        }
+        // the journal only holds the checkpoint record and the change made after it
+        assertTrue(journalSize < 32, "journal size " + journalSize);
+
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(snapshotFile, journal);
+
+            assertEquals(report, restored.generateReport());
+            assertEquals(3, restored.getBookings().size());
+            assertEquals(BPC_BookingStatus.CANCELLED, restored.getBookings().get(cancelled.getId()).getStatus());
+            assertEquals(BPC_BookingStatus.ATTENDED, restored.getBookings().get(attended.getId()).getStatus());
+            assertEquals(BPC_BookingStatus.BOOKED, restored.getBookings().get(afterCheckpoint.getId()).getStatus());
+
+            BPC_Physiotherapist restoredPhysio = restored.getPhysiotherapists().get(physio.getId());
+            assertTrue(restoredPhysio.isAvailable(monday));
+            assertFalse(restoredPhysio.isAvailable(monday.plusHours(1)));
+            assertFalse(restoredPhysio.isAvailable(monday.plusHours(2)));
+            assertEquals(1, restored.getPatients().get(patient.getId()).getActiveBookingCount());
+
+            // the restored booking can still be changed
+            restored.cancelBooking(afterCheckpoint.getId());
+            assertTrue(restoredPhysio.isAvailable(monday.plusHours(2)));
+        }
+    }
+
+    @Test
+    void testJournalFromBeforeCheckpointIsNotReplayedTwice() throws Exception {
+        Path oldJournal = directory.resolve("old.journal");
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic system = new BPC_Clinic(snapshotFile, journal);
+            BPC_Patient patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Massage"));
+            system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            Files.copy(journalFile, oldJournal);
+            system.checkpoint(snapshotFile);
+        }
+        // as if the process stopped after writing the snapshot but before restarting the journal
+        Files.copy(oldJournal, journalFile, StandardCopyOption.REPLACE_EXISTING);
+
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(snapshotFile, journal);
+            assertEquals(1, restored.getBookings().size());
+            restored.addPatient("Second Patient", "1 Test St", "555-0000");
+        }
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            assertEquals(2, new BPC_Clinic(snapshotFile, journal).getPatients().size());
+        }
+    }
+
+    @Test
+    void testRolloverStateIsRestored() throws Exception {
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic system = new BPC_Clinic(snapshotFile, journal);
+            BPC_Patient patient = system.addPatient("Test Patient", "123 Test St", "555-1234");
+            BPC_Physiotherapist physio = system.addPhysiotherapist("Test Physio", "456 Test Ave", "555-5678",
+                    List.of("Massage"));
+            system.createBooking(patient.getId(), physio.getId(), "Massage", monday);
+            system.rolloverTimetables(monday.toLocalDate().plusWeeks(1));
+            system.checkpoint(snapshotFile);
+        }
+
+        try (BPC_Journal journal = new BPC_Journal(journalFile, 0)) {
+            BPC_Clinic restored = new BPC_Clinic(snapshotFile, journal);
+            BPC_Physiotherapist physio = restored.getPhysiotherapists().values().iterator().next();
+            assertEquals(1, physio.getTimetable().getRolledOverBookedSlots());
+            assertFalse(physio.isAvailable(monday.plusHours(1)));
+        }
+    }
+}
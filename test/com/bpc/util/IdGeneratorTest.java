@@ -0,0 +1,71 @@
+package com.bpc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdGeneratorTest {
+
+    @Test
+    void testGeneratedIdFormat() {
+        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+        String patientId = BPC_IdGenerator.generatePatientId();
+        String physioId = BPC_IdGenerator.generatePhysiotherapistId();
+        String bookingId = BPC_IdGenerator.generateBookingId();
+
+        // IDs carry today's date and a sequence of at least 4 digits
+        assertTrue(patientId.matches("PAT_" + today + "_\\d{4,}"), patientId);
+        assertTrue(physioId.matches("PHY_" + today + "_\\d{4,}"), physioId);
+        assertTrue(bookingId.matches("BOOK_" + today + "_\\d{4,}"), bookingId);
+    }
+
+    @Test
+    void testSequenceIncrements() {
+        String first = BPC_IdGenerator.generateBookingId();
+        String second = BPC_IdGenerator.generateBookingId();
+
+        int firstSequence = Integer.parseInt(first.substring(first.lastIndexOf('_') + 1));
+        int secondSequence = Integer.parseInt(second.substring(second.lastIndexOf('_') + 1));
+        assertEquals(firstSequence + 1, secondSequence);
+    }
+
+    @Test
+    void testValidation() {
+        assertTrue(BPC_IdGenerator.isValidPatientId("PAT_20250304_0001"));
+        assertTrue(BPC_IdGenerator.isValidPhysiotherapistId("PHY_20250304_9999"));
+        assertTrue(BPC_IdGenerator.isValidBookingId("BOOK_20250304_0042"));
+
+        assertFalse(BPC_IdGenerator.isValidPatientId("PHY_20250304_0001"));
+        assertFalse(BPC_IdGenerator.isValidPatientId("PAT_2025030_0001"));
+        assertFalse(BPC_IdGenerator.isValidPatientId("PAT_20250304_00001"));
+        assertFalse(BPC_IdGenerator.isValidPatientId("PAT_20250304-0001"));
+        assertFalse(BPC_IdGenerator.isValidPatientId("PAT_2025O304_0001"));
+        assertFalse(BPC_IdGenerator.isValidBookingId("BOOK_20250304_"));
+        assertFalse(BPC_IdGenerator.isValidBookingId(null));
+    }
+
+    @Test
+    void testKeyRoundTrip() {
+        long key = BPC_IdGenerator.nextBookingKey();
+        String id = BPC_IdGenerator.formatBookingId(key);
+
+        assertTrue(BPC_IdGenerator.isValidBookingId(id), id);
+        assertEquals(key, BPC_IdGenerator.parseBookingKey(id));
+        assertEquals((20250304L << 32) | 12345, BPC_IdGenerator.parsePatientKey("PAT_20250304_12345"));
+        assertEquals("PAT_20250304_12345", BPC_IdGenerator.formatPatientId((20250304L << 32) | 12345));
+    }
+
+    @Test
+    void testParseRejectsOtherFormats() {
+        assertEquals(-1, BPC_IdGenerator.parsePatientKey("P1"));
+        assertEquals(-1, BPC_IdGenerator.parsePatientKey("PHY_20250304_0001"));
+        assertEquals(-1, BPC_IdGenerator.parsePatientKey("PAT_20250304_001"));
+        // only one spelling per key, so a padded sequence is not a second id
+        assertEquals(-1, BPC_IdGenerator.parsePatientKey("PAT_20250304_00001"));
+        assertEquals(-1, BPC_IdGenerator.parseBookingKey(null));
+    }
+}
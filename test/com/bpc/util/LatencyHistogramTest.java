@@ -0,0 +1,40 @@
+package com.bpc.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryDurationWithinAQuarter() {
+        long[] durations = {0, 1, 3, 4, 7, 8, 9, 1000, 1_000_000, 123_456_789, Long.MAX_VALUE};
+        for (long duration : durations) {
+            int bucket = BPC_LatencyHistogram.bucketOf(duration);
+            assertTrue(BPC_LatencyHistogram.upperBound(bucket) >= duration, "bucket of " + duration);
+            assertTrue(bucket == 0 || BPC_LatencyHistogram.upperBound(bucket - 1) < duration, "bucket of " + duration);
+            assertTrue(BPC_LatencyHistogram.upperBound(bucket) - duration <= duration / 4, "bucket of " + duration);
+        }
+    }
+
+    @Test
+    void testPercentilesMeanAndMax() {
+        BPC_LatencyHistogram histogram = new BPC_LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(5050_000.0 / 101, histogram.getMeanNanos(), 0.001);
+        long median = histogram.getPercentileNanos(0.5);
+        assertTrue(median >= 50_000 && median <= 50_000 * 5 / 4, String.valueOf(median));
+        long p99 = histogram.getPercentileNanos(0.99);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, String.valueOf(p99));
+        assertEquals(100_000, histogram.getPercentileNanos(1));
+        assertEquals(0, histogram.getPercentileNanos(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(1.5));
+    }
+}
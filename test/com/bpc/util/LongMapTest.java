@@ -0,0 +1,63 @@
+package com.bpc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongMapTest {
+
+    @Test
+    void testPutAndGet() {
+        BPC_LongMap<String> map = new BPC_LongMap<>();
+
+        assertNull(map.put(42, "a"));
+        assertEquals("a", map.put(42, "b"));
+        assertEquals("b", map.get(42));
+        assertNull(map.get(43));
+        assertNull(map.get(-1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testGrowsPastInitialCapacity() {
+        BPC_LongMap<Long> map = new BPC_LongMap<>();
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, key);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(key, map.get(key));
+        }
+        Set<Long> values = new HashSet<>(map.values());
+        assertEquals(10_000, values.size());
+    }
+
+    @Test
+    void testRejectsInvalidEntries() {
+        BPC_LongMap<String> map = new BPC_LongMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "a"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void testValueIteratorVisitsEveryValue() {
+        BPC_LongMap<Long> map = new BPC_LongMap<>();
+        assertFalse(map.valueIterator().hasNext());
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, key);
+        }
+
+        Set<Long> values = new HashSet<>();
+        for (Iterator<Long> iterator = map.valueIterator(); iterator.hasNext(); ) {
+            values.add(iterator.next());
+        }
+        assertEquals(new HashSet<>(map.values()), values);
+        assertEquals(100, values.size());
+    }
+}